@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Compares fetching COUNT movies with one GET /api/movies/{id} each against a single
+# GET /api/movies/batch request, against a running application. Each variant runs RUNS times;
+# the script prints the median in milliseconds.
+#
+# Usage: COUNT=200 RUNS=5 scripts/batch-benchmark.sh
+# Needs the application running on PORT with movies in the watchlist, and curl.
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+COUNT=${COUNT:-200}
+PORT=${PORT:-8081}
+BASE="http://localhost:${PORT}/api/movies"
+
+now_ms() {
+  date +%s%3N
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+# Cycle through the IDs on the first page so missing IDs do not skew the single gets
+mapfile -t IDS < <(curl -sf "${BASE}?size=${COUNT}&fields=id" | grep -o '"id":[0-9]*' | cut -d: -f2)
+if [ "${#IDS[@]}" -eq 0 ]; then
+  echo "no movies found at ${BASE}" >&2
+  exit 1
+fi
+REQUEST_IDS=()
+for i in $(seq 0 $((COUNT - 1))); do
+  REQUEST_IDS+=("${IDS[$((i % ${#IDS[@]}))]}")
+done
+ID_LIST=$(IFS=,; echo "${REQUEST_IDS[*]}")
+
+single_gets() {
+  local start
+  start=$(now_ms)
+  for id in "${REQUEST_IDS[@]}"; do
+    curl -sf -o /dev/null "${BASE}/${id}"
+  done
+  echo $(( $(now_ms) - start ))
+}
+
+batch_get() {
+  local start
+  start=$(now_ms)
+  curl -sf -o /dev/null "${BASE}/batch?ids=${ID_LIST}"
+  echo $(( $(now_ms) - start ))
+}
+
+run_variant() {
+  local name=$1 fn=$2
+  local results=()
+  for _ in $(seq "$RUNS"); do
+    results+=("$($fn)")
+  done
+  printf '%-28s median %6s ms  (runs: %s)\n' "$name" "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+run_variant "${COUNT} single gets" single_gets
+run_variant "1 batch of ${COUNT}" batch_get
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Produces an AppCDS archive (target/app.jsa) with a training run of the prod profile.
+# The training run refreshes the application context against the configured database and
+# exits (spring.context.exit=onRefresh), dumping every class loaded on the way.
+#
+# Usage: scripts/cds-train.sh [extra JVM/Spring arguments]
+# Run the result with: java -XX:SharedArchiveFile=target/app.jsa -jar target/my-movie-api-db-version1.jar --spring.profiles.active=prod
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+mvn -B -q -Pcds -DskipTests package
+JAR=target/my-movie-api-db-version1.jar
+
+java -XX:ArchiveClassesAtExit=target/app.jsa \
+     -Dspring.context.exit=onRefresh \
+     "$@" \
+     -jar "$JAR" --spring.profiles.active=prod
+
+echo "CDS archive written to target/app.jsa"
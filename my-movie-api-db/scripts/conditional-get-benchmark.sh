@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Compares full 200 responses with 304 Not Modified answers for a single movie and a movie list
+# page, against a running application. The ETag is taken from a first response; each URL is then
+# requested REQUESTS times without and with If-None-Match. The script prints median and p99
+# latency in milliseconds and the response size in bytes.
+#
+# Usage: REQUESTS=500 scripts/conditional-get-benchmark.sh
+# Needs the application running on PORT with movies in the watchlist and
+# --movies.response-cache.enabled=false, so the 200 responses load and serialize the movies; curl.
+set -euo pipefail
+
+REQUESTS=${REQUESTS:-500}
+PORT=${PORT:-8081}
+BASE="http://localhost:${PORT}/api/movies"
+
+stats() {
+  sort -n | awk '{ v[NR] = $1 }
+    END { p99 = int(NR * 0.99); if (p99 < NR * 0.99) p99++;
+          printf "median %7.2f ms  p99 %7.2f ms", v[int((NR + 1) / 2)], v[p99] }'
+}
+
+ID=$(curl -sf "${BASE}?size=1&fields=id" | grep -o '"id":[0-9]*' | head -1 | cut -d: -f2 || true)
+if [ -z "$ID" ]; then
+  echo "no movies found at ${BASE}" >&2
+  exit 1
+fi
+URLS=(
+  "${BASE}/${ID}"
+  "${BASE}?size=50"
+)
+
+etag_of() {
+  curl -sf -D - -o /dev/null "$1" | tr -d '\r' | awk -F': ' 'tolower($1) == "etag" { print $2 }'
+}
+
+# Sends REQUESTS requests with the given curl arguments and prints the latency statistics,
+# checking that every response has the expected status
+run_variant() {
+  local name=$1 status=$2 url=$3
+  shift 3
+  local latencies=() size=0 result
+  for _ in $(seq "$REQUESTS"); do
+    result=$(curl -s -o /dev/null -w '%{http_code} %{time_total} %{size_download}' "$@" "$url")
+    if [ "${result%% *}" != "$status" ]; then
+      echo "${name}: expected ${status}, got ${result%% *} from ${url}" >&2
+      exit 1
+    fi
+    latencies+=("$(echo "$result" | awk '{ print $2 * 1000 }')")
+    size=$(echo "$result" | awk '{ print $3 }')
+  done
+  printf '%-28s %s  %8s bytes\n' "$name" "$(printf '%s\n' "${latencies[@]}" | stats)" "$size"
+}
+
+for url in "${URLS[@]}"; do
+  etag=$(etag_of "$url")
+  echo "${url#"${BASE}"}  ETag ${etag}"
+  # One pass each first so neither variant pays for class loading
+  curl -s -o /dev/null "$url"
+  curl -s -o /dev/null -H "If-None-Match: ${etag}" "$url"
+  run_variant "  200 (full response)" 200 "$url"
+  run_variant "  304 (If-None-Match)" 304 "$url" -H "If-None-Match: ${etag}"
+done
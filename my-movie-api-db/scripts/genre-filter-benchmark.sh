@@ -0,0 +1,123 @@
+#!/usr/bin/env bash
+# Measures the genre filter on a large catalogue: GET /api/movies?genres=...&match=all|any,
+# answered from the in-memory GenreIndex, against the same page and count selected in MySQL with
+# a bitwise predicate on genre_mask. The scratch database BENCH_DB is created from
+# src/main/resources/movie_watchlist_dbv2.sql and seeded with MOVIES movies of one to three random
+# genres, all on the watchlist of user 0 and about a third of them watched. Each filter is sent
+# REQUESTS times per variant; the script prints the median and p99 in milliseconds. The SQL
+# variant is timed around the mysql client, so the client start-up time (a plain "select 1") is
+# printed for reference.
+#
+# Usage: MOVIES=200000 REQUESTS=50 DB_USER=root DB_PASSWORD=secret scripts/genre-filter-benchmark.sh
+# Needs MySQL on localhost:3306, the mysql client and curl. BENCH_DB is dropped.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+MOVIES=${MOVIES:-200000}
+REQUESTS=${REQUESTS:-50}
+PORT=${PORT:-8081}
+BENCH_DB=${BENCH_DB:-movie_watchlist_genre_bench}
+DB_USER=${DB_USER:-root}
+DB_PASSWORD=${DB_PASSWORD:-}
+BASE="http://localhost:${PORT}/api/movies"
+JAR=target/my-movie-api-db-version1.jar
+
+# Genre names and "all" or "any"; the masks are the bits of Genre (Action 1, Comedy 8, ...)
+FILTERS=(
+  "Action,Science Fiction|all|16385"
+  "Comedy,Romance|any|8200"
+  "Drama|any|64"
+  "Horror,Mystery,Thriller|all|70656"
+)
+
+if [ ! -f "$JAR" ]; then
+  mvn -B -q -DskipTests package
+fi
+
+stats() {
+  sort -n | awk '{ v[NR] = $1 }
+    END { p99 = int(NR * 0.99); if (p99 < NR * 0.99) p99++;
+          printf "median %7.2f ms  p99 %7.2f ms", v[int((NR + 1) / 2)], v[p99] }'
+}
+
+mysql_cmd() {
+  MYSQL_PWD="$DB_PASSWORD" mysql -u"$DB_USER" "$@"
+}
+
+now_ns() {
+  date +%s%N
+}
+
+pid=
+cleanup() {
+  if [ -n "$pid" ]; then
+    kill "$pid" 2>/dev/null || true
+  fi
+  mysql_cmd -e "drop database if exists ${BENCH_DB}" || true
+}
+trap cleanup EXIT
+
+mysql_cmd -e "drop database if exists ${BENCH_DB}; create database ${BENCH_DB}"
+mysql_cmd "$BENCH_DB" < src/main/resources/movie_watchlist_dbv2.sql
+mysql_cmd "$BENCH_DB" -e "
+  set session cte_max_recursion_depth = ${MOVIES};
+  insert into movies (id, movie_id, title, year, genre_mask, version)
+  with recursive seq (n) as (select 1 union all select n + 1 from seq where n < ${MOVIES})
+  select 1000 + n, 10000000 + n, concat('Movie ', n), 1950 + n % 75,
+         (1 << floor(rand() * 19)) | if(rand() < 0.6, 1 << floor(rand() * 19), 0)
+             | if(rand() < 0.3, 1 << floor(rand() * 19), 0), 0
+  from seq;
+  insert into watchlist_entries (user_id, movie_id, watched, added_at, version)
+  select 0, id, rand() < 0.33, now(6), 0 from movies where id > 1000;"
+echo "seeded $(mysql_cmd -N "$BENCH_DB" -e "select count(*) from watchlist_entries where user_id = 0") watchlist movies"
+
+java -jar "$JAR" --server.port="$PORT" \
+    --spring.datasource.url="jdbc:mysql://localhost:3306/${BENCH_DB}?rewriteBatchedStatements=true" \
+    --spring.datasource.username="$DB_USER" --spring.datasource.password="$DB_PASSWORD" \
+    --spring.jpa.show-sql=false --movies.history.enabled=false --movies.refresh.enabled=false \
+    --movies.purge.enabled=false --movies.warmup.enabled=false \
+    > target/genre-filter-benchmark.log 2>&1 &
+pid=$!
+until curl -sf -o /dev/null "http://localhost:${PORT}/actuator/health/readiness"; do
+  if ! kill -0 "$pid" 2>/dev/null; then
+    echo "application exited, see target/genre-filter-benchmark.log" >&2
+    exit 1
+  fi
+  sleep 0.1
+done
+grep -o 'Genre index built for [0-9]* movies' target/genre-filter-benchmark.log || true
+
+client=()
+for _ in $(seq "$REQUESTS"); do
+  start=$(now_ns)
+  mysql_cmd -N "$BENCH_DB" -e "select 1" > /dev/null
+  client+=("$(( ($(now_ns) - start) / 1000 ))")
+done
+printf '%-40s %s\n' "mysql client start-up" "$(printf '%s\n' "${client[@]}" | awk '{ print $1 / 1000 }' | stats)"
+
+for filter in "${FILTERS[@]}"; do
+  IFS='|' read -r genres match mask <<< "$filter"
+  if [ "$match" = all ]; then
+    predicate="m.genre_mask & ${mask} = ${mask}"
+  else
+    predicate="m.genre_mask & ${mask} <> 0"
+  fi
+  from="from watchlist_entries e join movies m on m.id = e.movie_id
+        where e.user_id = 0 and e.watched = 0 and m.deleted_at is null and ${predicate}"
+  url="${BASE}?genres=${genres// /%20}&match=${match}&watched=false&size=20"
+  curl -sf -o /dev/null "$url"
+
+  index=()
+  sql=()
+  for _ in $(seq "$REQUESTS"); do
+    index+=("$(curl -s -o /dev/null -w '%{time_total}' "$url" | awk '{ print $1 * 1000 }')")
+    start=$(now_ns)
+    mysql_cmd -N "$BENCH_DB" -e "select m.id, m.title, m.year, m.director, m.genre ${from} order by m.id limit 20;
+                                 select count(*) ${from}" > /dev/null
+    sql+=("$(( ($(now_ns) - start) / 1000 ))")
+  done
+  total=$(curl -sf "$url" | grep -o '"totalElements":[0-9]*' | cut -d: -f2)
+  printf '%-40s %s  (%s matches)\n' "${genres} (${match}), genre index" "$(printf '%s\n' "${index[@]}" | stats)" "$total"
+  printf '%-40s %s\n' "${genres} (${match}), bitwise SQL" \
+    "$(printf '%s\n' "${sql[@]}" | awk '{ print $1 / 1000 }' | stats)"
+done
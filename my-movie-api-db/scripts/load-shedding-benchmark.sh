@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+# Measures GET latency while a storm of POST /api/movies requests runs, with the endpoint
+# concurrency limits effectively off and with the configured ones. Each variant starts the prod
+# profile, measures N sequential GETs without load, then starts STORM concurrent add loops and
+# measures N GETs again. The script prints mean, median and p99 in ms for both phases, and the
+# admitted, queued and shed add requests from the movies.limits.requests metric.
+#
+# Usage: REQUESTS=500 STORM=300 scripts/load-shedding-benchmark.sh
+# Needs the database from application.properties to be reachable (with some movies), and curl.
+# The add requests call OMDb and TMDB unless movies.replay-cache.mode=replay is set.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+REQUESTS=${REQUESTS:-500}
+STORM=${STORM:-300}
+PORT=${PORT:-8081}
+BASE="http://localhost:${PORT}/api/movies"
+METRICS="http://localhost:${PORT}/actuator/metrics/movies.limits.requests"
+JAR=target/my-movie-api-db-version1.jar
+
+if [ ! -f "$JAR" ]; then
+  mvn -B -q -DskipTests package
+fi
+
+URLS=(
+  "${BASE}?size=20"
+  "${BASE}/1"
+  "${BASE}/titles?size=50"
+  "${BASE}/stats"
+)
+
+stats() {
+  sort -n | awk '{ v[NR] = $1; sum += $1 }
+    END { p99 = int(NR * 0.99); if (p99 < NR * 0.99) p99++;
+          printf "mean %7.2f ms  median %7.2f ms  p99 %7.2f ms", sum / NR, v[int((NR + 1) / 2)], v[p99] }'
+}
+
+measure_gets() {
+  local latencies=()
+  for i in $(seq 0 $((REQUESTS - 1))); do
+    latencies+=("$(curl -s -o /dev/null -w '%{time_total}' "${URLS[$((i % ${#URLS[@]}))]}" \
+        | awk '{ print $1 * 1000 }')")
+  done
+  printf '%s\n' "${latencies[@]}" | stats
+}
+
+add_count() {
+  curl -s "${METRICS}?tag=endpoint:add&tag=outcome:$1" | sed 's/.*"value":\([0-9.E+]*\).*/\1/' \
+      | awk '{ printf "%.0f", $1 }'
+}
+
+run_variant() {
+  local name=$1 max_concurrency=$2 queue_size=$3 pid storm_pids=()
+  java -jar "$JAR" --spring.profiles.active=prod --server.port="$PORT" --movies.warmup.enabled=false \
+      --movies.limits.add.max-concurrency="$max_concurrency" --movies.limits.add.queue-size="$queue_size" \
+      > target/load-shedding-benchmark.log 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:${PORT}/actuator/health/readiness"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited, see target/load-shedding-benchmark.log" >&2
+      exit 1
+    fi
+    sleep 0.1
+  done
+  printf '%-14s idle:  %s\n' "$name" "$(measure_gets)"
+
+  for i in $(seq 1 "$STORM"); do
+    (while true; do
+      curl -s -o /dev/null -X POST "${BASE}?title=Load%20Test%20${i}%20${RANDOM}"
+    done) &
+    storm_pids+=($!)
+  done
+  sleep 2
+  printf '%-14s storm: %s\n' "$name" "$(measure_gets)"
+  kill "${storm_pids[@]}" 2>/dev/null || true
+  wait "${storm_pids[@]}" 2>/dev/null || true
+
+  printf '%-14s adds:  admitted %s  queued %s  shed %s\n' "$name" \
+      "$(add_count admitted)" "$(add_count queued)" "$(add_count shed)"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_variant "limits off" 100000 0
+run_variant "limits on" 4 8
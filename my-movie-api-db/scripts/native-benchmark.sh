@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+# Compares the JVM jar with the GraalVM native executable: time to first successful request,
+# resident set size after a load phase, and steady-state throughput of GET /api/movies.
+# Throughput is measured with CONCURRENCY parallel curl loops for DURATION seconds after a
+# WARMUP_SECONDS load phase, so the JVM variant is measured after JIT compilation.
+#
+# Usage: DURATION=30 CONCURRENCY=8 scripts/native-benchmark.sh
+# Needs GraalVM (native-image on the PATH), the database from application.properties and curl.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8081}
+DURATION=${DURATION:-30}
+WARMUP_SECONDS=${WARMUP_SECONDS:-30}
+CONCURRENCY=${CONCURRENCY:-8}
+URL="http://localhost:${PORT}/api/movies?size=20"
+JAR=target/my-movie-api-db-version1.jar
+NATIVE=target/my-movie-api-db
+
+if [ ! -f "$JAR" ]; then
+  mvn -B -q -DskipTests package
+fi
+if [ ! -x "$NATIVE" ]; then
+  mvn -B -q -Pnative -DskipTests native:compile
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+# Sends requests from CONCURRENCY loops for the given seconds and prints the completed count
+load() {
+  local seconds=$1 end
+  end=$(( $(date +%s) + seconds ))
+  for _ in $(seq "$CONCURRENCY"); do
+    ( count=0
+      while [ "$(date +%s)" -lt "$end" ]; do
+        curl -sf -o /dev/null "$URL" && count=$((count + 1))
+      done
+      echo "$count" ) &
+  done | awk '{ sum += $1 } END { print sum }'
+}
+
+run_variant() {
+  local name=$1 start pid startup rss requests
+  shift
+  start=$(now_ms)
+  "$@" --spring.profiles.active=prod --server.port="$PORT" --movies.warmup.enabled=false \
+      > target/native-benchmark.log 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited, see target/native-benchmark.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  startup=$(( $(now_ms) - start ))
+  load "$WARMUP_SECONDS" > /dev/null
+  requests=$(load "$DURATION")
+  rss=$(ps -o rss= -p "$pid" | awk '{ printf "%d", $1 / 1024 }')
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  printf '%-8s startup %6s ms  RSS %5s MB  throughput %8.1f req/s\n' \
+      "$name" "$startup" "$rss" "$(echo "$requests $DURATION" | awk '{ print $1 / $2 }')"
+}
+
+run_variant "JVM" java -jar "$JAR"
+run_variant "native" "$NATIVE"
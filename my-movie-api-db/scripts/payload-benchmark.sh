@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Compares payload size and response time of movie reads with every field against sparse
+# fieldsets, each uncompressed and gzip-compressed, against a running application. Each variant
+# is requested REQUESTS times; the script prints the response size in bytes as sent on the wire
+# and the median and p99 latency in milliseconds.
+#
+# Usage: REQUESTS=200 SIZE=100 scripts/payload-benchmark.sh
+# Needs the application running on PORT with movies in the watchlist and
+# --movies.response-cache.enabled=false, so every response is read and serialized; curl.
+set -euo pipefail
+
+REQUESTS=${REQUESTS:-200}
+SIZE=${SIZE:-100}
+PORT=${PORT:-8081}
+BASE="http://localhost:${PORT}/api/movies"
+
+stats() {
+  sort -n | awk '{ v[NR] = $1 }
+    END { p99 = int(NR * 0.99); if (p99 < NR * 0.99) p99++;
+          printf "median %7.2f ms  p99 %7.2f ms", v[int((NR + 1) / 2)], v[p99] }'
+}
+
+ID=$(curl -sf "${BASE}?size=1&fields=id" | grep -o '"id":[0-9]*' | head -1 | cut -d: -f2 || true)
+if [ -z "$ID" ]; then
+  echo "no movies found at ${BASE}" >&2
+  exit 1
+fi
+
+# Name and URL of each variant
+VARIANTS=(
+  "page of ${SIZE}, all fields|${BASE}?size=${SIZE}"
+  "page of ${SIZE}, id,title,year|${BASE}?size=${SIZE}&fields=id,title,year"
+  "page of ${SIZE}, id,title,watched|${BASE}?size=${SIZE}&fields=id,title,watched&total=false"
+  "movie ${ID}, all fields|${BASE}/${ID}"
+  "movie ${ID}, title|${BASE}/${ID}?fields=title"
+)
+
+run_variant() {
+  local name=$1 url=$2 encoding=$3
+  local latencies=() size=0 result
+  # One request first so the variant does not pay for class loading
+  curl -s -o /dev/null -H "Accept-Encoding: ${encoding}" "$url"
+  for _ in $(seq "$REQUESTS"); do
+    result=$(curl -s -o /dev/null -w '%{time_total} %{size_download}' -H "Accept-Encoding: ${encoding}" "$url")
+    latencies+=("$(echo "$result" | awk '{ print $1 * 1000 }')")
+    size=$(echo "$result" | awk '{ print $2 }')
+  done
+  printf '%-36s %-8s %8s bytes  %s\n' "$name" "$encoding" "$size" "$(printf '%s\n' "${latencies[@]}" | stats)"
+}
+
+for variant in "${VARIANTS[@]}"; do
+  IFS='|' read -r name url <<< "$variant"
+  run_variant "$name" "$url" identity
+  run_variant "$name" "$url" gzip
+done
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Compares CPU time and allocation per request with the encoded JSON response cache off and on.
+# Each variant starts the prod profile, warms up with one pass over the URLs and then sends N
+# requests over a mix of single movie and list page reads. CPU time is read from /proc for the
+# JVM process and allocation from the jvm.gc.memory.allocated metric, both as deltas over the
+# measured requests.
+#
+# Usage: REQUESTS=5000 scripts/response-cache-benchmark.sh
+# Needs the database from application.properties to be reachable (with some movies), curl and
+# a Linux /proc file system.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+REQUESTS=${REQUESTS:-5000}
+PORT=${PORT:-8081}
+BASE="http://localhost:${PORT}/api/movies"
+METRICS="http://localhost:${PORT}/actuator/metrics"
+JAR=target/my-movie-api-db-version1.jar
+CLK_TCK=$(getconf CLK_TCK)
+
+if [ ! -f "$JAR" ]; then
+  mvn -B -q -DskipTests package
+fi
+
+URLS=(
+  "${BASE}/1"
+  "${BASE}/2"
+  "${BASE}/3?fields=id,title,year"
+  "${BASE}?size=20"
+  "${BASE}?size=50&sort=title"
+  "${BASE}?size=20&fields=id,title,watched&total=false"
+)
+
+cpu_ticks() {
+  # utime and stime are fields 14 and 15; the command name in field 2 may contain spaces
+  sed 's/^.*) //' "/proc/$1/stat" | awk '{ print $12 + $13 }'
+}
+
+allocated_bytes() {
+  curl -s "${METRICS}/jvm.gc.memory.allocated" | sed 's/.*"value":\([0-9.E+]*\).*/\1/' | awk '{ printf "%.0f", $1 }'
+}
+
+run_variant() {
+  local name=$1 enabled=$2 pid
+  java -jar "$JAR" --spring.profiles.active=prod --server.port="$PORT" \
+      --movies.response-cache.enabled="$enabled" --movies.warmup.enabled=false \
+      > target/response-cache-benchmark.log 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:${PORT}/actuator/health/readiness"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited, see target/response-cache-benchmark.log" >&2
+      exit 1
+    fi
+    sleep 0.1
+  done
+  for url in "${URLS[@]}"; do
+    curl -s -o /dev/null -H 'Accept-Encoding: gzip' "$url"
+  done
+
+  local ticks_before alloc_before ticks_after alloc_after
+  ticks_before=$(cpu_ticks "$pid")
+  alloc_before=$(allocated_bytes)
+  for i in $(seq 0 $((REQUESTS - 1))); do
+    curl -s -o /dev/null -H 'Accept-Encoding: gzip' "${URLS[$((i % ${#URLS[@]}))]}"
+  done
+  ticks_after=$(cpu_ticks "$pid")
+  alloc_after=$(allocated_bytes)
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+
+  awk -v name="$name" -v n="$REQUESTS" -v ticks=$((ticks_after - ticks_before)) -v hz="$CLK_TCK" \
+      -v bytes=$((alloc_after - alloc_before)) \
+      'BEGIN { printf "%-16s %s requests: cpu %7.1f us/request  allocated %8.1f KiB/request\n",
+               name, n, ticks / hz * 1e6 / n, bytes / 1024 / n }'
+}
+
+run_variant "response cache off" false
+run_variant "response cache on" true
@@ -0,0 +1,83 @@
+#!/usr/bin/env bash
+# Compares restoring the watchlist database from an SQL dump with restoring it from a binary
+# snapshot. The source database is dumped with mysqldump and exported with
+# --movies.snapshot.export, then each is restored RUNS times into the scratch database BENCH_DB,
+# which is dropped and recreated before every run; the snapshot runs start from the empty schema.
+# The script prints the median in milliseconds: the SQL load as timed around the mysql client,
+# the snapshot restore both as logged by the application and including JVM startup.
+#
+# Usage: RUNS=5 DB_USER=root DB_PASSWORD=secret scripts/snapshot-benchmark.sh
+# Needs MySQL on localhost:3306 with the source database DB (e.g. loaded from
+# src/main/resources/movie_watchlist_dbv2.sql, or a larger one to see the blobs matter), and the
+# mysql and mysqldump clients. BENCH_DB is dropped.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+DB=${DB:-movie_watchlist_db}
+BENCH_DB=${BENCH_DB:-movie_watchlist_snapshot_bench}
+DB_USER=${DB_USER:-root}
+DB_PASSWORD=${DB_PASSWORD:-}
+JAR=target/my-movie-api-db-version1.jar
+DUMP=target/snapshot-benchmark.sql
+SCHEMA=target/snapshot-benchmark-schema.sql
+SNAPSHOT=target/snapshot-benchmark.snapshot
+
+if [ ! -f "$JAR" ]; then
+  mvn -B -q -DskipTests package
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+mysql_cmd() {
+  MYSQL_PWD="$DB_PASSWORD" mysql -u"$DB_USER" "$@"
+}
+
+# Runs the application against DATABASE without a web server or background jobs
+run_app() {
+  local database=$1
+  shift
+  java -jar "$JAR" \
+    --spring.datasource.url="jdbc:mysql://localhost:3306/${database}?rewriteBatchedStatements=true&useServerPrepStmts=true" \
+    --spring.datasource.username="$DB_USER" --spring.datasource.password="$DB_PASSWORD" \
+    --spring.main.web-application-type=none --spring.jpa.show-sql=false \
+    --movies.history.enabled=false --movies.refresh.enabled=false --movies.purge.enabled=false "$@"
+}
+
+recreate_bench_db() {
+  mysql_cmd -e "drop database if exists ${BENCH_DB}; create database ${BENCH_DB}"
+}
+trap 'mysql_cmd -e "drop database if exists ${BENCH_DB}" || true' EXIT
+
+MYSQL_PWD="$DB_PASSWORD" mysqldump -u"$DB_USER" --single-transaction --hex-blob "$DB" > "$DUMP"
+MYSQL_PWD="$DB_PASSWORD" mysqldump -u"$DB_USER" --no-data "$DB" > "$SCHEMA"
+run_app "$DB" --movies.snapshot.export="$SNAPSHOT" > target/snapshot-benchmark.log 2>&1
+printf 'SQL dump  %12s bytes\nsnapshot  %12s bytes\n' "$(stat -c %s "$DUMP")" "$(stat -c %s "$SNAPSHOT")"
+
+sql_results=()
+restore_results=()
+wall_results=()
+for _ in $(seq "$RUNS"); do
+  recreate_bench_db
+  start=$(now_ms)
+  mysql_cmd "$BENCH_DB" < "$DUMP"
+  sql_results+=($(( $(now_ms) - start )))
+
+  recreate_bench_db
+  mysql_cmd "$BENCH_DB" < "$SCHEMA"
+  start=$(now_ms)
+  run_app "$BENCH_DB" --movies.snapshot.import="$SNAPSHOT" > target/snapshot-benchmark.log 2>&1
+  wall_results+=($(( $(now_ms) - start )))
+  restore_results+=($(grep -o 'Restored snapshot .* in [0-9]* ms' target/snapshot-benchmark.log \
+    | grep -o '[0-9]* ms$' | cut -d' ' -f1))
+done
+
+printf '%-28s median %6s ms\n' "SQL dump (mysql client)" "$(printf '%s\n' "${sql_results[@]}" | median)"
+printf '%-28s median %6s ms\n' "snapshot (restore only)" "$(printf '%s\n' "${restore_results[@]}" | median)"
+printf '%-28s median %6s ms\n' "snapshot (with JVM start)" "$(printf '%s\n' "${wall_results[@]}" | median)"
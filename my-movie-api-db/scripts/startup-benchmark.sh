@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Measures time to first successful request for the default JVM start, the prod profile and the
+# prod profile with the AppCDS archive from scripts/cds-train.sh (and AOT if built with -Paot).
+# Each variant is started RUNS times; the script prints the median in milliseconds.
+#
+# Usage: RUNS=5 scripts/startup-benchmark.sh
+#        AOT=1 scripts/startup-benchmark.sh   (after mvn -Pcds,aot package, adds the AOT variant)
+# Needs the database from application.properties to be reachable, and curl.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8081}
+URL="http://localhost:${PORT}/api/movies/stats"
+JAR=target/my-movie-api-db-version1.jar
+
+if [ ! -f "$JAR" ] || [ ! -d target/lib ]; then
+  mvn -B -q -Pcds -DskipTests package
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+# Starts the application with the given arguments and prints the ms until URL answers 200
+time_to_first_request() {
+  local start pid elapsed
+  start=$(now_ms)
+  java "$@" -jar "$JAR" --server.port="$PORT" > target/startup-benchmark.log 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited, see target/startup-benchmark.log" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$elapsed"
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+run_variant() {
+  local name=$1
+  shift
+  local results=()
+  for _ in $(seq "$RUNS"); do
+    results+=("$(time_to_first_request "$@")")
+  done
+  printf '%-28s median %6s ms  (runs: %s)\n' "$name" "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+run_variant "default"
+run_variant "prod" -Dspring.profiles.active=prod
+if [ -f target/app.jsa ]; then
+  run_variant "prod + AppCDS" -XX:SharedArchiveFile=target/app.jsa -Dspring.profiles.active=prod
+fi
+if [ "${AOT:-0}" = 1 ]; then
+  run_variant "prod + AppCDS + AOT" -XX:SharedArchiveFile=target/app.jsa -Dspring.aot.enabled=true \
+      -Dspring.profiles.active=prod
+fi
@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Measures how the watchlist latency of one user changes as more users share the catalogue,
+# against a running application. For each tenant count in TENANTS, the watchlist of user 0 is
+# copied to that many users directly in MySQL, then GET /api/movies is sent REQUESTS times as
+# user 0; the script prints the median and the slowest request in milliseconds.
+# The copied entries are removed when the script exits.
+#
+# Usage: TENANTS="0 100 1000 10000" REQUESTS=50 scripts/tenant-benchmark.sh
+# Needs the application running on PORT with movies in the watchlist of user 0 and
+# --movies.response-cache.enabled=false, so every request reads the database; curl; and the
+# mysql client (MYSQL_ARGS, e.g. "-uroot -psecret movie_watchlist_db").
+set -euo pipefail
+
+TENANTS=${TENANTS:-"0 100 1000 10000"}
+REQUESTS=${REQUESTS:-50}
+PORT=${PORT:-8081}
+MYSQL_ARGS=${MYSQL_ARGS:-"-uroot movie_watchlist_db"}
+URL="http://localhost:${PORT}/api/movies?size=20&sort=title"
+
+now_ms() {
+  date +%s%3N
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+sql() {
+  # shellcheck disable=SC2086
+  mysql ${MYSQL_ARGS} -N -e "$1"
+}
+
+# Copies the entries of user 0 to users FROM..TO, one statement per thousand users
+seed() {
+  local from=$1 to=$2 start end
+  for ((start = from; start <= to; start += 1000)); do
+    end=$((start + 999 < to ? start + 999 : to))
+    sql "insert into watchlist_entries (user_id, movie_id, watched, added_at, version)
+         select u.id, e.movie_id, e.watched, e.added_at, 0
+         from watchlist_entries e
+         join (with recursive ids (id) as (select ${start} union all select id + 1 from ids where id < ${end})
+               select id from ids) u
+         where e.user_id = 0"
+  done
+}
+
+cleanup() {
+  sql "delete from watchlist_entries where user_id > 0" || true
+}
+trap cleanup EXIT
+
+if [ "$(curl -sf "${URL}" | grep -o '"id":[0-9]*' | wc -l)" -eq 0 ]; then
+  echo "no movies found for user 0 at ${URL}" >&2
+  exit 1
+fi
+cleanup
+
+seeded=0
+for tenants in ${TENANTS}; do
+  if [ "$tenants" -gt "$seeded" ]; then
+    seed $((seeded + 1)) "$tenants"
+    seeded=$tenants
+  fi
+  entries=$(sql "select count(*) from watchlist_entries")
+
+  results=()
+  for _ in $(seq "$REQUESTS"); do
+    start=$(now_ms)
+    curl -sf -o /dev/null "${URL}"
+    results+=($(( $(now_ms) - start )))
+  done
+  printf '%6s other users  %9s entries  median %5s ms  max %5s ms\n' "$tenants" "$entries" \
+    "$(printf '%s\n' "${results[@]}" | median)" "$(printf '%s\n' "${results[@]}" | sort -n | tail -1)"
+done
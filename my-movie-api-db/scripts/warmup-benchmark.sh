@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Compares the latency of the first N client requests after startup with the warm-up phase off
+# and on. Each variant starts the prod profile, waits for the readiness probe and then sends the
+# first N requests over a mix of read endpoints; the script prints mean, median and p99 in ms.
+#
+# Usage: REQUESTS=200 scripts/warmup-benchmark.sh
+# Needs the database from application.properties to be reachable (with some movies), and curl.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+REQUESTS=${REQUESTS:-200}
+PORT=${PORT:-8081}
+BASE="http://localhost:${PORT}/api/movies"
+JAR=target/my-movie-api-db-version1.jar
+
+if [ ! -f "$JAR" ]; then
+  mvn -B -q -DskipTests package
+fi
+
+URLS=(
+  "${BASE}?size=20"
+  "${BASE}?size=20&fields=id,title,year,watched"
+  "${BASE}?genres=Action&size=20"
+  "${BASE}/titles?size=50"
+  "${BASE}/stats"
+)
+
+stats() {
+  sort -n | awk '{ v[NR] = $1; sum += $1 }
+    END { p99 = int(NR * 0.99); if (p99 < NR * 0.99) p99++;
+          printf "mean %7.2f ms  median %7.2f ms  p99 %7.2f ms", sum / NR, v[int((NR + 1) / 2)], v[p99] }'
+}
+
+run_variant() {
+  local name=$1 warmup=$2 pid
+  java -jar "$JAR" --spring.profiles.active=prod --server.port="$PORT" --movies.warmup.enabled="$warmup" \
+      > target/warmup-benchmark.log 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:${PORT}/actuator/health/readiness"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited, see target/warmup-benchmark.log" >&2
+      exit 1
+    fi
+    sleep 0.1
+  done
+  local latencies=()
+  for i in $(seq 0 $((REQUESTS - 1))); do
+    latencies+=("$(curl -s -o /dev/null -w '%{time_total}' "${URLS[$((i % ${#URLS[@]}))]}" \
+        | awk '{ print $1 * 1000 }')")
+  done
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  printf '%-12s first %s requests: %s\n' "$name" "$REQUESTS" "$(printf '%s\n' "${latencies[@]}" | stats)"
+}
+
+run_variant "warm-up off" false
+run_variant "warm-up on" true
@@ -1,29 +1,69 @@
 package com.example.Config;
 
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import com.example.Service.ImdbTitleIndex;
+import com.example.Service.MovieBlobPurger;
+import com.example.Service.TmdbChangeRefresher;
+import com.example.Service.WatchlistBackfill;
+
 /**
  * Configuration class for the application.
  * Defines and configures beans used throughout the application.
  * This class is responsible for setting up core components like RestTemplate
- * for making HTTP requests to external APIs (OMDb and TMDB).
+ * for making HTTP requests to external APIs (OMDb and TMDB), and enables
+ * scheduling for the periodic maintenance jobs.
+ * Registers the {@link NativeRuntimeHints} used by native image builds.
+ * Background jobs stay eager under lazy initialization.
  * 
  * @see RestTemplate
  */
 @Configuration
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class AppConfig {
 
+    /**
+     * Keeps the background jobs eager when the prod profile turns on lazy initialization.
+     * Nothing injects the purger, the refresher or the watchlist backfill, and the IMDb index
+     * starts its build in {@code @PostConstruct}, so as lazy beans they would never run or only
+     * start with the first add. Spring Boot already keeps beans with {@code @Scheduled} methods eager; listing the
+     * jobs here keeps that independent of the scheduling auto-configuration. Static, as it is
+     * read before any regular bean is created.
+     *
+     * @return the filter excluding the background jobs from lazy initialization
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter backgroundJobsLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MovieBlobPurger.class, TmdbChangeRefresher.class,
+                ImdbTitleIndex.class, WatchlistBackfill.class);
+    }
+
     /**
      * Creates and configures a RestTemplate bean for making HTTP requests.
      * This bean is used by services to communicate with external movie APIs.
+     * Unless the replay cache is off, requests go through the {@link ReplayCacheInterceptor}.
+     * Requests that reach the APIs are scheduled by the {@link UpstreamRequestScheduler}.
      * 
+     * @param replayCache the store of recorded API responses
+     * @param replayCacheInterceptor the interceptor serving requests from the store
+     * @param upstreamRequestScheduler the interceptor limiting concurrent API calls by priority
      * @return A configured RestTemplate instance
      * @see RestTemplate
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(ResponseReplayCache replayCache, ReplayCacheInterceptor replayCacheInterceptor,
+            UpstreamRequestScheduler upstreamRequestScheduler) {
+        RestTemplate restTemplate = new RestTemplate();
+        if (replayCache.getMode() != ResponseReplayCache.Mode.OFF) {
+            restTemplate.getInterceptors().add(replayCacheInterceptor);
+        }
+        restTemplate.getInterceptors().add(upstreamRequestScheduler);
+        return restTemplate;
     }
 }
@@ -0,0 +1,86 @@
+package com.example.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration of read replicas, active when {@code movies.datasource.replica-urls} is set.
+ * The primary pool is built from the usual {@code spring.datasource} properties and every
+ * replica reuses its credentials and driver. Without replica URLs, Spring Boot's single
+ * data source is used unchanged.
+ *
+ * @see ReplicaRoutingDataSource
+ */
+@Configuration
+@ConditionalOnProperty("movies.datasource.replica-urls")
+public class DataSourceConfig {
+
+    /**
+     * Creates the routing data source over the primary and the replica pools.
+     *
+     * @param properties the primary data source properties
+     * @param replicaUrls the JDBC URLs of the replicas
+     * @param readAfterWriteMs how long a user's reads stay on the primary after the user's write
+     * @return the routing data source
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            @Value("${movies.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${movies.datasource.read-after-write-ms:2000}") long readAfterWriteMs) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readAfterWriteMs);
+    }
+
+    /**
+     * Exposes the routing data source behind a lazy proxy, so the connection is only taken
+     * once the transaction's read-only flag is known.
+     *
+     * @param routingDataSource the routing data source
+     * @return the application data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Schedules the replica health checks.
+     *
+     * @param routingDataSource the routing data source
+     * @param intervalMs the delay between health checks
+     * @return the scheduling configurer
+     */
+    @Bean
+    public SchedulingConfigurer replicaHealthChecks(
+            ReplicaRoutingDataSource routingDataSource,
+            @Value("${movies.datasource.replica-health-interval-ms:5000}") long intervalMs) {
+        return registrar -> registrar.addFixedDelayTask(routingDataSource::checkReplicas, Duration.ofMillis(intervalMs));
+    }
+}
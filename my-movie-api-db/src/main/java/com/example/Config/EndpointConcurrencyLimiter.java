@@ -0,0 +1,344 @@
+package com.example.Config;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Handler interceptor that limits the concurrent requests of expensive endpoints, so a burst
+ * of them cannot take every request thread from the cheap reads.
+ * <p>
+ * Each {@link Endpoint} admits up to its concurrency limit. Further requests wait in a bounded
+ * FIFO queue for at most {@code max-wait-ms}. A request that finds the queue full, or is still
+ * waiting when the time is up, is shed at once with {@code 503 Service Unavailable} and a
+ * {@code Retry-After} estimated from the endpoint's recent latency.
+ * <p>
+ * With {@code movies.limits.adaptive=true} the limit follows the observed latency
+ * (additive increase, multiplicative decrease). A request slower than
+ * {@code latency-tolerance} times the lowest recent latency lowers the limit by 10%. A normal
+ * request made while at least half of the limit is in use raises it by one. The limit stays
+ * between 1 and the configured one.
+ *
+ * @see WebConfig
+ */
+@Component
+public class EndpointConcurrencyLimiter implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointConcurrencyLimiter.class);
+
+    private static final String METRIC_PREFIX = "movies.limits";
+    private static final String ADMITTED_ATTRIBUTE = EndpointConcurrencyLimiter.class.getName() + ".admitted";
+    private static final int MIN_LATENCY_WINDOW = 500;
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+
+    /**
+     * Endpoints with a concurrency limit.
+     */
+    public enum Endpoint {
+        /** {@code POST /api/movies}, which calls OMDb and TMDB and downloads images. */
+        ADD("POST", "/api/movies"),
+        /** {@code GET} and {@code POST /api/movies/batch}, which load up to hundreds of movies. */
+        BATCH(null, "/api/movies/batch");
+
+        private final String method;
+        private final String pattern;
+
+        Endpoint(String method, String pattern) {
+            this.method = method;
+            this.pattern = pattern;
+        }
+
+        private boolean matches(String requestMethod, String bestMatchingPattern) {
+            return pattern.equals(bestMatchingPattern) && (method == null || method.equals(requestMethod));
+        }
+    }
+
+    private final boolean adaptive;
+    private final double latencyTolerance;
+    private final Map<Endpoint, Limit> limits = new EnumMap<>(Endpoint.class);
+
+    public EndpointConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${movies.limits.adaptive:false}") boolean adaptive,
+            @Value("${movies.limits.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${movies.limits.add.max-concurrency:4}") int addMaxConcurrency,
+            @Value("${movies.limits.add.queue-size:8}") int addQueueSize,
+            @Value("${movies.limits.add.max-wait-ms:2000}") long addMaxWaitMs,
+            @Value("${movies.limits.batch.max-concurrency:16}") int batchMaxConcurrency,
+            @Value("${movies.limits.batch.queue-size:32}") int batchQueueSize,
+            @Value("${movies.limits.batch.max-wait-ms:1000}") long batchMaxWaitMs) {
+        this.adaptive = adaptive;
+        this.latencyTolerance = Math.max(latencyTolerance, 1.0);
+        limits.put(Endpoint.ADD, new Limit(addMaxConcurrency, addQueueSize, addMaxWaitMs));
+        limits.put(Endpoint.BATCH, new Limit(batchMaxConcurrency, batchQueueSize, batchMaxWaitMs));
+        limits.forEach((endpoint, limit) -> {
+            String tag = endpoint.name().toLowerCase();
+            limit.admitted = requestCounter(meterRegistry, tag, "admitted");
+            limit.queued = requestCounter(meterRegistry, tag, "queued");
+            limit.shed = requestCounter(meterRegistry, tag, "shed");
+            Gauge.builder(METRIC_PREFIX + ".in-flight", limit, Limit::inFlight)
+                    .description("Requests being handled")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder(METRIC_PREFIX + ".queue.depth", limit, Limit::queued)
+                    .description("Requests waiting to be admitted")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder(METRIC_PREFIX + ".limit", limit, Limit::currentLimit)
+                    .description("Current concurrency limit")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+        });
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String endpoint, String outcome) {
+        return Counter.builder(METRIC_PREFIX + ".requests")
+                .description("Requests to limited endpoints by outcome: admitted at once, admitted after "
+                        + "waiting in the queue, or shed")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Endpoint endpoint = endpointOf(request);
+        if (endpoint == null) {
+            return true;
+        }
+        Limit limit = limits.get(endpoint);
+        if (!limit.acquire()) {
+            long retryAfter = limit.retryAfterSeconds();
+            logger.debug("Shedding {} {}: {} in flight, {} queued, retry after {} s", request.getMethod(),
+                    request.getRequestURI(), limit.inFlight(), limit.queued(), retryAfter);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+            return false;
+        }
+        request.setAttribute(ADMITTED_ATTRIBUTE, new Admission(limit, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(ADMITTED_ATTRIBUTE) instanceof Admission admission) {
+            request.removeAttribute(ADMITTED_ATTRIBUTE);
+            admission.limit().release(admission.admittedAt(), System.nanoTime());
+        }
+    }
+
+    private record Admission(Limit limit, long admittedAt) {
+    }
+
+    private static Endpoint endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return null;
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (endpoint.matches(request.getMethod(), pattern.toString())) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Admission state of one endpoint.
+     */
+    private final class Limit {
+        private final int maxConcurrency;
+        private final int queueSize;
+        private final long maxWaitMs;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        /* Guarded by lock */
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private double limit;
+        private int inFlight;
+        private double averageLatencyNanos;
+        private long minLatencyNanos = Long.MAX_VALUE;
+        private long lastDecreaseNanos = System.nanoTime();
+        private long windowMinLatencyNanos = Long.MAX_VALUE;
+        private int windowSamples;
+
+        private Counter admitted;
+        private Counter queued;
+        private Counter shed;
+
+        private Limit(int maxConcurrency, int queueSize, long maxWaitMs) {
+            this.maxConcurrency = Math.max(maxConcurrency, 1);
+            this.queueSize = Math.max(queueSize, 0);
+            this.maxWaitMs = maxWaitMs;
+            this.limit = this.maxConcurrency;
+        }
+
+        /**
+         * Admits the request at once, after waiting in the queue, or not at all.
+         *
+         * @return false if the request is to be shed
+         */
+        private boolean acquire() {
+            lock.lock();
+            try {
+                if (waiters.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    admitted.increment();
+                    return true;
+                }
+                if (waiters.size() >= queueSize) {
+                    shed.increment();
+                    return false;
+                }
+                Waiter waiter = new Waiter(lock.newCondition());
+                waiters.add(waiter);
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (!waiter.granted) {
+                    if (remainingNanos <= 0) {
+                        waiters.remove(waiter);
+                        shed.increment();
+                        return false;
+                    }
+                    try {
+                        remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        if (waiter.granted) {
+                            inFlight--;
+                            dispatch();
+                        } else {
+                            waiters.remove(waiter);
+                        }
+                        shed.increment();
+                        return false;
+                    }
+                }
+                queued.increment();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(long admittedAt, long completedAt) {
+            long latencyNanos = completedAt - admittedAt;
+            lock.lock();
+            try {
+                averageLatencyNanos = averageLatencyNanos == 0
+                        ? latencyNanos : averageLatencyNanos * 0.9 + latencyNanos * 0.1;
+                if (adaptive) {
+                    adapt(latencyNanos, admittedAt, completedAt);
+                }
+                inFlight--;
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Adjusts the limit to a latency sample. The minimum latency is the lowest one of the
+         * current or the previous window of samples, so it recovers when the baseline shifts.
+         * Requests admitted before the last decrease cannot decrease it again, so a stall that
+         * slows every request in flight counts once. Must hold the lock.
+         */
+        private void adapt(long latencyNanos, long admittedAt, long completedAt) {
+            windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+            minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+            if (++windowSamples == MIN_LATENCY_WINDOW) {
+                minLatencyNanos = windowMinLatencyNanos;
+                windowMinLatencyNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+            if (latencyNanos > minLatencyNanos * latencyTolerance) {
+                if (admittedAt - lastDecreaseNanos > 0) {
+                    limit = Math.max(1, limit * 0.9);
+                    lastDecreaseNanos = completedAt;
+                }
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(maxConcurrency, limit + 1);
+            }
+        }
+
+        /**
+         * Admits waiting requests while the limit allows. Must hold the lock.
+         */
+        private void dispatch() {
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                Waiter waiter = waiters.poll();
+                waiter.granted = true;
+                inFlight++;
+                waiter.condition.signal();
+            }
+        }
+
+        /**
+         * Estimates when a shed request could be admitted: the time to work off the queue at
+         * the recent average latency, at least one second.
+         */
+        private long retryAfterSeconds() {
+            lock.lock();
+            try {
+                double drainNanos = averageLatencyNanos * (waiters.size() + 1) / Math.max(1, (int) limit);
+                long seconds = (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1));
+                return Math.min(Math.max(seconds, 1), MAX_RETRY_AFTER_SECONDS);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int queued() {
+            lock.lock();
+            try {
+                return waiters.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double currentLimit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
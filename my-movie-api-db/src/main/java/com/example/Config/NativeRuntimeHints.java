@@ -0,0 +1,66 @@
+package com.example.Config;
+
+import java.util.List;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.util.ClassUtils;
+
+import com.example.Config.ResponseReplayCache.Mode;
+import com.example.Dto.MovieBatch;
+import com.example.Dto.MovieChange;
+import com.example.Dto.MovieResponse;
+import com.example.Dto.WatchHistory;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Movie;
+import com.example.Model.MovieImage;
+import com.example.Model.SyncCheckpoint;
+import com.example.Model.WatchlistEntry;
+import com.example.Service.WatchlistStatistics;
+
+/**
+ * Reflection hints for the GraalVM native image (Maven profile {@code native}).
+ * <p>
+ * Spring's AOT processing covers beans, controller signatures and the managed JPA types, but
+ * not the private Jackson DTOs of the API clients, the records written to the change stream,
+ * or the constructor invoked by the {@code new MovieSnapshot(...)} JPQL expressions.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * Private response classes that Jackson binds from OMDb and TMDB JSON.
+     */
+    static final List<String> API_RESPONSE_TYPES = List.of(
+            "com.example.Service.OMDbService$OMDbResponse",
+            "com.example.Service.TMDBService$TMDBSearchResponse",
+            "com.example.Service.TMDBService$TMDBMovieResult",
+            "com.example.Service.TMDBService$TMDBMovieDetail",
+            "com.example.Service.TMDBService$TMDBChangesResponse",
+            "com.example.Service.TMDBService$TMDBChange");
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String typeName : API_RESPONSE_TYPES) {
+            bindingRegistrar.registerReflectionHints(hints.reflection(),
+                    ClassUtils.resolveClassName(typeName, classLoader));
+        }
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                MovieResponse.class, MovieBatch.class, MovieChange.class, WatchHistory.class,
+                WatchlistStatistics.Summary.class);
+
+        for (Class<?> entity : List.of(Movie.class, MovieImage.class, WatchlistEntry.class, WatchlistEntry.Key.class,
+                SyncCheckpoint.class)) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.reflection().registerType(MovieSnapshot.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(Mode.class, MemberCategory.PUBLIC_FIELDS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources().registerPattern("movie_watchlist_dbv2.sql");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import com.example.Config.ResponseReplayCache.CachedResponse;
+import com.example.Config.ResponseReplayCache.Mode;
+
+/**
+ * RestTemplate interceptor that serves OMDb and TMDB GET requests from the {@link ResponseReplayCache}.
+ * <p>
+ * In read-through mode a fresh recorded response is returned without calling the API, and
+ * successful API responses are recorded. Paths listed in {@code movies.replay-cache.always-fetch},
+ * such as the TMDB change feed, are still recorded but always fetched. In replay mode every
+ * request is answered from the store and a request that was never recorded fails with an
+ * {@link IOException}, which RestTemplate reports as a
+ * {@link org.springframework.web.client.ResourceAccessException} like any unreachable API.
+ */
+@Component
+public class ReplayCacheInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ResponseReplayCache cache;
+    private final List<String> alwaysFetch;
+
+    public ReplayCacheInterceptor(
+            ResponseReplayCache cache,
+            @Value("${movies.replay-cache.always-fetch:/movie/changes}") List<String> alwaysFetch) {
+        this.cache = cache;
+        this.alwaysFetch = alwaysFetch;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (cache.getMode() == Mode.OFF || request.getMethod() != HttpMethod.GET) {
+            return execution.execute(request, body);
+        }
+        String key = ResponseReplayCache.keyOf(request.getMethod().name(), request.getURI());
+        boolean replay = cache.getMode() == Mode.REPLAY;
+        if (replay || !isAlwaysFetched(request.getURI().getPath())) {
+            Optional<CachedResponse> cached = cache.get(key, replay);
+            if (cached.isPresent()) {
+                return new CachedClientHttpResponse(cached.get());
+            }
+        }
+        if (replay) {
+            throw new IOException("No recorded response for " + key);
+        }
+
+        CachedResponse fetched;
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            fetched = new CachedResponse(
+                    response.getStatusCode().value(),
+                    response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE),
+                    StreamUtils.copyToByteArray(response.getBody()),
+                    System.currentTimeMillis());
+        }
+        if (HttpStatusCode.valueOf(fetched.status()).is2xxSuccessful()) {
+            cache.put(key, fetched);
+        }
+        return new CachedClientHttpResponse(fetched);
+    }
+
+    private boolean isAlwaysFetched(String path) {
+        return path != null && alwaysFetch.stream().anyMatch(path::endsWith);
+    }
+
+    /**
+     * Response backed by a recorded or fully read body.
+     */
+    private static final class CachedClientHttpResponse implements ClientHttpResponse {
+        private final CachedResponse response;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private CachedClientHttpResponse(CachedResponse response) {
+            this.response = response;
+            if (response.contentType() != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, response.contentType());
+            }
+            headers.setContentLength(response.body().length);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.status());
+        }
+
+        @Override
+        public String getStatusText() {
+            return "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(response.body());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.Config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.example.Controller.MovieController;
+
+/**
+ * Routing data source that sends read-only transactions to the replicas and everything else
+ * to the primary.
+ * <p>
+ * Replicas are picked round robin among those that passed the last health check; if none is
+ * healthy, reads fall back to the primary. Every read-only transaction of one HTTP request uses
+ * the same replica, so values read in separate transactions, such as a movie's version and its
+ * body, come from the same point of the replication stream.
+ * <p>
+ * After a read-write transaction made while serving a user's request, that user's reads go to
+ * the primary for the read-after-write window, so a client reading right after its own update
+ * does not see replica lag. The user is named by the {@value MovieController#USER_HEADER}
+ * header. Writes of other users and of background jobs do not affect where a user reads, and
+ * connections taken outside a transaction use the primary without opening a window.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this data source must
+ * be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ *
+ * @see DataSourceConfig
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /**
+     * Lookup key of the primary data source; replicas are keyed by their index.
+     */
+    static final String PRIMARY = "primary";
+
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Request attribute holding the index of the replica the current request reads from.
+     */
+    private static final String REPLICA_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".replica";
+
+    /**
+     * Number of open windows above which expired ones are dropped on the next write.
+     */
+    private static final int WINDOW_PRUNE_THRESHOLD = 1024;
+
+    private final List<DataSource> replicas;
+    private final AtomicBoolean[] healthy;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final long readAfterWriteNanos;
+    private final ConcurrentHashMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the routing data source. Replicas start out healthy.
+     *
+     * @param primary the primary data source, used for writes
+     * @param replicas the replica data sources, used for read-only transactions
+     * @param readAfterWriteMs how long a user's reads stay on the primary after the user's write
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long readAfterWriteMs) {
+        this.replicas = List.copyOf(replicas);
+        this.healthy = new AtomicBoolean[replicas.size()];
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+            healthy[i] = new AtomicBoolean(true);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.readAfterWriteNanos = readAfterWriteMs * 1_000_000;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        ServletRequestAttributes request = currentRequest();
+        String user = request == null ? null : userOf(request);
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recordWrite(user);
+            }
+            return PRIMARY;
+        }
+        if (user != null && isInReadAfterWriteWindow(user)) {
+            return PRIMARY;
+        }
+        if (request != null && request.getAttribute(REPLICA_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                instanceof Integer pinned && healthy[pinned].get()) {
+            return pinned;
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            int index = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+            if (healthy[index].get()) {
+                if (request != null) {
+                    request.setAttribute(REPLICA_ATTRIBUTE, index, RequestAttributes.SCOPE_REQUEST);
+                }
+                return index;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Validates a connection of every replica and updates its health.
+     */
+    public void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean valid;
+            try (Connection connection = replicas.get(i).getConnection()) {
+                valid = connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (healthy[i].getAndSet(valid) != valid) {
+                if (valid) {
+                    logger.info("Replica {} is healthy again", i);
+                } else {
+                    logger.warn("Replica {} failed its health check, routing its reads elsewhere", i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the primary and replica pools when the application context shuts down.
+     *
+     * @throws Exception if a pool fails to close
+     */
+    public void close() throws Exception {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Starts the user's read-after-write window, and restarts it when the transaction completes.
+     */
+    private void recordWrite(String user) {
+        long now = System.nanoTime();
+        if (lastWriteNanos.size() >= WINDOW_PRUNE_THRESHOLD) {
+            lastWriteNanos.values().removeIf(written -> now - written >= readAfterWriteNanos);
+        }
+        lastWriteNanos.put(user, now);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lastWriteNanos.put(user, System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private boolean isInReadAfterWriteWindow(String user) {
+        Long written = lastWriteNanos.get(user);
+        return written != null && System.nanoTime() - written < readAfterWriteNanos;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request
+                ? request
+                : null;
+    }
+
+    /**
+     * Gets the user of a request; requests without the header use the default watchlist of user 0.
+     */
+    private static String userOf(ServletRequestAttributes request) {
+        String user = request.getRequest().getHeader(MovieController.USER_HEADER);
+        return user == null ? "0" : user.trim();
+    }
+}
@@ -0,0 +1,454 @@
+package com.example.Config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only, disk-backed store of raw upstream API responses, keyed by request URL without
+ * the API key.
+ * <p>
+ * Responses are appended to {@code responses.log} as checksummed records, and every append
+ * also adds a small entry (key, offset, length, time) to {@code responses.idx}. On startup only
+ * the index is read; if it does not match the log, for example after a crash between the two
+ * writes, it is rebuilt by scanning the log. Bodies are read from the log on demand, so memory
+ * holds only the index. Replaced and expired records stay in the log until compaction rewrites
+ * the live ones into a new log and index.
+ *
+ * @see ReplayCacheInterceptor
+ */
+@Component
+public class ResponseReplayCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseReplayCache.class);
+
+    private static final int RECORD_MAGIC = 0x52504C31;
+    private static final String LOG_FILE = "responses.log";
+    private static final String INDEX_FILE = "responses.idx";
+
+    /**
+     * How the API clients use the cache.
+     */
+    public enum Mode {
+        /** The cache is not used. */
+        OFF,
+        /** Fresh cached responses are served; misses call the API and are recorded. */
+        READ_THROUGH,
+        /** Only cached responses are served, however old; misses fail without calling the API. */
+        REPLAY
+    }
+
+    /**
+     * A recorded response.
+     *
+     * @param status the HTTP status code
+     * @param contentType the Content-Type header, or null
+     * @param body the raw response body
+     * @param storedAt the time the response was recorded, in epoch milliseconds
+     */
+    public record CachedResponse(int status, String contentType, byte[] body, long storedAt) {
+    }
+
+    private record IndexEntry(long offset, int length, long storedAt) {
+    }
+
+    private final Path directory;
+    private final Mode mode;
+    private final long ttlMs;
+    private final long compactionMinBytes;
+
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    /* Guarded by this */
+    private FileChannel log;
+    private DataOutputStream indexOut;
+    private long logSize;
+    private long liveBytes;
+
+    public ResponseReplayCache(
+            @Value("${movies.replay-cache.dir:replay-cache}") Path directory,
+            @Value("${movies.replay-cache.mode:off}") Mode mode,
+            @Value("${movies.replay-cache.ttl:7d}") Duration ttl,
+            @Value("${movies.replay-cache.compaction-min-bytes:1048576}") long compactionMinBytes) {
+        this.directory = directory;
+        this.mode = mode;
+        this.ttlMs = ttl.toMillis();
+        this.compactionMinBytes = compactionMinBytes;
+    }
+
+    /**
+     * @return how the API clients use the cache
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Opens the store and loads the index, unless the cache is off.
+     *
+     * @throws IOException if the store cannot be opened
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        Files.createDirectories(directory);
+        log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        logSize = log.size();
+        if (!loadIndex()) {
+            logger.warn("Replay cache index does not match the log, rebuilding it");
+            rebuildIndex();
+        }
+        indexOut = openIndexForAppend();
+        logger.info("Replay cache opened in {} mode with {} responses ({} bytes)", mode, index.size(), logSize);
+        compactIfWorthwhile();
+    }
+
+    /**
+     * Builds the cache key of a request: the method and the URL without API key parameters.
+     *
+     * @param method the HTTP method
+     * @param uri the request URI
+     * @return the cache key
+     */
+    public static String keyOf(String method, URI uri) {
+        return method + " " + UriComponentsBuilder.fromUri(uri)
+                .replaceQueryParam("api_key")
+                .replaceQueryParam("apikey")
+                .build()
+                .toUriString();
+    }
+
+    /**
+     * Gets a recorded response.
+     *
+     * @param key the cache key, see {@link #keyOf}
+     * @param allowExpired true to return responses older than the TTL
+     * @return the response, empty if none is recorded or it expired
+     */
+    public Optional<CachedResponse> get(String key, boolean allowExpired) {
+        ByteBuffer record;
+        synchronized (this) {
+            IndexEntry entry = index.get(key);
+            if (log == null || entry == null || (!allowExpired && isExpired(entry.storedAt()))) {
+                return Optional.empty();
+            }
+            record = ByteBuffer.allocate(entry.length());
+            try {
+                readFully(log, record, entry.offset());
+            } catch (IOException e) {
+                logger.warn("Unreadable replay cache record for {}: {}", key, e.getMessage());
+                return Optional.empty();
+            }
+        }
+        record.flip();
+        try {
+            return Optional.of(decode(record).response());
+        } catch (RuntimeException e) {
+            logger.warn("Corrupt replay cache record for {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Appends a response to the log and the index, replacing any earlier response for the key.
+     *
+     * @param key the cache key, see {@link #keyOf}
+     * @param response the response to record
+     */
+    public synchronized void put(String key, CachedResponse response) {
+        ByteBuffer record = encode(key, response);
+        int length = record.remaining();
+        try {
+            long offset = logSize;
+            while (record.hasRemaining()) {
+                log.write(record, offset + record.position());
+            }
+            logSize += length;
+            writeIndexEntry(indexOut, key, new IndexEntry(offset, length, response.storedAt()));
+            indexOut.flush();
+            IndexEntry previous = index.put(key, new IndexEntry(offset, length, response.storedAt()));
+            liveBytes += length - (previous != null ? previous.length() : 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the replay cache", e);
+        }
+    }
+
+    /**
+     * Compacts the store when at least half of the log is replaced or expired records.
+     */
+    @Scheduled(fixedDelayString = "${movies.replay-cache.compaction-interval-ms:3600000}",
+            initialDelayString = "${movies.replay-cache.compaction-interval-ms:3600000}")
+    public synchronized void compactIfWorthwhile() {
+        if (mode == Mode.OFF || logSize < compactionMinBytes) {
+            return;
+        }
+        long expiredBytes = mode == Mode.REPLAY ? 0 : index.values().stream()
+                .filter(entry -> isExpired(entry.storedAt()))
+                .mapToLong(IndexEntry::length)
+                .sum();
+        if (logSize - liveBytes + expiredBytes >= logSize / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the live records into a new log and index. Expired records are dropped,
+     * except in replay mode where nothing could replace them.
+     */
+    public synchronized void compact() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        Path newLog = directory.resolve(LOG_FILE + ".compacting");
+        Path newIndex = directory.resolve(INDEX_FILE + ".compacting");
+        long before = logSize;
+        Map<String, IndexEntry> compacted = new HashMap<>();
+        try (FileChannel out = FileChannel.open(newLog, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream indexOutput = new DataOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(newIndex)))) {
+            long offset = 0;
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                IndexEntry live = entry.getValue();
+                if (mode != Mode.REPLAY && isExpired(live.storedAt())) {
+                    continue;
+                }
+                ByteBuffer record = ByteBuffer.allocate(live.length());
+                readFully(log, record, live.offset());
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record, offset + record.position());
+                }
+                IndexEntry moved = new IndexEntry(offset, live.length(), live.storedAt());
+                writeIndexEntry(indexOutput, entry.getKey(), moved);
+                compacted.put(entry.getKey(), moved);
+                offset += live.length();
+            }
+            out.force(true);
+        } catch (IOException e) {
+            logger.error("Replay cache compaction failed, keeping the current log: {}", e.getMessage());
+            return;
+        }
+        try {
+            close();
+            Files.move(newLog, directory.resolve(LOG_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(newIndex, directory.resolve(INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.keySet().retainAll(compacted.keySet());
+            index.putAll(compacted);
+            openFiles();
+            liveBytes = logSize;
+            logger.info("Replay cache compacted from {} to {} bytes", before, logSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reopen the replay cache after compaction", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (indexOut != null) {
+            indexOut.close();
+            indexOut = null;
+        }
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    private boolean isExpired(long storedAt) {
+        return System.currentTimeMillis() - storedAt >= ttlMs;
+    }
+
+    /**
+     * Loads the index file.
+     *
+     * @return false if the index is missing records of the log or points past its end
+     */
+    private boolean loadIndex() throws IOException {
+        index.clear();
+        liveBytes = 0;
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return logSize == 0;
+        }
+        long end = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            while (true) {
+                String key;
+                try {
+                    key = readString(in);
+                } catch (EOFException e) {
+                    break;
+                }
+                IndexEntry entry = new IndexEntry(in.readLong(), in.readInt(), in.readLong());
+                end = Math.max(end, entry.offset() + entry.length());
+                IndexEntry previous = index.put(key, entry);
+                liveBytes += entry.length() - (previous != null ? previous.length() : 0);
+            }
+        } catch (EOFException | IllegalArgumentException e) {
+            return false;
+        }
+        return end == logSize;
+    }
+
+    /**
+     * Rebuilds the index by scanning the log, truncating a torn record at its end.
+     */
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        liveBytes = 0;
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (offset + header.capacity() <= logSize) {
+            header.clear();
+            readFully(log, header, offset);
+            header.flip();
+            if (header.getInt() != RECORD_MAGIC) {
+                break;
+            }
+            int length = header.getInt();
+            if (length <= 0 || offset + length > logSize) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(log, record, offset);
+            record.flip();
+            Decoded decoded;
+            try {
+                decoded = decode(record);
+            } catch (RuntimeException e) {
+                break;
+            }
+            IndexEntry previous = index.put(decoded.key(), new IndexEntry(offset, length, decoded.response().storedAt()));
+            liveBytes += length - (previous != null ? previous.length() : 0);
+            offset += length;
+        }
+        if (offset < logSize) {
+            logger.warn("Truncating {} unreadable bytes at the end of the replay cache log", logSize - offset);
+            log.truncate(offset);
+            logSize = offset;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(directory.resolve(INDEX_FILE))))) {
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                writeIndexEntry(out, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void openFiles() throws IOException {
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        logSize = log.size();
+        indexOut = openIndexForAppend();
+    }
+
+    private DataOutputStream openIndexForAppend() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+    }
+
+    private record Decoded(String key, CachedResponse response) {
+    }
+
+    /**
+     * Record layout: magic, record length, key, stored time, status, content type, body, CRC-32
+     * of everything before the checksum.
+     */
+    private static ByteBuffer encode(String key, CachedResponse response) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] contentType = response.contentType() != null
+                ? response.contentType().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = 4 + 4 + 4 + keyBytes.length + 8 + 4 + 4 + contentType.length + 4 + response.body().length + 4;
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(RECORD_MAGIC).putInt(length);
+        record.putInt(keyBytes.length).put(keyBytes);
+        record.putLong(response.storedAt()).putInt(response.status());
+        record.putInt(contentType.length).put(contentType);
+        record.putInt(response.body().length).put(response.body());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        return record.flip();
+    }
+
+    private static Decoded decode(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.limit() - 4);
+        if ((int) crc.getValue() != record.getInt(record.limit() - 4)) {
+            throw new IllegalStateException("Checksum mismatch");
+        }
+        if (record.getInt() != RECORD_MAGIC) {
+            throw new IllegalStateException("Not a replay cache record");
+        }
+        record.getInt();
+        String key = new String(bytes(record, record.getInt()), StandardCharsets.UTF_8);
+        long storedAt = record.getLong();
+        int status = record.getInt();
+        byte[] contentType = bytes(record, record.getInt());
+        byte[] body = bytes(record, record.getInt());
+        return new Decoded(key, new CachedResponse(status,
+                contentType.length > 0 ? new String(contentType, StandardCharsets.UTF_8) : null, body, storedAt));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void writeIndexEntry(DataOutputStream out, String key, IndexEntry entry) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeLong(entry.offset());
+        out.writeInt(entry.length());
+        out.writeLong(entry.storedAt());
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 20) {
+            throw new IllegalArgumentException("Corrupt index entry");
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Record extends past the end of the replay cache log");
+            }
+        }
+    }
+}
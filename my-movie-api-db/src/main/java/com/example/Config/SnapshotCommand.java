@@ -0,0 +1,90 @@
+package com.example.Config;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.example.Service.WatchlistSnapshot;
+
+/**
+ * Command line export and import of watchlist snapshots. Started with
+ * {@code --movies.snapshot.export=<file>} or {@code --movies.snapshot.import=<file>}, the
+ * application writes or restores the snapshot once the context is up and then exits, with
+ * status 1 if that failed. Add {@code --spring.main.web-application-type=none} to leave the
+ * HTTP port alone.
+ * <p>
+ * An export is written next to the target file and moved into place when complete, so an
+ * interrupted export never leaves a truncated snapshot behind. Imports only run against an
+ * empty database; the in-memory indexes of the running application would not see the restored
+ * rows, which is why restoring is a command and not an endpoint.
+ *
+ * @see WatchlistSnapshot
+ */
+@Component
+public class SnapshotCommand implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCommand.class);
+
+    private final WatchlistSnapshot snapshot;
+    private final ConfigurableApplicationContext context;
+    private final String exportFile;
+    private final String importFile;
+
+    public SnapshotCommand(
+            WatchlistSnapshot snapshot,
+            ConfigurableApplicationContext context,
+            @Value("${movies.snapshot.export:}") String exportFile,
+            @Value("${movies.snapshot.import:}") String importFile) {
+        this.snapshot = snapshot;
+        this.context = context;
+        this.exportFile = exportFile;
+        this.importFile = importFile;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (exportFile.isBlank() && importFile.isBlank()) {
+            return;
+        }
+        int status = 0;
+        try {
+            if (!exportFile.isBlank()) {
+                export(Path.of(exportFile));
+            }
+            if (!importFile.isBlank()) {
+                try (FileChannel channel = FileChannel.open(Path.of(importFile), StandardOpenOption.READ)) {
+                    snapshot.restore(channel);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Snapshot command failed", e);
+            status = 1;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private void export(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".partial");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            snapshot.export(channel);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
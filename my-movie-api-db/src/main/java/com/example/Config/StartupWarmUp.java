@@ -0,0 +1,177 @@
+package com.example.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Startup warm-up that keeps the readiness probe down until the hot read paths are compiled.
+ * <p>
+ * Once the application is ready, a background thread replays read-only requests against the
+ * application's own HTTP port: movie pages with and without sparse fieldsets, genre filters,
+ * single movies, recommendations, batches, titles and statistics. They run through Tomcat, the
+ * controllers, Jackson and Hibernate exactly like client traffic, so the JIT compiles those paths
+ * before clients arrive. Nothing is written and no upstream API is called. Every request sends
+ * {@code Cache-Control: no-cache} so the controllers serialize it instead of answering from the
+ * encoded JSON cache, which would otherwise serve all but the first pass over the workload.
+ * <p>
+ * Include this indicator in the readiness group; it reports OUT_OF_SERVICE until
+ * {@code movies.warmup.requests} requests have run or {@code movies.warmup.max-duration-ms}
+ * has passed. A failing warm-up is logged and does not keep the instance out of service.
+ * The finished warm-up logs the latency of its first and last requests.
+ */
+@Component
+public class StartupWarmUp implements HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private final boolean enabled;
+    private final int requests;
+    private final long maxDurationMs;
+    private final int reportWindow;
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private volatile Health health;
+
+    public StartupWarmUp(
+            @Value("${movies.warmup.enabled:false}") boolean enabled,
+            @Value("${movies.warmup.requests:3000}") int requests,
+            @Value("${movies.warmup.max-duration-ms:60000}") long maxDurationMs,
+            @Value("${movies.warmup.report-window:100}") int reportWindow) {
+        this.enabled = enabled;
+        this.requests = requests;
+        this.maxDurationMs = maxDurationMs;
+        this.reportWindow = Math.max(reportWindow, 1);
+        this.health = enabled ? Health.outOfService().withDetail("warmUp", "pending").build() : Health.up().build();
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    /**
+     * Starts the warm-up on a background thread once the web server listens.
+     *
+     * @param event the ready event
+     */
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+        if (port == null) {
+            health = Health.up().withDetail("warmUp", "skipped, no web server").build();
+            return;
+        }
+        Thread thread = new Thread(() -> run("http://localhost:" + port + "/api/movies"), "startup-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the warm-up workload and marks the instance ready afterwards.
+     *
+     * @param baseUrl the URL of the movie API
+     */
+    public void run(String baseUrl) {
+        health = Health.outOfService().withDetail("warmUp", "running").build();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        long[] latencies = new long[requests];
+        int sent = 0;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("no-cache");
+        HttpEntity<Void> noCache = new HttpEntity<>(headers);
+        try {
+            List<String> workload = workload(baseUrl);
+            while (sent < requests && System.nanoTime() < deadline) {
+                String url = workload.get(sent % workload.size());
+                long requestStart = System.nanoTime();
+                restTemplate.exchange(url, HttpMethod.GET, noCache, byte[].class);
+                latencies[sent++] = System.nanoTime() - requestStart;
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long[] done = Arrays.copyOf(latencies, sent);
+            int window = Math.min(reportWindow, sent);
+            Stats first = Stats.of(Arrays.copyOfRange(done, 0, window));
+            Stats last = Stats.of(Arrays.copyOfRange(done, sent - window, sent));
+            logger.info("Warm-up sent {} requests in {} ms; first {}: mean {} ms, p99 {} ms; last {}: mean {} ms, p99 {} ms",
+                    sent, elapsedMs, window, first.meanMs(), first.p99Ms(), window, last.meanMs(), last.p99Ms());
+            health = Health.up()
+                    .withDetail("warmUp", "done")
+                    .withDetail("requests", sent)
+                    .withDetail("durationMs", elapsedMs)
+                    .withDetail("firstP99Ms", first.p99Ms())
+                    .withDetail("lastP99Ms", last.p99Ms())
+                    .build();
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up stopped after {} requests, accepting traffic anyway: {}", sent, e.getMessage());
+            health = Health.up().withDetail("warmUp", "failed").withDetail("requests", sent).build();
+        }
+    }
+
+    /**
+     * Builds the request mix from the IDs of the first movies. Only GET requests are used.
+     */
+    private List<String> workload(String baseUrl) {
+        JsonNode page = restTemplate.getForObject(baseUrl + "?fields=id&total=false&size=20", JsonNode.class);
+        List<Long> ids = new ArrayList<>();
+        if (page != null) {
+            page.path("content").forEach(movie -> ids.add(movie.path("id").asLong()));
+        }
+
+        List<String> workload = new ArrayList<>(List.of(
+                baseUrl + "?page=0&size=20",
+                baseUrl + "?page=0&size=20&sort=title",
+                baseUrl + "?size=20&fields=id,title,year,watched",
+                baseUrl + "?size=20&total=false",
+                baseUrl + "?genres=Action,Drama&match=any&size=20",
+                baseUrl + "?watched=false&fields=id,title&size=20",
+                baseUrl + "/titles?size=50",
+                baseUrl + "/stats"));
+        for (Long id : ids) {
+            workload.add(baseUrl + "/" + id);
+            workload.add(baseUrl + "/" + id + "?fields=title,director");
+            workload.add(baseUrl + "/" + id + "/recommendations");
+        }
+        if (!ids.isEmpty()) {
+            workload.add(baseUrl + "/batch?ids=" + ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        return workload;
+    }
+
+    private record Stats(double meanMs, double p99Ms) {
+        static Stats of(long[] nanos) {
+            if (nanos.length == 0) {
+                return new Stats(0, 0);
+            }
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(sorted).average().orElse(0);
+            long p99 = sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1)];
+            return new Stats(round(mean), round(p99));
+        }
+
+        private static double round(double nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
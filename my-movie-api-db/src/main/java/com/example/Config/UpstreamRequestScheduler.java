@@ -0,0 +1,296 @@
+package com.example.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * RestTemplate interceptor that schedules OMDb and TMDB calls by priority class.
+ * <p>
+ * At most {@code movies.upstream.max-concurrency} calls run at once, and each class has its own
+ * concurrency limit. When a call finishes, the next one is taken from the waiting class with
+ * the lowest virtual time, and that class's virtual time advances by the inverse of its
+ * weight. This is weighted fair queuing: with weights 8:2:1, a busy bulk import and a
+ * background refresh together get 3 of every 11 slots while interactive requests are waiting.
+ * A class that was idle starts at the current virtual time, so it cannot save up credit.
+ * <p>
+ * The class is taken from the calling thread, see {@link #callAs}; calls outside of it are
+ * {@link Priority#INTERACTIVE}. A slot is held until the response is closed, so reading a
+ * streamed body counts as part of the call. A call that waits longer than
+ * {@code movies.upstream.max-wait-ms} fails with an {@link IOException}, which RestTemplate
+ * reports as a {@link org.springframework.web.client.ResourceAccessException}.
+ */
+@Component
+public class UpstreamRequestScheduler implements ClientHttpRequestInterceptor {
+
+    private static final String METRIC_PREFIX = "movies.upstream";
+
+    /**
+     * Priority classes of upstream calls.
+     */
+    public enum Priority {
+        /** Calls made while answering an API request. */
+        INTERACTIVE,
+        /** Calls made by imports of many movies. */
+        BULK,
+        /** Calls made by scheduled jobs such as the TMDB change refresh. */
+        BACKGROUND
+    }
+
+    private static final ThreadLocal<Priority> CURRENT = new ThreadLocal<>();
+
+    private final int maxConcurrency;
+    private final long maxWaitMs;
+    private final Map<Priority, PriorityClass> classes = new EnumMap<>(Priority.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /* Guarded by lock */
+    private int inFlight;
+    private double virtualTime;
+
+    public UpstreamRequestScheduler(
+            MeterRegistry meterRegistry,
+            @Value("${movies.upstream.max-concurrency:8}") int maxConcurrency,
+            @Value("${movies.upstream.max-wait-ms:30000}") long maxWaitMs,
+            @Value("${movies.upstream.interactive.weight:8}") int interactiveWeight,
+            @Value("${movies.upstream.interactive.max-concurrency:8}") int interactiveMaxConcurrency,
+            @Value("${movies.upstream.bulk.weight:2}") int bulkWeight,
+            @Value("${movies.upstream.bulk.max-concurrency:4}") int bulkMaxConcurrency,
+            @Value("${movies.upstream.background.weight:1}") int backgroundWeight,
+            @Value("${movies.upstream.background.max-concurrency:2}") int backgroundMaxConcurrency) {
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+        this.maxWaitMs = maxWaitMs;
+        classes.put(Priority.INTERACTIVE, new PriorityClass(interactiveWeight, interactiveMaxConcurrency));
+        classes.put(Priority.BULK, new PriorityClass(bulkWeight, bulkMaxConcurrency));
+        classes.put(Priority.BACKGROUND, new PriorityClass(backgroundWeight, backgroundMaxConcurrency));
+        classes.forEach((priority, priorityClass) -> {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder(METRIC_PREFIX + ".queue.depth", this, scheduler -> scheduler.queued(priorityClass))
+                    .description("Upstream calls waiting for a slot")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            Gauge.builder(METRIC_PREFIX + ".in-flight", this, scheduler -> scheduler.running(priorityClass))
+                    .description("Upstream calls holding a slot")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            priorityClass.waitTimer = Timer.builder(METRIC_PREFIX + ".queue.wait")
+                    .description("Time upstream calls waited for a slot")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * Runs a task whose upstream calls belong to the given priority class.
+     *
+     * @param priority the priority class of the calls
+     * @param task the task to run on the current thread
+     * @return the task's result
+     */
+    public static <T> T callAs(Priority priority, Supplier<T> task) {
+        Priority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Priority priority = CURRENT.get() != null ? CURRENT.get() : Priority.INTERACTIVE;
+        PriorityClass priorityClass = classes.get(priority);
+        acquire(priorityClass);
+        try {
+            return new SlotHoldingResponse(execution.execute(request, body), () -> release(priorityClass));
+        } catch (IOException | RuntimeException e) {
+            release(priorityClass);
+            throw e;
+        }
+    }
+
+    private void acquire(PriorityClass priorityClass) throws IOException {
+        long start = System.nanoTime();
+        Waiter waiter = new Waiter(lock.newCondition());
+        lock.lock();
+        try {
+            if (priorityClass.queue.isEmpty()) {
+                priorityClass.virtualTime = Math.max(priorityClass.virtualTime, virtualTime);
+            }
+            priorityClass.queue.add(waiter);
+            dispatch();
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            while (!waiter.granted) {
+                if (remainingNanos <= 0) {
+                    priorityClass.queue.remove(waiter);
+                    throw new IOException("No upstream slot became free within " + maxWaitMs + " ms");
+                }
+                try {
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        release(priorityClass);
+                    } else {
+                        priorityClass.queue.remove(waiter);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for an upstream slot", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+            priorityClass.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void release(PriorityClass priorityClass) {
+        lock.lock();
+        try {
+            inFlight--;
+            priorityClass.inFlight--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grants free slots to waiting calls, lowest class virtual time first. Must hold the lock.
+     */
+    private void dispatch() {
+        while (inFlight < maxConcurrency) {
+            PriorityClass next = null;
+            for (PriorityClass candidate : classes.values()) {
+                if (!candidate.queue.isEmpty() && candidate.inFlight < candidate.maxConcurrency
+                        && (next == null || candidate.virtualTime < next.virtualTime)) {
+                    next = candidate;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.queue.poll();
+            waiter.granted = true;
+            inFlight++;
+            next.inFlight++;
+            virtualTime = next.virtualTime;
+            next.virtualTime += 1.0 / next.weight;
+            waiter.condition.signal();
+        }
+    }
+
+    private int queued(PriorityClass priorityClass) {
+        lock.lock();
+        try {
+            return priorityClass.queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int running(PriorityClass priorityClass) {
+        lock.lock();
+        try {
+            return priorityClass.inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Scheduling state of one priority class, guarded by the scheduler lock.
+     */
+    private static final class PriorityClass {
+        private final int weight;
+        private final int maxConcurrency;
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private int inFlight;
+        private double virtualTime;
+        private Timer waitTimer;
+
+        private PriorityClass(int weight, int maxConcurrency) {
+            this.weight = Math.max(weight, 1);
+            this.maxConcurrency = Math.max(maxConcurrency, 1);
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Response that gives its slot back when it is closed.
+     */
+    private static final class SlotHoldingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Runnable release;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private SlotHoldingResponse(ClientHttpResponse delegate, Runnable release) {
+            this.delegate = delegate;
+            this.release = release;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    release.run();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.Config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC configuration.
+ * Registers the {@link EndpointConcurrencyLimiter} for the API endpoints.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final EndpointConcurrencyLimiter endpointConcurrencyLimiter;
+
+    public WebConfig(EndpointConcurrencyLimiter endpointConcurrencyLimiter) {
+        this.endpointConcurrencyLimiter = endpointConcurrencyLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(endpointConcurrencyLimiter).addPathPatterns("/api/**");
+    }
+}
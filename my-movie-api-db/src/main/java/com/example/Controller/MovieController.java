@@ -1,29 +1,51 @@
 package com.example.Controller;
 
+import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.Dto.MovieBatch;
+import com.example.Dto.MovieField;
+import com.example.Dto.MovieResponse;
+import com.example.Dto.WatchHistory;
+import com.example.Model.Genre;
 import com.example.Model.Movie;
+import com.example.Repository.MovieVersion;
+import com.example.Service.MovieJsonCache;
 import com.example.Service.MovieService;
+import com.example.Service.WatchlistStatistics;
 
 /**
  * Handle user REST request for managing movie operations.
  * Provides endpoints for retrieving, adding, updating, and deleting movies.
- * All endpoints are prefixed with "/api/movies".
+ * All endpoints are prefixed with "/api/movies" and return {@link MovieResponse}
+ * records rather than the JPA entities.
+ * Every endpoint works on the watchlist of the user named by the {@value #USER_HEADER} header,
+ * which is expected to be set by an authenticating gateway. Requests without the header use
+ * the default watchlist of user 0, which holds the movies stored before watchlists were per user.
  * 
  * @see Movie
  * @see MovieService
@@ -32,51 +54,271 @@ import com.example.Service.MovieService;
 @RequestMapping("/api/movies")
 public class MovieController {
     private static final Logger logger = LoggerFactory.getLogger(MovieController.class);
+
+    /**
+     * Request header carrying the ID of the user whose watchlist is accessed.
+     */
+    public static final String USER_HEADER = "X-User-Id";
     
     @Autowired
     private MovieService movieService;
 
     /**
-     * Retrieves a paginated list of all movies.
+     * Retrieves a paginated list of all movies, optionally filtered by genres and watched status.
+     * When a filter is given the movies are selected through the in-memory genre index
+     * and returned in ID order. With {@code fields} only the listed fields are read and returned.
+     * Unfiltered totals come from the cached movie count; with {@code total=false} a slice without
+     * totals is returned instead. Unfiltered responses are served from the encoded JSON cache,
+     * gzip-compressed if the client accepts it, unless the request carries
+     * {@code Cache-Control: no-cache}.
      * 
+     * @param fields Optional comma separated field names (sparse fieldset), e.g. "title,year"
+     * @param genres Optional comma separated genre names, e.g. "Action,Science Fiction"
+     * @param match "any" (default) to match at least one genre, "all" to match every genre
+     * @param watched Optional watched status to filter by
+     * @param total false to return an unfiltered slice without totals (default true)
      * @param pageable Pagination parameters (page number, size, sorting)
-     * @return ResponseEntity containing a page of movies
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @param request The web request, used to answer If-None-Match against the watchlist ETag
+     * @return ResponseEntity containing a page or slice of movies
+     *         - 200 OK with the requested page
+     *         - 304 Not Modified if the watchlist has not changed since the given ETag
+     *         - 400 Bad Request if a field, genre name or match mode is unknown
      * @see Pageable
+     * @see Genre
+     * @see MovieField
      */
     @GetMapping
-    public ResponseEntity<Page<Movie>> getAllMovies(Pageable pageable) {
-        return ResponseEntity.ok(movieService.getAllMovies(pageable));
+    public ResponseEntity<?> getAllMovies(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String genres,
+            @RequestParam(defaultValue = "any") String match,
+            @RequestParam(required = false) Boolean watched,
+            @RequestParam(defaultValue = "true") boolean total,
+            Pageable pageable,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId,
+            WebRequest request) {
+        String eTag = movieService.getWatchlistETag(userId);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        try {
+            Set<MovieField> fieldSet = MovieField.parse(fields);
+            if (genres == null && watched == null) {
+                String key = MovieJsonCache.pageKey(userId, eTag, pageable, fields == null ? null : fieldSet, total);
+                Optional<MovieJsonCache.Entry> cached = cachedJson(key, request);
+                if (cached.isPresent()) {
+                    return encodedJson(cached.get(), request);
+                }
+                Slice<MovieResponse> movies;
+                if (total) {
+                    movies = fields == null
+                            ? movieService.getAllMovies(userId, pageable).map(MovieResponse::from)
+                            : movieService.getAllMovies(userId, fieldSet, pageable);
+                } else {
+                    movies = fields == null
+                            ? movieService.getMovieSlice(userId, pageable).map(MovieResponse::from)
+                            : movieService.getMovieSlice(userId, fieldSet, pageable);
+                }
+                movieService.cacheJson(key, movies);
+                return ResponseEntity.ok(movies);
+            }
+            Set<Genre> genreSet = parseGenres(genres);
+            boolean matchAll = parseMatchMode(match);
+            return ResponseEntity.ok(
+                    movieService.getMoviesByGenres(userId, genreSet, matchAll, watched, fieldSet, pageable));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid movie filter: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Retrieves watchlist statistics: totals and counts by genre, director, year and watched state.
+     * 
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @return ResponseEntity containing the statistics
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<WatchlistStatistics.Summary> getStatistics(
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
+        return ResponseEntity.ok(movieService.getStatistics(userId));
+    }
+
+    /**
+     * Streams committed watchlist changes as Server-Sent Events ("added", "updated", "deleted").
+     * A reconnecting client resumes from its Last-Event-ID; if the missed events are no longer
+     * buffered it receives a "reset" event and should reload the watchlist.
+     * 
+     * @param lastEventId The ID of the last event received, sent by EventSource on reconnect
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @return The event stream
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
+        return movieService.subscribeToChanges(userId, lastEventId);
+    }
+
+    /**
+     * Retrieves many movies by ID in one request, e.g. {@code /api/movies/batch?ids=6,9,12}.
+     * The movies are loaded with a single query and returned in the order of the IDs;
+     * IDs without a movie are listed under {@code missing}.
+     * 
+     * @param ids The movie IDs
+     * @param fields Optional comma separated field names (sparse fieldset)
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @return ResponseEntity containing the movies and the missing IDs
+     *         - 200 OK with the batch result
+     *         - 400 Bad Request if a field name is unknown or too many IDs are requested
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<MovieBatch> getMoviesByIds(
+            @RequestParam List<Long> ids,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
+        return batch(userId, ids, fields);
+    }
+
+    /**
+     * Retrieves many movies by ID, with the IDs sent as a JSON array body for ID lists
+     * too long for a query string.
+     * 
+     * @param ids The movie IDs
+     * @param fields Optional comma separated field names (sparse fieldset)
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @return ResponseEntity containing the movies and the missing IDs, see {@link #getMoviesByIds}
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<MovieBatch> postMoviesByIds(
+            @RequestBody List<Long> ids,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
+        return batch(userId, ids, fields);
     }
 
     /**
      * Retrieves a specific movie by its ID.
+     * The movie version is checked against If-None-Match / If-Modified-Since before the
+     * movie is loaded, so unchanged movies are answered without loading or serializing them.
+     * Changed movies are served from the encoded JSON cache when it holds their current version,
+     * unless the request carries {@code Cache-Control: no-cache}.
      * 
      * @param id The ID of the movie to retrieve
-     * @return ResponseEntity containing the movie if found, or 404 if not found
+     * @param fields Optional comma separated field names (sparse fieldset)
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @param request The web request, used for the conditional request check
+     * @return ResponseEntity containing the movie if found
+     *         - 200 OK with the movie, its ETag and Last-Modified date
+     *         - 304 Not Modified if the movie has not changed
+     *         - 400 Bad Request if a field name is unknown
+     *         - 404 Not Found if movie isn't on the watchlist
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Movie> getMovieById(@PathVariable Long id) {
-        return movieService.getMovieById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<?> getMovieById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId,
+            WebRequest request) {
+        Optional<MovieVersion> version = movieService.getMovieVersion(userId, id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = id + "." + version.get().getVersion();
+        Instant updatedAt = version.get().getUpdatedAt();
+        boolean notModified = updatedAt != null
+                ? request.checkNotModified(eTag, updatedAt.toEpochMilli())
+                : request.checkNotModified(eTag);
+        if (notModified) {
+            return null;
+        }
+        Set<MovieField> fieldSet;
+        try {
+            fieldSet = MovieField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid field selection: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        String key = MovieJsonCache.movieKey(userId, id, version.get().getVersion(),
+                fields == null ? null : fieldSet);
+        Optional<MovieJsonCache.Entry> cached = cachedJson(key, request);
+        if (cached.isPresent()) {
+            return encodedJson(cached.get(), request);
+        }
+        Optional<MovieResponse> movie = fields == null
+                ? movieService.getMovieById(userId, id).map(MovieResponse::from)
+                : movieService.getMovieById(userId, id, fieldSet);
+        movie.ifPresent(body -> movieService.cacheJson(key, body));
+        return movie
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Adds a new movie by fetching and combining data from both OMDb and TMDB APIs.
+     * Recommends unwatched movies from the watchlist that are similar to the given movie.
+     * 
+     * @param id The ID of the movie to base the recommendations on
+     * @param limit Maximum number of recommendations (default 10)
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @return ResponseEntity containing the recommended movies, closest first
+     *         - 200 OK with the recommendations (possibly empty)
+     *         - 404 Not Found if movie isn't on the watchlist
+     */
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<MovieResponse>> getRecommendations(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
+        try {
+            return ResponseEntity.ok(movieService.getRecommendations(userId, id, limit).stream()
+                    .map(MovieResponse::from)
+                    .toList());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Retrieves when and how often a movie was watched: its watched status changes, oldest first.
+     * 
+     * @param id The ID of the movie
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @return ResponseEntity containing the watch history
+     *         - 200 OK with the history (possibly without events)
+     *         - 404 Not Found if movie isn't on the watchlist
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<WatchHistory> getWatchHistory(
+            @PathVariable Long id,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
+        try {
+            return ResponseEntity.ok(movieService.getWatchHistory(userId, id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Adds a movie to the watchlist. Movies already in the shared catalogue are linked as they
+     * are; new ones are created by fetching and combining data from both OMDb and TMDB APIs.
      * 
      * @param title The title of the movie to add
+     * @param userId The user ID from the {@value #USER_HEADER} header
      * @return ResponseEntity containing the created movie if successful
      *         - 200 OK if movie is successfully added
      *         - 400 Bad Request if the movie already exists or title is invalid
      *         - 500 Internal Server Error if API calls fail
      */
     @PostMapping
-    public ResponseEntity<Movie> addMovie(@RequestParam String title) {
+    public ResponseEntity<MovieResponse> addMovie(
+            @RequestParam String title,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
         logger.info("Received request to add movie: {}", title);
         try {
-            Movie movie = movieService.addMovie(title);
+            Movie movie = movieService.addMovie(userId, title);
             logger.info("Successfully added movie: {}", movie.getTitle());
-            return ResponseEntity.ok(movie);
+            return ResponseEntity.ok(MovieResponse.from(movie));
         } catch (IllegalArgumentException e) {
             logger.warn("Invalid request to add movie: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -91,34 +333,39 @@ public class MovieController {
      * 
      * @param id The ID of the movie to update
      * @param watched The new watched status to set
+     * @param userId The user ID from the {@value #USER_HEADER} header
      * @return ResponseEntity containing the updated movie if successful
      *         - 200 OK if update is successful
-     *         - 404 Not Found if movie doesn't exist
+     *         - 404 Not Found if movie isn't on the watchlist
      */
     @PatchMapping("/{id}/watched")
-    public ResponseEntity<Movie> updateWatchedStatus(
+    public ResponseEntity<MovieResponse> updateWatchedStatus(
             @PathVariable Long id,
-            @RequestParam boolean watched) {
+            @RequestParam boolean watched,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
         try {
-            Movie updatedMovie = movieService.updateWatchedStatus(id, watched);
-            return ResponseEntity.ok(updatedMovie);
+            Movie updatedMovie = movieService.updateWatchedStatus(userId, id, watched);
+            return ResponseEntity.ok(MovieResponse.from(updatedMovie));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     /**
-     * Deletes a movie from the database.
+     * Deletes a movie from the watchlist. The catalogue movie is deleted once no watchlist holds it.
      * 
      * @param id The ID of the movie to delete
+     * @param userId The user ID from the {@value #USER_HEADER} header
      * @return ResponseEntity with no content if successful
      *         - 204 No Content if deletion is successful
-     *         - 404 Not Found if movie doesn't exist
+     *         - 404 Not Found if movie isn't on the watchlist
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteMovie(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteMovie(
+            @PathVariable Long id,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId) {
         try {
-            movieService.deleteMovie(id);
+            movieService.deleteMovie(userId, id);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
@@ -129,11 +376,79 @@ public class MovieController {
      * Retrieves a list of all movie titles.
      * 
      * @param pageable Pagination parameters (page number, size, sorting)
-     * @return ResponseEntity containing a list of movie titles
+     * @param userId The user ID from the {@value #USER_HEADER} header
+     * @param request The web request, used to answer If-None-Match against the watchlist ETag
+     * @return ResponseEntity containing a list of movie titles,
+     *         or 304 Not Modified if the watchlist has not changed since the given ETag
      * @see Pageable
      */
     @GetMapping("/titles")
-    public ResponseEntity<List<String>> getAllMovieTitles(Pageable pageable) {
-        return ResponseEntity.ok(movieService.getAllMovieTitles(pageable));
+    public ResponseEntity<List<String>> getAllMovieTitles(
+            Pageable pageable,
+            @RequestHeader(value = USER_HEADER, defaultValue = "0") long userId,
+            WebRequest request) {
+        if (request.checkNotModified(movieService.getWatchlistETag(userId))) {
+            return null;
+        }
+        return ResponseEntity.ok(movieService.getAllMovieTitles(userId, pageable));
+    }
+
+    /**
+     * Looks up an encoded response unless the request asks for {@code Cache-Control: no-cache}.
+     * Such requests, like those of the startup warm-up, are serialized again; the fresh encoding
+     * is still stored.
+     */
+    private Optional<MovieJsonCache.Entry> cachedJson(String key, WebRequest request) {
+        String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl != null && cacheControl.toLowerCase().contains("no-cache")) {
+            return Optional.empty();
+        }
+        return movieService.getCachedJson(key);
+    }
+
+    /**
+     * Writes an encoded JSON response as is, choosing the gzip variant when the client accepts it.
+     */
+    private static ResponseEntity<byte[]> encodedJson(MovieJsonCache.Entry entry, WebRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING, USER_HEADER);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (entry.gzip() != null && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzip());
+        }
+        return response.body(entry.json());
+    }
+
+    private ResponseEntity<MovieBatch> batch(long userId, List<Long> ids, String fields) {
+        try {
+            Set<MovieField> fieldSet = fields == null ? null : MovieField.parse(fields);
+            return ResponseEntity.ok(movieService.getMoviesByIds(userId, ids, fieldSet));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid batch request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static Set<Genre> parseGenres(String genres) {
+        Set<Genre> genreSet = EnumSet.noneOf(Genre.class);
+        if (genres == null || genres.isBlank()) {
+            return genreSet;
+        }
+        for (String name : genres.split(",")) {
+            genreSet.add(Genre.fromName(name)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown genre: " + name)));
+        }
+        return genreSet;
+    }
+
+    private static boolean parseMatchMode(String match) {
+        if ("all".equalsIgnoreCase(match)) {
+            return true;
+        }
+        if ("any".equalsIgnoreCase(match)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown match mode: " + match);
     }
 }
@@ -0,0 +1,50 @@
+package com.example.Controller;
+
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.Service.WatchlistSnapshot;
+
+/**
+ * Download of a binary snapshot of the whole database, every user's watchlist included.
+ * Only registered with {@code movies.snapshot.endpoint.enabled=true}, and meant to be reachable
+ * from the operators' network only. Restoring is done with the import command of
+ * {@link com.example.Config.SnapshotCommand}.
+ *
+ * @see WatchlistSnapshot
+ */
+@RestController
+@RequestMapping("/api/snapshot")
+@ConditionalOnProperty("movies.snapshot.endpoint.enabled")
+public class SnapshotController {
+
+    @Autowired
+    private WatchlistSnapshot watchlistSnapshot;
+
+    /**
+     * Streams a snapshot to the client as it is read from the database.
+     *
+     * @return the snapshot as an attachment
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportSnapshot() {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("watchlist-" + LocalDate.now() + ".snapshot")
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(out -> watchlistSnapshot.export(Channels.newChannel(out)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.Dto;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the movies found, in request order, and the requested IDs that
+ * do not exist.
+ *
+ * @param movies the movies found, in the order of the requested IDs
+ * @param missing the requested IDs without a movie, in request order
+ */
+public record MovieBatch(List<MovieResponse> movies, List<Long> missing) {
+
+    public MovieBatch {
+        movies = List.copyOf(movies);
+        missing = List.copyOf(missing);
+    }
+}
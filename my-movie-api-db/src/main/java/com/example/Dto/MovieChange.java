@@ -0,0 +1,31 @@
+package com.example.Dto;
+
+import com.example.Event.MovieChangeEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Compact watchlist change notification sent on the change stream.
+ * Deletions carry only the movie ID; additions and updates carry the indexed movie columns.
+ * Catalogue changes carry no watched status, since it belongs to each user's watchlist.
+ *
+ * @param type the kind of change
+ * @param id the database ID of the changed movie
+ * @param movie the movie after the change, null for deletions
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MovieChange(MovieChangeEvent.Type type, Long id, MovieResponse movie) {
+
+    /**
+     * Creates the notification for a committed change event.
+     *
+     * @param event the change event
+     * @return the notification
+     */
+    public static MovieChange of(MovieChangeEvent event) {
+        MovieResponse movie = event.after() != null ? MovieResponse.from(event.after()) : null;
+        if (movie != null && event.isCatalogueChange()) {
+            movie = movie.withoutWatched();
+        }
+        return new MovieChange(event.type(), event.movieId(), movie);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.Dto;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Movie fields that can be requested through the {@code fields} sparse-fieldset parameter.
+ * Each field names both the JSON property of {@link MovieResponse} and the {@code Movie}
+ * attribute selected for it, so a sparse request only reads the requested columns.
+ *
+ * @see MovieResponse
+ */
+public enum MovieField {
+    ID("id"),
+    MOVIE_ID("movieId"),
+    TMDB_ID("tmdbId"),
+    TITLE("title"),
+    YEAR("year"),
+    DIRECTOR("director"),
+    GENRE("genre"),
+    WATCHED("watched"),
+    SIMILAR_MOVIE_TITLE("similarMovieTitle");
+
+    private final String attribute;
+
+    MovieField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * Gets the entity attribute and JSON property name of the field.
+     *
+     * @return the attribute name
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Parses a comma separated list of field names. The ID is always included so that
+     * clients can address the returned resources.
+     *
+     * @param fields comma separated field names, null or blank for every field
+     * @return the selected fields
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public static Set<MovieField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.unmodifiableSet(EnumSet.allOf(MovieField.class));
+        }
+        Set<MovieField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            selected.add(fromAttribute(name.trim()));
+        }
+        return Collections.unmodifiableSet(selected);
+    }
+
+    private static MovieField fromAttribute(String name) {
+        for (MovieField field : values()) {
+            if (field.attribute.toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT))) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + name);
+    }
+}
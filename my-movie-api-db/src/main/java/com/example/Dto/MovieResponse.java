@@ -0,0 +1,118 @@
+package com.example.Dto;
+
+import java.util.Map;
+
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Movie;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Immutable API representation of a movie.
+ * Contains only the plain movie columns; images and the similar movie list are never
+ * serialized. Fields left out of a sparse-fieldset request are null and omitted from the JSON.
+ *
+ * @param id the database ID of the movie
+ * @param movieId the external movie ID
+ * @param tmdbId the TMDB ID
+ * @param title the movie title
+ * @param year the release year
+ * @param director the director's name
+ * @param genre the comma separated genre names
+ * @param watched the watched status
+ * @param similarMovieTitle the title of the most similar movie
+ * @see MovieField
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MovieResponse(
+        Long id,
+        Long movieId,
+        Long tmdbId,
+        String title,
+        String year,
+        String director,
+        String genre,
+        Boolean watched,
+        String similarMovieTitle) {
+
+    /**
+     * Creates the full representation of a movie entity.
+     *
+     * @param movie the movie to represent
+     * @return the response
+     */
+    public static MovieResponse from(Movie movie) {
+        return new MovieResponse(
+                movie.getId(),
+                movie.getMovieId(),
+                movie.getTmdbId(),
+                movie.getTitle(),
+                movie.getYear(),
+                movie.getDirector(),
+                movie.getGenre(),
+                movie.isWatched(),
+                movie.getSimilarMovieTitle());
+    }
+
+    /**
+     * Creates a representation of a movie snapshot taken by a write path.
+     *
+     * @param movie the snapshot to represent
+     * @return the response
+     */
+    public static MovieResponse from(MovieSnapshot movie) {
+        return new MovieResponse(
+                movie.id(),
+                null,
+                movie.tmdbId(),
+                movie.title(),
+                movie.year(),
+                movie.director(),
+                movie.genre(),
+                movie.watched(),
+                null);
+    }
+
+    /**
+     * Creates a sparse representation from selected field values.
+     *
+     * @param values the selected field values, missing fields are left null
+     * @return the response
+     */
+    public static MovieResponse of(Map<MovieField, Object> values) {
+        return new MovieResponse(
+                (Long) values.get(MovieField.ID),
+                (Long) values.get(MovieField.MOVIE_ID),
+                (Long) values.get(MovieField.TMDB_ID),
+                (String) values.get(MovieField.TITLE),
+                (String) values.get(MovieField.YEAR),
+                (String) values.get(MovieField.DIRECTOR),
+                (String) values.get(MovieField.GENRE),
+                (Boolean) values.get(MovieField.WATCHED),
+                (String) values.get(MovieField.SIMILAR_MOVIE_TITLE));
+    }
+
+    /**
+     * Returns a copy with another watched status, or this response if the status was not selected.
+     *
+     * @param watched the watched status to show
+     * @return the response with the given status
+     */
+    public MovieResponse withWatched(boolean watched) {
+        if (this.watched == null || this.watched == watched) {
+            return this;
+        }
+        return new MovieResponse(id, movieId, tmdbId, title, year, director, genre, watched, similarMovieTitle);
+    }
+
+    /**
+     * Returns a copy without the watched status, for catalogue data that belongs to no user.
+     *
+     * @return the response without watched status
+     */
+    public MovieResponse withoutWatched() {
+        if (watched == null) {
+            return this;
+        }
+        return new MovieResponse(id, movieId, tmdbId, title, year, director, genre, null, similarMovieTitle);
+    }
+}
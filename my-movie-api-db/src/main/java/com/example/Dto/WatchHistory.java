@@ -0,0 +1,50 @@
+package com.example.Dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Watch history of a movie on a user's watchlist, oldest change first.
+ *
+ * @param id the database ID of the movie
+ * @param watched the current watched status, that of the latest change if there is one
+ * @param timesWatched how often the movie was marked as watched
+ * @param lastWatchedAt when the movie was last marked as watched, null if never
+ * @param events the watched status changes, oldest first
+ */
+public record WatchHistory(Long id, boolean watched, int timesWatched, Instant lastWatchedAt, List<Event> events) {
+
+    public WatchHistory {
+        events = List.copyOf(events);
+    }
+
+    /**
+     * A change of the watched status.
+     *
+     * @param watched the new watched status
+     * @param at when the status was changed
+     */
+    public record Event(boolean watched, Instant at) {
+    }
+
+    /**
+     * Builds the history of a movie from its logged changes.
+     *
+     * @param id the database ID of the movie
+     * @param currentWatched the stored watched status, used when no change was logged
+     * @param events the logged changes, oldest first
+     * @return the history
+     */
+    public static WatchHistory of(Long id, boolean currentWatched, List<Event> events) {
+        int timesWatched = 0;
+        Instant lastWatchedAt = null;
+        for (Event event : events) {
+            if (event.watched()) {
+                timesWatched++;
+                lastWatchedAt = event.at();
+            }
+        }
+        boolean watched = events.isEmpty() ? currentWatched : events.get(events.size() - 1).watched();
+        return new WatchHistory(id, watched, timesWatched, lastWatchedAt, events);
+    }
+}
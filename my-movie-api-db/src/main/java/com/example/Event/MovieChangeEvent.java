@@ -0,0 +1,110 @@
+package com.example.Event;
+
+/**
+ * Application event published by the write paths of the movie service.
+ * Listeners that maintain in-memory structures over the watchlist should use
+ * {@code @TransactionalEventListener} so they only observe committed changes.
+ * <p>
+ * Events either change the shared movie catalogue (no user ID; the watched flag of the
+ * snapshots is meaningless) or one user's watchlist (the snapshots carry the user's watched
+ * flag). Adding a movie no one had yet publishes a catalogue event followed by a watchlist
+ * event; removing the last reference publishes them in the opposite order.
+ *
+ * @param type the kind of change
+ * @param userId the user whose watchlist changed, null for a catalogue change
+ * @param before the state before the change, null for {@link Type#ADDED}
+ * @param after the state after the change, null for {@link Type#DELETED}
+ * @see MovieSnapshot
+ */
+public record MovieChangeEvent(Type type, Long userId, MovieSnapshot before, MovieSnapshot after) {
+
+    /**
+     * The kind of change made to a movie.
+     */
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * Creates an event for a movie newly added to the catalogue.
+     *
+     * @param after the stored movie
+     * @return the event
+     */
+    public static MovieChangeEvent added(MovieSnapshot after) {
+        return added(null, after);
+    }
+
+    /**
+     * Creates an event for a movie newly added to a user's watchlist.
+     *
+     * @param userId the user ID, null for the catalogue
+     * @param after the movie as the user sees it
+     * @return the event
+     */
+    public static MovieChangeEvent added(Long userId, MovieSnapshot after) {
+        return new MovieChangeEvent(Type.ADDED, userId, null, after);
+    }
+
+    /**
+     * Creates an event for an updated catalogue movie.
+     *
+     * @param before the movie before the update
+     * @param after the movie after the update
+     * @return the event
+     */
+    public static MovieChangeEvent updated(MovieSnapshot before, MovieSnapshot after) {
+        return updated(null, before, after);
+    }
+
+    /**
+     * Creates an event for a movie updated on a user's watchlist.
+     *
+     * @param userId the user ID, null for the catalogue
+     * @param before the movie before the update
+     * @param after the movie after the update
+     * @return the event
+     */
+    public static MovieChangeEvent updated(Long userId, MovieSnapshot before, MovieSnapshot after) {
+        return new MovieChangeEvent(Type.UPDATED, userId, before, after);
+    }
+
+    /**
+     * Creates an event for a movie deleted from the catalogue.
+     *
+     * @param before the movie as it was before deletion
+     * @return the event
+     */
+    public static MovieChangeEvent deleted(MovieSnapshot before) {
+        return deleted(null, before);
+    }
+
+    /**
+     * Creates an event for a movie removed from a user's watchlist.
+     *
+     * @param userId the user ID, null for the catalogue
+     * @param before the movie as it was before removal
+     * @return the event
+     */
+    public static MovieChangeEvent deleted(Long userId, MovieSnapshot before) {
+        return new MovieChangeEvent(Type.DELETED, userId, before, null);
+    }
+
+    /**
+     * Gets the database ID of the changed movie.
+     *
+     * @return the movie ID
+     */
+    public Long movieId() {
+        return after != null ? after.id() : before.id();
+    }
+
+    /**
+     * @return true if the event changes the shared catalogue rather than one user's watchlist
+     */
+    public boolean isCatalogueChange() {
+        return userId == null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.Event;
+
+import java.util.List;
+
+import org.hibernate.Hibernate;
+
+import com.example.Model.Movie;
+
+/**
+ * Immutable copy of the indexed columns of a {@link Movie}.
+ * Taken inside the writing transaction so listeners never touch a detached entity.
+ *
+ * @param id the database ID of the movie
+ * @param title the movie title
+ * @param year the release year
+ * @param director the director's name
+ * @param genre the comma separated genre names
+ * @param genreMask the genre bitmask
+ * @param watched the user's watched status, always false for catalogue snapshots
+ * @param tmdbId the TMDB ID, null if unknown
+ * @param similarTmdbIds the TMDB IDs of similar movies, most relevant first; empty when the
+ *        lazy collection was not loaded by the writing transaction
+ * @see MovieChangeEvent
+ */
+public record MovieSnapshot(
+        Long id,
+        String title,
+        String year,
+        String director,
+        String genre,
+        long genreMask,
+        boolean watched,
+        Long tmdbId,
+        List<Long> similarTmdbIds) {
+
+    public MovieSnapshot {
+        similarTmdbIds = similarTmdbIds == null ? List.of() : List.copyOf(similarTmdbIds);
+    }
+
+    /**
+     * Creates a snapshot without similar movies.
+     * Used by projection queries, which cannot select a collection alongside scalar columns.
+     */
+    public MovieSnapshot(Long id, String title, String year, String director, String genre,
+            long genreMask, boolean watched, Long tmdbId) {
+        this(id, title, year, director, genre, genreMask, watched, tmdbId, List.of());
+    }
+
+    /**
+     * Creates a snapshot of the given movie.
+     *
+     * @param movie the movie to copy
+     * @return the snapshot
+     */
+    public static MovieSnapshot of(Movie movie) {
+        return new MovieSnapshot(
+                movie.getId(),
+                movie.getTitle(),
+                movie.getYear(),
+                movie.getDirector(),
+                movie.getGenre(),
+                movie.getGenreMask(),
+                Boolean.TRUE.equals(movie.isWatched()),
+                movie.getTmdbId(),
+                Hibernate.isInitialized(movie.getSimilarTmdbIds()) ? movie.getSimilarTmdbIds() : List.of());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An image downloaded to a temporary file and waiting to be stored for a movie.
+ * Not an entity: the file is streamed into the movie_images table once the movie has an ID,
+ * and deleted afterwards.
+ *
+ * @param imageType the image type (e.g., "POSTER" or "BACKDROP")
+ * @param file the temporary file holding the image
+ * @param contentType the MIME type sniffed from the image bytes
+ * @param length the size of the image in bytes
+ * @param sha256 the hex encoded SHA-256 digest of the image
+ * @see MovieImage
+ */
+public record DownloadedImage(String imageType, Path file, String contentType, long length, String sha256) {
+
+    /**
+     * Deletes the temporary file, ignoring failures.
+     */
+    public void discard() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
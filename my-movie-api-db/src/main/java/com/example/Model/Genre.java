@@ -0,0 +1,162 @@
+package com.example.Model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * TMDB movie genres together with the bit each one occupies in {@link Movie#getGenreMask()}.
+ * The bit position is the enum ordinal, so constants must only ever be appended at the end;
+ * reordering them would silently change the meaning of stored masks.
+ *
+ * @see Movie
+ */
+public enum Genre {
+    ACTION(28, "Action"),
+    ADVENTURE(12, "Adventure"),
+    ANIMATION(16, "Animation"),
+    COMEDY(35, "Comedy"),
+    CRIME(80, "Crime"),
+    DOCUMENTARY(99, "Documentary"),
+    DRAMA(18, "Drama"),
+    FAMILY(10751, "Family"),
+    FANTASY(14, "Fantasy"),
+    HISTORY(36, "History"),
+    HORROR(27, "Horror"),
+    MUSIC(10402, "Music"),
+    MYSTERY(9648, "Mystery"),
+    ROMANCE(10749, "Romance"),
+    SCIENCE_FICTION(878, "Science Fiction"),
+    TV_MOVIE(10770, "TV Movie"),
+    THRILLER(53, "Thriller"),
+    WAR(10752, "War"),
+    WESTERN(37, "Western");
+
+    private final int tmdbId;
+    private final String displayName;
+
+    Genre(int tmdbId, String displayName) {
+        this.tmdbId = tmdbId;
+        this.displayName = displayName;
+    }
+
+    /**
+     * Gets the TMDB genre ID.
+     *
+     * @return the TMDB genre ID
+     */
+    public int getTmdbId() {
+        return tmdbId;
+    }
+
+    /**
+     * Gets the human readable genre name as used by TMDB.
+     *
+     * @return the display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the single bit representing this genre in a genre mask.
+     *
+     * @return the genre bit
+     */
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Looks up a genre by its TMDB genre ID.
+     *
+     * @param tmdbId the TMDB genre ID
+     * @return Optional containing the genre, empty if the ID is unknown
+     */
+    public static Optional<Genre> fromTmdbId(int tmdbId) {
+        for (Genre genre : values()) {
+            if (genre.tmdbId == tmdbId) {
+                return Optional.of(genre);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Looks up a genre by name, ignoring case, spaces, dashes and underscores.
+     * Accepts both the display name ("Science Fiction") and the constant name ("SCIENCE_FICTION"),
+     * plus the common "sci-fi" alias.
+     *
+     * @param name the genre name
+     * @return Optional containing the genre, empty if the name is unknown
+     */
+    public static Optional<Genre> fromName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        String key = normalize(name);
+        if ("scifi".equals(key)) {
+            return Optional.of(SCIENCE_FICTION);
+        }
+        for (Genre genre : values()) {
+            if (normalize(genre.name()).equals(key) || normalize(genre.displayName).equals(key)) {
+                return Optional.of(genre);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Combines the given genres into a genre mask.
+     *
+     * @param genres the genres to combine
+     * @return the genre mask, 0 if the collection is empty
+     */
+    public static long maskOf(Collection<Genre> genres) {
+        long mask = 0L;
+        for (Genre genre : genres) {
+            mask |= genre.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * Builds a genre mask from a comma separated list of genre names, skipping unknown names.
+     * Used for rows written before the genre mask column existed.
+     *
+     * @param names comma separated genre names, may be null
+     * @return the genre mask
+     */
+    public static long maskOfNames(String names) {
+        long mask = 0L;
+        if (names == null) {
+            return mask;
+        }
+        for (String name : names.split(",")) {
+            mask |= fromName(name).map(Genre::mask).orElse(0L);
+        }
+        return mask;
+    }
+
+    /**
+     * Expands a genre mask into the genres it contains, in bit order.
+     *
+     * @param mask the genre mask
+     * @return the list of genres set in the mask
+     */
+    public static List<Genre> fromMask(long mask) {
+        List<Genre> genres = new ArrayList<>();
+        for (Genre genre : values()) {
+            if ((mask & genre.mask()) != 0) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", "");
+    }
+}
@@ -1,27 +1,46 @@
 package com.example.Model;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 /**
  * Entity class representing a movie in the database.
  * Stores movie information including title, year, director, genre, and associated images.
  * Maintains a one-to-many relationship with MovieImage entities for storing movie posters and backdrops.
+ * Updates only write the columns that changed.
+ * Deleted movies stay as tombstones until {@link com.example.Service.MovieBlobPurger} removes them
+ * and are invisible to every entity load and JPQL query.
+ * Movies form a catalogue shared by all users; per-user state lives in {@link WatchlistEntry}.
  * 
  * @see MovieImage
+ * @see WatchlistEntry
  */
 @Entity
-@Table(name = "movies")
+@DynamicUpdate
+@SQLRestriction("deleted_at is null")
+@Table(name = "movies", indexes = @Index(name = "idx_movies_deleted_at", columnList = "deleted_at"))
 public class Movie {
     /**
      * Unique identifier for the movie in the database.
@@ -40,6 +59,13 @@ public class Movie {
     @Column(name = "movie_id", nullable = false)
     private Long movieId;
 
+    /**
+     * TMDB ID of the movie, used to link it to the similar movies reported by TMDB.
+     * Null for movies that were not found in TMDB.
+     */
+    @Column(name = "tmdb_id")
+    private Long tmdbId;
+
     /**
      * Title of the movie.
      * Maximum length of 255 characters.
@@ -62,17 +88,24 @@ public class Movie {
     private String director;
 
     /**
-     * Genre of the movie.
+     * Genres of the movie as a comma separated list of names.
      * Maximum length of 255 characters.
      */
     @Column(name = "genre", length = 255)
     private String genre;
 
     /**
-     * Flag indicating whether the movie has been watched.
-     * Stored as tinyint(1) in the database.
+     * Bitmask of all genres of the movie, one bit per {@link Genre}.
+     * Defaults to 0 for rows stored before the column existed.
      */
-    @Column(name = "watched", columnDefinition = "tinyint(1)")
+    @Column(name = "genre_mask", nullable = false, columnDefinition = "bigint default 0")
+    private long genreMask;
+
+    /**
+     * Flag indicating whether the movie has been watched by the user it was loaded for.
+     * Not stored with the shared catalogue row; filled from the user's {@link WatchlistEntry}.
+     */
+    @Transient
     private Boolean watched;
 
     /**
@@ -82,6 +115,40 @@ public class Movie {
     @Column(name = "similar_movie_title", length = 255)
     private String similarMovieTitle;
 
+    /**
+     * TMDB IDs of similar movies in TMDB relevance order (adjacency list of the similarity graph).
+     * Stored in the movie_similar table.
+     */
+    @ElementCollection
+    @CollectionTable(name = "movie_similar",
+            joinColumns = @JoinColumn(name = "movie_id", columnDefinition = "int unsigned"))
+    @OrderColumn(name = "similar_position")
+    @Column(name = "similar_tmdb_id", nullable = false)
+    private List<Long> similarTmdbIds = new ArrayList<>();
+
+    /**
+     * Optimistic locking version, incremented by Hibernate on every update.
+     * Used as the strong ETag of the movie resource.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    /**
+     * Time of the last insert or update, used as the Last-Modified date of the movie resource.
+     * Null for rows stored before the column existed.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    /**
+     * Time the movie was deleted. Null for live movies; set rows are tombstones waiting for
+     * their images and the row itself to be purged.
+     */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
     /**
      * List of images associated with this movie (posters and backdrops).
      * One-to-many relationship with cascade operations and orphan removal.
@@ -89,6 +156,13 @@ public class Movie {
     @OneToMany(mappedBy = "movie", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<MovieImage> images = new ArrayList<>();
 
+    /**
+     * Images downloaded for a new movie, streamed into the movie_images table once the
+     * movie has an ID. Not persisted with the entity.
+     */
+    @Transient
+    private List<DownloadedImage> downloadedImages = new ArrayList<>();
+
     /**
      * Default constructor required by JPA.
      */
@@ -151,6 +225,24 @@ public class Movie {
         this.movieId = movieId;
     }
 
+    /**
+     * Gets the TMDB ID of the movie.
+     *
+     * @return the TMDB ID, or null if unknown
+     */
+    public Long getTmdbId() {
+        return tmdbId;
+    }
+
+    /**
+     * Sets the TMDB ID of the movie.
+     *
+     * @param tmdbId the TMDB ID to set
+     */
+    public void setTmdbId(Long tmdbId) {
+        this.tmdbId = tmdbId;
+    }
+
     /**
      * Gets the title of the movie.
      *
@@ -206,23 +298,43 @@ public class Movie {
     }
 
     /**
-     * Gets the genre of the movie.
+     * Gets the genres of the movie as a comma separated list.
      *
-     * @return the movie genre
+     * @return the movie genres
      */
     public String getGenre() {
         return genre;
     }
 
     /**
-     * Sets the genre of the movie.
+     * Sets the genres of the movie as a comma separated list.
      *
-     * @param genre the genre to set
+     * @param genre the genres to set
      */
     public void setGenre(String genre) {
         this.genre = genre;
     }
 
+    /**
+     * Gets the bitmask of all genres of the movie.
+     *
+     * @return the genre mask
+     * @see Genre#fromMask(long)
+     */
+    public long getGenreMask() {
+        return genreMask;
+    }
+
+    /**
+     * Sets the bitmask of all genres of the movie.
+     *
+     * @param genreMask the genre mask to set
+     * @see Genre#maskOf(java.util.Collection)
+     */
+    public void setGenreMask(long genreMask) {
+        this.genreMask = genreMask;
+    }
+
     /**
      * Checks if the movie has been watched.
      *
@@ -259,6 +371,69 @@ public class Movie {
         this.similarMovieTitle = similarMovieTitle;
     }
 
+    /**
+     * Gets the TMDB IDs of similar movies, most relevant first.
+     *
+     * @return the similar movie TMDB IDs
+     */
+    public List<Long> getSimilarTmdbIds() {
+        return similarTmdbIds;
+    }
+
+    /**
+     * Sets the TMDB IDs of similar movies, most relevant first.
+     *
+     * @param similarTmdbIds the similar movie TMDB IDs to set
+     */
+    public void setSimilarTmdbIds(List<Long> similarTmdbIds) {
+        this.similarTmdbIds = similarTmdbIds;
+    }
+
+    /**
+     * Gets the optimistic locking version of the movie.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the optimistic locking version of the movie.
+     *
+     * @param version the version to set
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets the time of the last insert or update.
+     *
+     * @return the last modification time, or null if unknown
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Gets the deletion time of the movie.
+     *
+     * @return the deletion time, or null if the movie is live
+     */
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    /**
+     * Sets the time of the last insert or update.
+     *
+     * @param updatedAt the last modification time to set
+     */
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     /**
      * Gets the list of images associated with this movie.
      *
@@ -279,6 +454,24 @@ public class Movie {
         this.images = images;
     }
 
+    /**
+     * Gets the downloaded images waiting to be stored for this movie.
+     *
+     * @return the downloaded images
+     */
+    public List<DownloadedImage> getDownloadedImages() {
+        return downloadedImages;
+    }
+
+    /**
+     * Adds a downloaded image to store once the movie is saved.
+     *
+     * @param image the downloaded image
+     */
+    public void addDownloadedImage(DownloadedImage image) {
+        downloadedImages.add(image);
+    }
+
     /**
      * Returns a list of image content types for this movie using Streams.
      */
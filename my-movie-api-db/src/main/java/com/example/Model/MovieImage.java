@@ -62,6 +62,20 @@ public class MovieImage {
     @Column(name = "content_type", nullable = false)
     private String contentType;
 
+    /**
+     * The size of the image in bytes.
+     * Null for images stored before sizes were recorded.
+     */
+    @Column(name = "content_length")
+    private Long contentLength;
+
+    /**
+     * Hex encoded SHA-256 digest of the image data, computed while the image was downloaded.
+     * Null for images stored before digests were recorded.
+     */
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
     /**
      * Default constructor required by JPA.
      */
@@ -157,4 +171,40 @@ public class MovieImage {
     public void setContentType(String contentType) {
         this.contentType = contentType;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Gets the size of the image in bytes.
+     *
+     * @return the size, or null if unknown
+     */
+    public Long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Sets the size of the image in bytes.
+     *
+     * @param contentLength the size to set
+     */
+    public void setContentLength(Long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Gets the hex encoded SHA-256 digest of the image data.
+     *
+     * @return the digest, or null if unknown
+     */
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    /**
+     * Sets the hex encoded SHA-256 digest of the image data.
+     *
+     * @param contentSha256 the digest to set
+     */
+    public void setContentSha256(String contentSha256) {
+        this.contentSha256 = contentSha256;
+    }
+} 
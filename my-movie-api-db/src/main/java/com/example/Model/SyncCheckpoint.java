@@ -0,0 +1,89 @@
+package com.example.Model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class recording how far a background synchronisation job has progressed,
+ * so the job resumes from the same point after a restart.
+ */
+@Entity
+@Table(name = "sync_checkpoints")
+public class SyncCheckpoint {
+    /**
+     * Name of the job owning the checkpoint.
+     */
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    /**
+     * Date from which the next run continues, inclusive.
+     */
+    @Column(name = "resume_from", nullable = false)
+    private LocalDate resumeFrom;
+
+    /**
+     * Time the checkpoint was last advanced.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    protected SyncCheckpoint() {
+    }
+
+    /**
+     * Creates a checkpoint for a job.
+     *
+     * @param name the job name
+     * @param resumeFrom the date from which the next run continues
+     */
+    public SyncCheckpoint(String name, LocalDate resumeFrom) {
+        this.name = name;
+        this.resumeFrom = resumeFrom;
+    }
+
+    /**
+     * Gets the job name.
+     *
+     * @return the job name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the date from which the next run continues.
+     *
+     * @return the resume date, inclusive
+     */
+    public LocalDate getResumeFrom() {
+        return resumeFrom;
+    }
+
+    /**
+     * Sets the date from which the next run continues.
+     *
+     * @param resumeFrom the resume date, inclusive
+     */
+    public void setResumeFrom(LocalDate resumeFrom) {
+        this.resumeFrom = resumeFrom;
+    }
+
+    /**
+     * Gets the time the checkpoint was last advanced.
+     *
+     * @return the last update time
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
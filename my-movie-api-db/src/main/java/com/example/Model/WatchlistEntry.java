@@ -0,0 +1,208 @@
+package com.example.Model;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * Entity class linking a user to a catalogue {@link Movie} on their watchlist.
+ * Holds the per-user state of the movie, while the catalogue row with its OMDb/TMDB metadata
+ * and images is stored once and shared by every user.
+ * The primary key (user_id, movie_id) keeps each user's entries clustered together, so a
+ * user's watchlist is read with a range scan whatever the number of users; the movie_id
+ * index answers whether a catalogue movie is still referenced.
+ *
+ * @see Movie
+ */
+@Entity
+@DynamicUpdate
+@IdClass(WatchlistEntry.Key.class)
+@Table(name = "watchlist_entries", indexes = @Index(name = "idx_watchlist_entries_movie_id", columnList = "movie_id"))
+public class WatchlistEntry {
+    /**
+     * ID of the user owning the entry.
+     */
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Database ID of the catalogue movie.
+     */
+    @Id
+    @Column(name = "movie_id", nullable = false, columnDefinition = "int unsigned")
+    private Long movieId;
+
+    /**
+     * The catalogue movie, mapped read-only over the movie_id key column.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movie_id", insertable = false, updatable = false)
+    private Movie movie;
+
+    /**
+     * Flag indicating whether the user has watched the movie.
+     */
+    @Column(name = "watched", nullable = false, columnDefinition = "tinyint(1) default 0")
+    private boolean watched;
+
+    /**
+     * Time the movie was added to the user's watchlist.
+     */
+    @Column(name = "added_at", nullable = false)
+    private Instant addedAt;
+
+    /**
+     * Optimistic locking version, incremented by Hibernate on every update.
+     * Part of the ETag of the movie resource as the user sees it. Null until the entry is
+     * first saved, which lets Spring Data persist a new entry without selecting it first.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    /**
+     * Time of the last insert or update.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    protected WatchlistEntry() {
+    }
+
+    /**
+     * Creates an unwatched entry for a catalogue movie.
+     *
+     * @param userId the user ID
+     * @param movie the saved catalogue movie
+     */
+    public WatchlistEntry(Long userId, Movie movie) {
+        this.userId = userId;
+        this.movieId = movie.getId();
+        this.movie = movie;
+        this.addedAt = Instant.now();
+    }
+
+    /**
+     * Gets the ID of the user owning the entry.
+     *
+     * @return the user ID
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the database ID of the catalogue movie.
+     *
+     * @return the movie's database ID
+     */
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    /**
+     * Gets the catalogue movie.
+     *
+     * @return the movie, loaded lazily
+     */
+    public Movie getMovie() {
+        return movie;
+    }
+
+    /**
+     * Checks if the user has watched the movie.
+     *
+     * @return true if the movie has been watched, false otherwise
+     */
+    public boolean isWatched() {
+        return watched;
+    }
+
+    /**
+     * Sets the watched status of the movie for the user.
+     *
+     * @param watched the watched status to set
+     */
+    public void setWatched(boolean watched) {
+        this.watched = watched;
+    }
+
+    /**
+     * Gets the time the movie was added to the watchlist.
+     *
+     * @return the time of addition
+     */
+    public Instant getAddedAt() {
+        return addedAt;
+    }
+
+    /**
+     * Gets the optimistic locking version of the entry.
+     *
+     * @return the version, 0 for an unsaved entry
+     */
+    public long getVersion() {
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Gets the time of the last insert or update.
+     *
+     * @return the last modification time
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Primary key of a watchlist entry.
+     */
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long movieId;
+
+        protected Key() {
+        }
+
+        /**
+         * Creates the key of a user's entry for a movie.
+         *
+         * @param userId the user ID
+         * @param movieId the movie's database ID
+         */
+        public Key(Long userId, Long movieId) {
+            this.userId = userId;
+            this.movieId = movieId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key that && Objects.equals(userId, that.userId)
+                    && Objects.equals(movieId, that.movieId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, movieId);
+        }
+    }
+}
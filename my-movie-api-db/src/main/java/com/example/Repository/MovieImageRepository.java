@@ -11,14 +11,15 @@ import com.example.Model.MovieImage;
 
 /**
  * Repository interface for MovieImage entity that extends JpaRepository.
- * Provides operations for managing movie images including posters and backdrops.
+ * Provides operations for managing movie images including posters and backdrops,
+ * plus the streamed inserts of {@link MovieImageStreamRepository}.
  * 
  * @see JpaRepository
  * @see MovieImage
  * @see Movie
  */
 @Repository
-public interface MovieImageRepository extends JpaRepository<MovieImage, Long> {
+public interface MovieImageRepository extends JpaRepository<MovieImage, Long>, MovieImageStreamRepository {
     /**
      * Finds all images associated with a specific movie.
      *
@@ -0,0 +1,18 @@
+package com.example.Repository;
+
+import com.example.Model.DownloadedImage;
+
+/**
+ * Repository fragment for storing image files without loading them into memory.
+ *
+ * @see MovieImageRepository
+ */
+public interface MovieImageStreamRepository {
+    /**
+     * Inserts a downloaded image for a movie, streaming the file into the image column.
+     *
+     * @param movieId The database ID of the movie
+     * @param image The downloaded image
+     */
+    void insertStreamed(Long movieId, DownloadedImage image);
+}
@@ -0,0 +1,43 @@
+package com.example.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.Model.DownloadedImage;
+
+/**
+ * JDBC implementation of {@link MovieImageStreamRepository}. The file is passed to the driver
+ * with {@code setBinaryStream}, so the image never exists as a byte array in the application.
+ * MySQL Connector/J only sends the stream in chunks with {@code useServerPrepStmts=true} in the
+ * datasource URL; with client-side prepared statements it buffers the whole image.
+ * Runs in the caller's transaction.
+ */
+public class MovieImageStreamRepositoryImpl implements MovieImageStreamRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieImageStreamRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertStreamed(Long movieId, DownloadedImage image) {
+        try (InputStream data = Files.newInputStream(image.file())) {
+            jdbcTemplate.update("insert into movie_images (movie_id, image_type, image_data, content_type, "
+                    + "content_length, content_sha256) values (?, ?, ?, ?, ?, ?)", statement -> {
+                statement.setLong(1, movieId);
+                statement.setString(2, image.imageType());
+                statement.setBinaryStream(3, data, image.length());
+                statement.setString(4, image.contentType());
+                statement.setLong(5, image.length());
+                statement.setString(6, image.sha256());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read downloaded image " + image.file(), e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.example.Dto.MovieField;
+import com.example.Dto.MovieResponse;
+
+/**
+ * Repository fragment for sparse-fieldset reads of a user's watchlist: only the columns of the
+ * requested {@link MovieField}s are selected, and no entity is materialised. The watched field
+ * comes from the user's watchlist entry, every other field from the shared catalogue row.
+ *
+ * @see MovieRepository
+ */
+public interface MovieProjectionRepository {
+    /**
+     * Finds a slice of a user's movies, selecting only the given fields. One row more than the
+     * page size is read to tell whether a next slice exists; no count query is run.
+     *
+     * @param userId The user ID
+     * @param fields The fields to select
+     * @param pageable Pagination parameters (page number, size, sorting)
+     * @return Slice of sparse movie responses
+     */
+    Slice<MovieResponse> findAllProjected(Long userId, Set<MovieField> fields, Pageable pageable);
+
+    /**
+     * Finds a user's movies by ID, selecting only the given fields. The order of the result is
+     * unspecified.
+     *
+     * @param userId The user ID
+     * @param ids The movie IDs
+     * @param fields The fields to select
+     * @return List of sparse movie responses for the IDs on the user's watchlist
+     */
+    List<MovieResponse> findAllProjectedById(Long userId, Collection<Long> ids, Set<MovieField> fields);
+}
@@ -0,0 +1,103 @@
+package com.example.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.example.Dto.MovieField;
+import com.example.Dto.MovieResponse;
+import com.example.Model.Movie;
+import com.example.Model.WatchlistEntry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Criteria API implementation of {@link MovieProjectionRepository}.
+ * Queries start from the user's watchlist entries and join the catalogue movie.
+ */
+public class MovieProjectionRepositoryImpl implements MovieProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<MovieResponse> findAllProjected(Long userId, Set<MovieField> fields, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<WatchlistEntry> entry = query.from(WatchlistEntry.class);
+        Join<WatchlistEntry, Movie> movie = entry.join("movie");
+        query.multiselect(selections(entry, movie, fields));
+        query.where(cb.equal(entry.get("userId"), userId));
+        Sort sort = WatchlistEntryRepository.toEntryPageable(pageable).getSort();
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, entry, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<MovieResponse> content = toResponses(typedQuery.getResultList(), fields);
+
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public List<MovieResponse> findAllProjectedById(Long userId, Collection<Long> ids, Set<MovieField> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<WatchlistEntry> entry = query.from(WatchlistEntry.class);
+        Join<WatchlistEntry, Movie> movie = entry.join("movie");
+        query.multiselect(selections(entry, movie, fields));
+        query.where(cb.equal(entry.get("userId"), userId), entry.get("movieId").in(ids));
+        return toResponses(entityManager.createQuery(query).getResultList(), fields);
+    }
+
+    private static List<Selection<?>> selections(Root<WatchlistEntry> entry, Join<WatchlistEntry, Movie> movie,
+            Set<MovieField> fields) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (MovieField field : fields) {
+            Path<?> path = field == MovieField.WATCHED ? entry.get("watched") : movie.get(field.getAttribute());
+            selections.add(path.alias(field.getAttribute()));
+        }
+        return selections;
+    }
+
+    private static List<MovieResponse> toResponses(List<Tuple> tuples, Set<MovieField> fields) {
+        List<MovieResponse> responses = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<MovieField, Object> values = new EnumMap<>(MovieField.class);
+            for (MovieField field : fields) {
+                values.put(field, tuple.get(field.getAttribute()));
+            }
+            responses.add(MovieResponse.of(values));
+        }
+        return responses;
+    }
+}
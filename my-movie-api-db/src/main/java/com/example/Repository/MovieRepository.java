@@ -1,18 +1,29 @@
 package com.example.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.Event.MovieSnapshot;
 import com.example.Model.Movie;
 
+import jakarta.persistence.LockModeType;
+
 /**
  * Repository interface for Movie entity that extends JpaRepository.
- * Provides basic CRUD operations and custom query methods for movie data.
+ * Provides basic CRUD operations and custom query methods for the shared movie catalogue,
+ * plus the sparse-fieldset reads of {@link MovieProjectionRepository}.
+ * Reads of a user's watchlist go through {@link WatchlistEntryRepository}.
  */
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long> {
+public interface MovieRepository extends JpaRepository<Movie, Long>, MovieProjectionRepository {
     /**
      * Finds a movie by its title, ignoring case sensitivity.
      * This method is case-insensitive, so searching for "Inception" will match "inception" or "INCEPTION".
@@ -21,4 +32,84 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
      * @return Optional containing the movie if found, empty Optional if no movie matches
      */
     Optional<Movie> findByTitleIgnoreCase(String title);
+
+    /**
+     * Finds a catalogue movie by its external (IMDb) ID.
+     *
+     * @param movieId The external movie ID
+     * @return Optional containing the first movie with this ID, empty if none
+     */
+    Optional<Movie> findFirstByMovieId(Long movieId);
+
+    /**
+     * Loads a live catalogue movie and locks its row until the transaction ends, so a
+     * concurrent {@link #markDeleted} cannot turn it into a tombstone while a watchlist entry
+     * is being linked to it.
+     *
+     * @param id The movie's ID
+     * @return Optional containing the locked movie, empty if it is gone or a tombstone
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Movie m where m.id = :id and m.deletedAt is null")
+    Optional<Movie> findLiveByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Finds the movies linked to a TMDB movie.
+     *
+     * @param tmdbId The TMDB ID
+     * @return the matching movies, usually at most one
+     */
+    List<Movie> findByTmdbId(Long tmdbId);
+
+    /**
+     * Loads the TMDB IDs of every movie found in TMDB.
+     *
+     * @return the TMDB IDs
+     */
+    @Query("select distinct m.tmdbId from Movie m where m.tmdbId is not null")
+    List<Long> findAllTmdbIds();
+
+    /**
+     * Loads the indexed columns of one catalogue movie without materialising the entity or its
+     * images. The watched flag of catalogue snapshots is always false.
+     *
+     * @param id The movie's ID
+     * @return Optional containing the snapshot, empty if no live movie has this ID
+     */
+    @Query("select new com.example.Event.MovieSnapshot(m.id, m.title, m.year, m.director, m.genre, "
+            + "m.genreMask, false, m.tmdbId) from Movie m where m.id = :id")
+    Optional<MovieSnapshot> findSnapshotById(@Param("id") Long id);
+
+    /**
+     * Turns a movie no watchlist references any more into a tombstone with a single UPDATE.
+     * Its images and the row itself are removed later by {@link com.example.Service.MovieBlobPurger}.
+     *
+     * @param id The movie's ID
+     * @param deletedAt The deletion time
+     * @return 1 if the movie was live and unreferenced, 0 otherwise
+     */
+    @Modifying
+    @Query("update Movie m set m.deletedAt = :deletedAt, m.version = m.version + 1 "
+            + "where m.id = :id and m.deletedAt is null "
+            + "and not exists (select e from WatchlistEntry e where e.movieId = m.id)")
+    int markDeleted(@Param("id") Long id, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Loads the indexed columns of every catalogue movie without materialising entities or images.
+     * Used to build the in-memory indexes at startup.
+     *
+     * @return snapshots of all movies
+     */
+    @Query("select new com.example.Event.MovieSnapshot(m.id, m.title, m.year, m.director, m.genre, "
+            + "m.genreMask, false, m.tmdbId) from Movie m")
+    List<MovieSnapshot> findAllSnapshots();
+
+    /**
+     * Loads the similar movie adjacency lists of every movie as (movie ID, similar TMDB ID) pairs,
+     * ordered by movie and TMDB relevance.
+     *
+     * @return the adjacency list rows
+     */
+    @Query("select m.id, s from Movie m join m.similarTmdbIds s order by m.id, index(s)")
+    List<Object[]> findAllSimilarTmdbIds();
 }
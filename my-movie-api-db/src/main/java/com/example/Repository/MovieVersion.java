@@ -0,0 +1,26 @@
+package com.example.Repository;
+
+import java.time.Instant;
+
+/**
+ * Projection of the columns needed to answer conditional requests for a watchlist movie
+ * without loading the entity.
+ *
+ * @see WatchlistEntryRepository#findVersion(Long, Long)
+ */
+public interface MovieVersion {
+    /**
+     * Gets the version of the movie as the user sees it: the sum of the catalogue row version
+     * and the watchlist entry version, so it grows with a change to either.
+     *
+     * @return the version
+     */
+    long getVersion();
+
+    /**
+     * Gets the time of the last insert or update of the catalogue row or the watchlist entry.
+     *
+     * @return the last modification time, or null if unknown
+     */
+    Instant getUpdatedAt();
+}
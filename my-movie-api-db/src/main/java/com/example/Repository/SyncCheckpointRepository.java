@@ -0,0 +1,15 @@
+package com.example.Repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.Model.SyncCheckpoint;
+
+/**
+ * Repository interface for the checkpoints of background synchronisation jobs, keyed by job name.
+ *
+ * @see SyncCheckpoint
+ */
+@Repository
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, String> {
+}
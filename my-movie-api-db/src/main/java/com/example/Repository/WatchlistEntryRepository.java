@@ -0,0 +1,188 @@
+package com.example.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Event.MovieSnapshot;
+import com.example.Model.WatchlistEntry;
+
+/**
+ * Repository interface for the per-user watchlist entries, keyed by (user ID, movie ID).
+ * Every read is scoped to one user and served from that user's range of the primary key,
+ * so its cost depends on the size of the user's watchlist, not on the number of users.
+ *
+ * @see WatchlistEntry
+ */
+@Repository
+public interface WatchlistEntryRepository extends JpaRepository<WatchlistEntry, WatchlistEntry.Key> {
+    /**
+     * Sort properties that belong to the entry itself; any other property refers to the movie.
+     */
+    Set<String> ENTRY_ATTRIBUTES = Set.of("userId", "movieId", "watched", "addedAt");
+
+    /**
+     * Translates the sort of a movie page request to the entry queries, e.g. "title" to
+     * "movie.title", keeping "watched" and "addedAt" on the entry and "id" on its key.
+     *
+     * @param pageable Pagination parameters with movie sort properties
+     * @return the same page with entry sort properties
+     */
+    static Pageable toEntryPageable(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            return pageable;
+        }
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .map(order -> order.withProperty(entryProperty(order.getProperty())))
+                .toList());
+        return pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort)
+                : Pageable.unpaged(sort);
+    }
+
+    private static String entryProperty(String property) {
+        if ("id".equals(property)) {
+            return "movieId";
+        }
+        return ENTRY_ATTRIBUTES.contains(property) ? property : "movie." + property;
+    }
+
+    /**
+     * Finds a slice of a user's entries with their movies. One row more than the page size is
+     * read to tell whether a next slice exists; no count query is run.
+     *
+     * @param userId The user ID
+     * @param pageable Pagination parameters, sorted by entry properties
+     * @return Slice of entries with the movie loaded
+     * @see #toEntryPageable(Pageable)
+     */
+    @EntityGraph(attributePaths = "movie")
+    Slice<WatchlistEntry> findSliceByUserId(Long userId, Pageable pageable);
+
+    /**
+     * Finds a user's entries for the given movies with their movies, in unspecified order.
+     *
+     * @param userId The user ID
+     * @param movieIds The movie IDs
+     * @return the entries of the movies on the user's watchlist
+     */
+    @EntityGraph(attributePaths = "movie")
+    List<WatchlistEntry> findByUserIdAndMovieIdIn(Long userId, Collection<Long> movieIds);
+
+    /**
+     * Finds a slice of the movie titles on a user's watchlist without loading entities.
+     *
+     * @param userId The user ID
+     * @param pageable Pagination parameters, sorted by entry properties
+     * @return Slice of titles
+     */
+    @Query("select m.title from WatchlistEntry e join e.movie m where e.userId = :userId")
+    Slice<String> findTitles(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Loads the movie IDs and watched flags of a user's watchlist without loading any movie.
+     *
+     * @param userId The user ID
+     * @return (movie ID, watched) rows
+     */
+    @Query("select e.movieId, e.watched from WatchlistEntry e where e.userId = :userId")
+    List<Object[]> findWatchStates(@Param("userId") Long userId);
+
+    /**
+     * Checks whether a user's watchlist holds a movie with the given title, ignoring case.
+     *
+     * @param userId The user ID
+     * @param title The movie title
+     * @return true if the user already has the movie
+     */
+    @Query("select count(e) > 0 from WatchlistEntry e join e.movie m "
+            + "where e.userId = :userId and lower(m.title) = lower(:title)")
+    boolean existsByTitle(@Param("userId") Long userId, @Param("title") String title);
+
+    /**
+     * Finds the version and modification time of a movie as a user sees it, without loading
+     * the entities.
+     *
+     * @param userId The user ID
+     * @param movieId The movie's ID
+     * @return Optional containing the version projection, empty if the movie is not on the watchlist
+     */
+    @Query("select m.version + e.version as version, "
+            + "case when m.updatedAt is null or e.updatedAt > m.updatedAt then e.updatedAt else m.updatedAt end "
+            + "as updatedAt from WatchlistEntry e join e.movie m where e.userId = :userId and e.movieId = :movieId")
+    Optional<MovieVersion> findVersion(@Param("userId") Long userId, @Param("movieId") Long movieId);
+
+    /**
+     * Loads the indexed columns of a watchlist movie with the user's watched flag, without
+     * materialising the entities.
+     *
+     * @param userId The user ID
+     * @param movieId The movie's ID
+     * @return Optional containing the snapshot, empty if the movie is not on the watchlist
+     */
+    @Query("select new com.example.Event.MovieSnapshot(m.id, m.title, m.year, m.director, m.genre, "
+            + "m.genreMask, e.watched, m.tmdbId) from WatchlistEntry e join e.movie m "
+            + "where e.userId = :userId and e.movieId = :movieId")
+    Optional<MovieSnapshot> findSnapshot(@Param("userId") Long userId, @Param("movieId") Long movieId);
+
+    /**
+     * Removes a movie from a user's watchlist with a single DELETE.
+     *
+     * @param userId The user ID
+     * @param movieId The movie's ID
+     * @return 1 if the entry existed, 0 otherwise
+     */
+    @Modifying
+    @Query("delete from WatchlistEntry e where e.userId = :userId and e.movieId = :movieId")
+    int deleteEntry(@Param("userId") Long userId, @Param("movieId") Long movieId);
+
+    /**
+     * Counts a user's movies per watched status.
+     *
+     * @param userId The user ID
+     * @return (watched, count) rows
+     */
+    @Query("select e.watched, count(e) from WatchlistEntry e where e.userId = :userId group by e.watched")
+    List<Object[]> countByWatched(@Param("userId") Long userId);
+
+    /**
+     * Counts a user's movies per director.
+     *
+     * @param userId The user ID
+     * @return (director, count) rows
+     */
+    @Query("select m.director, count(e) from WatchlistEntry e join e.movie m "
+            + "where e.userId = :userId group by m.director")
+    List<Object[]> countByDirector(@Param("userId") Long userId);
+
+    /**
+     * Counts a user's movies per release year.
+     *
+     * @param userId The user ID
+     * @return (year, count) rows
+     */
+    @Query("select m.year, count(e) from WatchlistEntry e join e.movie m where e.userId = :userId group by m.year")
+    List<Object[]> countByYear(@Param("userId") Long userId);
+
+    /**
+     * Counts a user's movies per genre combination.
+     *
+     * @param userId The user ID
+     * @return (genre mask, genre names, count) rows
+     */
+    @Query("select m.genreMask, m.genre, count(e) from WatchlistEntry e join e.movie m "
+            + "where e.userId = :userId group by m.genreMask, m.genre")
+    List<Object[]> countByGenre(@Param("userId") Long userId);
+}
@@ -0,0 +1,166 @@
+package com.example.Service;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Genre;
+import com.example.Repository.MovieRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory bitmap index over the movie catalogue, keyed by movie database ID.
+ * Keeps one {@link BitSet} per {@link Genre}, so genre filters are answered with bitwise
+ * AND/OR instead of scanning the table. Genres are catalogue metadata shared by every user;
+ * callers intersect the result with the movies of one user's watchlist.
+ * Built once from the table and kept current from committed catalogue {@link MovieChangeEvent}s.
+ *
+ * @see MovieService#getMoviesByGenres
+ */
+@Component
+public class GenreIndex {
+    private static final Logger logger = LoggerFactory.getLogger(GenreIndex.class);
+
+    private final MovieRepository movieRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BitSet[] byGenre = newGenreBitSets();
+    private BitSet all = new BitSet();
+
+    public GenreIndex(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * Rebuilds the index from the movies table.
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<MovieSnapshot> movies = movieRepository.findAllSnapshots();
+            byGenre = newGenreBitSets();
+            all = new BitSet();
+            for (MovieSnapshot movie : movies) {
+                add(movie);
+            }
+            logger.info("Genre index built for {} movies", all.cardinality());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed catalogue change to the index. Watchlist changes leave genres as they are.
+     *
+     * @param event the change to apply
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        if (!event.isCatalogueChange()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.before() != null) {
+                remove(event.before());
+            }
+            if (event.after() != null) {
+                add(event.after());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the IDs of catalogue movies matching a genre mask.
+     * An empty mask matches every movie.
+     *
+     * @param genreMask the genres to match, see {@link Genre#maskOf}
+     * @param matchAll true if a movie needs every genre, false if any one genre is enough
+     * @return a new bitset of matching movie IDs owned by the caller
+     */
+    public BitSet match(long genreMask, boolean matchAll) {
+        lock.readLock().lock();
+        try {
+            BitSet result;
+            if (genreMask == 0L) {
+                result = (BitSet) all.clone();
+            } else if (matchAll) {
+                result = (BitSet) all.clone();
+                for (Genre genre : Genre.fromMask(genreMask)) {
+                    result.and(byGenre[genre.ordinal()]);
+                }
+            } else {
+                result = new BitSet();
+                for (Genre genre : Genre.fromMask(genreMask)) {
+                    result.or(byGenre[genre.ordinal()]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(MovieSnapshot movie) {
+        int bit = bitOf(movie.id());
+        if (bit < 0) {
+            return;
+        }
+        all.set(bit);
+        for (Genre genre : Genre.fromMask(effectiveMask(movie))) {
+            byGenre[genre.ordinal()].set(bit);
+        }
+    }
+
+    private void remove(MovieSnapshot movie) {
+        int bit = bitOf(movie.id());
+        if (bit < 0) {
+            return;
+        }
+        all.clear(bit);
+        for (BitSet genreBits : byGenre) {
+            genreBits.clear(bit);
+        }
+    }
+
+    /**
+     * Rows stored before the mask column existed only carry the genre names.
+     */
+    private static long effectiveMask(MovieSnapshot movie) {
+        return movie.genreMask() != 0L ? movie.genreMask() : Genre.maskOfNames(movie.genre());
+    }
+
+    /**
+     * Gets the bit of a movie ID in the index bitsets.
+     *
+     * @param id the movie's database ID
+     * @return the bit index, or -1 if the ID does not fit
+     */
+    static int bitOf(Long id) {
+        if (id == null || id < 0 || id > Integer.MAX_VALUE) {
+            logger.warn("Movie ID {} cannot be indexed", id);
+            return -1;
+        }
+        return id.intValue();
+    }
+
+    private static BitSet[] newGenreBitSets() {
+        BitSet[] bitSets = new BitSet[Genre.values().length];
+        for (int i = 0; i < bitSets.length; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.example.Model.DownloadedImage;
+
+/**
+ * Downloads images into temporary files through a fixed-size buffer, so the heap used per
+ * image does not depend on the image size. The SHA-256 digest is computed while streaming,
+ * the content type is sniffed from the first bytes, and downloads above the configured
+ * maximum size are aborted.
+ */
+@Component
+public class ImageDownloader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxBytes;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public ImageDownloader(
+            @Value("${movies.images.max-bytes:10485760}") long maxBytes,
+            @Value("${movies.images.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${movies.images.read-timeout-ms:15000}") int readTimeoutMs) {
+        this.maxBytes = maxBytes;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Downloads an image into a temporary file. The caller owns the file and must
+     * {@link DownloadedImage#discard() discard} it.
+     *
+     * @param imageUrl The URL of the image
+     * @param imageType The image type to record (e.g., "POSTER")
+     * @return the downloaded image
+     * @throws IOException if the download fails, exceeds the maximum size or is not an image
+     */
+    public DownloadedImage download(String imageUrl, String imageType) throws IOException {
+        URLConnection connection = URI.create(imageUrl).toURL().openConnection();
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        long declaredLength = connection.getContentLengthLong();
+        if (declaredLength > maxBytes) {
+            throw new IOException("Image of " + declaredLength + " bytes exceeds the limit of " + maxBytes + " bytes");
+        }
+
+        Path file = Files.createTempFile("movie-image-", ".tmp");
+        try (InputStream in = new DigestInputStream(connection.getInputStream(), sha256());
+             OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            String contentType = null;
+            long length = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (contentType == null) {
+                    contentType = sniffContentType(buffer, read);
+                }
+                length += read;
+                if (length > maxBytes) {
+                    throw new IOException("Image exceeds the limit of " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            if (contentType == null) {
+                throw new IOException("Downloaded image is empty");
+            }
+            String digest = HexFormat.of().formatHex(((DigestInputStream) in).getMessageDigest().digest());
+            return new DownloadedImage(imageType, file, contentType, length, digest);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Detects the image format from its magic number. Only the first chunk is inspected,
+     * which always holds the 12 bytes needed unless the whole image is shorter.
+     *
+     * @return the MIME type
+     * @throws IOException if the bytes are not a supported image
+     */
+    static String sniffContentType(byte[] bytes, int length) throws IOException {
+        if (startsWith(bytes, length, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(bytes, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (startsWith(bytes, length, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (length >= 12 && startsWith(bytes, length, 'R', 'I', 'F', 'F')
+                && bytes[8] == 'W' && bytes[9] == 'E' && bytes[10] == 'B' && bytes[11] == 'P') {
+            return "image/webp";
+        }
+        throw new IOException("Downloaded file is not a supported image");
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((bytes[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
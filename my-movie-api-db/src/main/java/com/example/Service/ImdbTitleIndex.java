@@ -0,0 +1,486 @@
+package com.example.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Optional local title resolver built from the public IMDb dataset files
+ * ({@code title.basics}, {@code title.crew}, {@code name.basics} and, if present,
+ * {@code title.ratings}, each as {@code .tsv.gz} or {@code .tsv}).
+ * <p>
+ * The dataset files are read line by line, keeping only feature films and the names of their
+ * directors, and written to a compact index file: a table of record offsets sorted by the
+ * normalized title, followed by the records. The index file is memory-mapped, so a lookup is a
+ * binary search over the mapped bytes without reading the file or building objects per probe.
+ * <p>
+ * Titles shared by several films resolve to the one with the most votes when ratings are
+ * available; without ratings they are left out, so the caller asks the API instead of guessing.
+ * The index is rebuilt in the background when a dataset file is newer than it; until it is
+ * mapped every lookup is a miss.
+ *
+ * @see OMDbService#fetchMovieData(String)
+ */
+@Component
+public class ImdbTitleIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ImdbTitleIndex.class);
+
+    private static final String METRIC_PREFIX = "movies.imdb";
+    private static final int MAGIC = 0x494D4931;
+    private static final int HEADER_BYTES = 8;
+    private static final String MISSING = "\\N";
+
+    /**
+     * A locally resolved film.
+     *
+     * @param imdbId the numeric part of the IMDb ID ({@code tt0133093} is 133093)
+     * @param title the primary title
+     * @param year the release year, or null
+     * @param director the comma separated director names, or null
+     */
+    public record Title(long imdbId, String title, String year, String director) {
+    }
+
+    private final Path datasetDir;
+    private final Path indexFile;
+
+    private volatile MappedByteBuffer index;
+    private volatile int count;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ImdbTitleIndex(
+            MeterRegistry meterRegistry,
+            @Value("${movies.imdb.dataset-dir:}") String datasetDir,
+            @Value("${movies.imdb.index-file:imdb-index/titles.idx}") Path indexFile) {
+        this.datasetDir = datasetDir.isBlank() ? null : Path.of(datasetDir);
+        this.indexFile = indexFile;
+        this.hits = Counter.builder(METRIC_PREFIX + ".lookups")
+                .description("Title lookups in the local IMDb index")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder(METRIC_PREFIX + ".lookups")
+                .description("Title lookups in the local IMDb index")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".titles", this, ImdbTitleIndex::size)
+                .description("Titles in the mapped local IMDb index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maps the index if it is current, and otherwise rebuilds it on a background thread.
+     * Does nothing unless a dataset directory is configured.
+     */
+    @PostConstruct
+    public void open() {
+        if (datasetDir == null) {
+            return;
+        }
+        try {
+            if (isCurrent()) {
+                map();
+                return;
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot use the local IMDb index {}, rebuilding it: {}", indexFile, e.getMessage());
+        }
+        Thread builder = new Thread(() -> {
+            try {
+                build(datasetDir, indexFile);
+                map();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Building the local IMDb index from {} failed, titles resolve through OMDb: {}",
+                        datasetDir, e.getMessage());
+            }
+        }, "imdb-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * @return the number of titles in the mapped index, 0 if none is mapped
+     */
+    public int size() {
+        return index != null ? count : 0;
+    }
+
+    /**
+     * Looks up a film by title, ignoring case and surrounding or repeated whitespace.
+     *
+     * @param title the title to look up
+     * @return the film, empty if the index is not mapped or has no unambiguous film with the title
+     */
+    public Optional<Title> find(String title) {
+        MappedByteBuffer buffer = index;
+        if (buffer == null || title == null) {
+            return Optional.empty();
+        }
+        byte[] key = normalize(title).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(HEADER_BYTES + mid * 4);
+            int compared = compareKey(buffer, offset, key);
+            if (compared < 0) {
+                low = mid + 1;
+            } else if (compared > 0) {
+                high = mid - 1;
+            } else {
+                hits.increment();
+                return Optional.of(readTitle(buffer, offset));
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Builds the index file from the dataset files, replacing it atomically when done.
+     *
+     * @param datasetDir the directory with the IMDb dataset files
+     * @param indexFile the index file to write
+     * @return the number of indexed titles
+     * @throws IOException if a dataset file cannot be read or the index cannot be written
+     */
+    public static int build(Path datasetDir, Path indexFile) throws IOException {
+        long started = System.nanoTime();
+        Films films = readBasics(datasetFile(datasetDir, "title.basics", true));
+        readCrew(datasetFile(datasetDir, "title.crew", true), films);
+        Path ratings = datasetFile(datasetDir, "title.ratings", false);
+        if (ratings != null) {
+            readRatings(ratings, films);
+        }
+        Map<Integer, String> names = readNames(datasetFile(datasetDir, "name.basics", true), films);
+
+        List<Film> resolved = resolveDuplicates(films, ratings != null);
+        List<byte[]> keys = new ArrayList<>(resolved.size());
+        List<byte[]> records = new ArrayList<>(resolved.size());
+        for (Film film : resolved) {
+            keys.add(film.key);
+            records.add(encode(film, names));
+        }
+
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, indexFile.getFileName().toString(), ".building");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(resolved.size());
+            long offset = HEADER_BYTES + 4L * resolved.size();
+            for (int i = 0; i < resolved.size(); i++) {
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("IMDb index exceeds 2 GB");
+                }
+                out.writeInt((int) offset);
+                offset += 2 + keys.get(i).length + records.get(i).length;
+            }
+            for (int i = 0; i < resolved.size(); i++) {
+                out.writeShort(keys.get(i).length);
+                out.write(keys.get(i));
+                out.write(records.get(i));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Built local IMDb index with {} of {} films in {} ms", resolved.size(), films.list.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return resolved.size();
+    }
+
+    /**
+     * Normalizes a title for lookups: trimmed, whitespace collapsed and lower case.
+     */
+    static String normalize(String title) {
+        return title.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isCurrent() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        FileTime built = Files.getLastModifiedTime(indexFile);
+        for (String name : new String[] {"title.basics", "title.crew", "title.ratings", "name.basics"}) {
+            Path file = datasetFile(datasetDir, name, false);
+            if (file != null && Files.getLastModifiedTime(file).compareTo(built) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an IMDb index: " + indexFile);
+            }
+            count = buffer.getInt(4);
+            index = buffer;
+        }
+        logger.info("Mapped local IMDb index {} with {} titles", indexFile, count);
+    }
+
+    /**
+     * Compares the key stored at an offset with a lookup key as unsigned bytes, the build order.
+     */
+    private static int compareKey(ByteBuffer buffer, int offset, byte[] key) {
+        int length = Short.toUnsignedInt(buffer.getShort(offset));
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int compared = Byte.compareUnsigned(buffer.get(offset + 2 + i), key[i]);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Record layout after the key: IMDb ID, then title, year and director as length-prefixed
+     * UTF-8 with -1 for null.
+     */
+    private static byte[] encode(Film film, Map<Integer, String> names) {
+        String director = null;
+        if (film.directors != null) {
+            StringBuilder joined = new StringBuilder();
+            for (int id : film.directors) {
+                String name = names.get(id);
+                if (name != null) {
+                    joined.append(joined.isEmpty() ? "" : ", ").append(name);
+                }
+            }
+            director = joined.isEmpty() ? null : joined.toString();
+        }
+        ByteBuffer record = ByteBuffer.allocate(4 + encodedLength(film.title) + encodedLength(film.year)
+                + encodedLength(director));
+        record.putInt(film.id);
+        putString(record, film.title);
+        putString(record, film.year);
+        putString(record, director);
+        return record.array();
+    }
+
+    private static Title readTitle(ByteBuffer buffer, int offset) {
+        int position = offset + 2 + Short.toUnsignedInt(buffer.getShort(offset));
+        long imdbId = buffer.getInt(position);
+        position += 4;
+        String[] values = new String[3];
+        for (int i = 0; i < values.length; i++) {
+            int length = buffer.getInt(position);
+            position += 4;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                buffer.get(position, bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+        return new Title(imdbId, values[0], values[1], values[2]);
+    }
+
+    private static int encodedLength(String value) {
+        return 4 + (value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * A film kept from {@code title.basics}, completed by the later files.
+     */
+    private static final class Film {
+        private final int id;
+        private final String title;
+        private final String year;
+        private final byte[] key;
+        private int[] directors;
+        private int votes;
+
+        private Film(int id, String title, String year) {
+            this.id = id;
+            this.title = title;
+            this.year = year;
+            this.key = normalize(title).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The films of {@code title.basics}, sorted by ID for joining the other files.
+     */
+    private static final class Films {
+        private final List<Film> list = new ArrayList<>();
+        private int[] ids;
+
+        private Film byId(int id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? list.get(index) : null;
+        }
+    }
+
+    private static Films readBasics(Path file) throws IOException {
+        Films films = new Films();
+        forEachRow(file, 9, columns -> {
+            if ("movie".equals(columns[1]) && !"1".equals(columns[4]) && !MISSING.equals(columns[2])) {
+                films.list.add(new Film(numericId(columns[0]), columns[2],
+                        MISSING.equals(columns[5]) ? null : columns[5]));
+            }
+        });
+        films.list.sort(Comparator.comparingInt(film -> film.id));
+        films.ids = films.list.stream().mapToInt(film -> film.id).toArray();
+        return films;
+    }
+
+    private static void readCrew(Path file, Films films) throws IOException {
+        forEachRow(file, 2, columns -> {
+            Film film = films.byId(numericId(columns[0]));
+            if (film != null && !MISSING.equals(columns[1])) {
+                film.directors = Arrays.stream(columns[1].split(",")).mapToInt(ImdbTitleIndex::numericId).toArray();
+            }
+        });
+    }
+
+    private static void readRatings(Path file, Films films) throws IOException {
+        forEachRow(file, 3, columns -> {
+            Film film = films.byId(numericId(columns[0]));
+            if (film != null) {
+                film.votes = Integer.parseInt(columns[2]);
+            }
+        });
+    }
+
+    private static Map<Integer, String> readNames(Path file, Films films) throws IOException {
+        int[] wanted = films.list.stream()
+                .filter(film -> film.directors != null)
+                .flatMapToInt(film -> Arrays.stream(film.directors))
+                .sorted()
+                .distinct()
+                .toArray();
+        Map<Integer, String> names = new HashMap<>(wanted.length * 4 / 3 + 1);
+        forEachRow(file, 2, columns -> {
+            int id = numericId(columns[0]);
+            if (Arrays.binarySearch(wanted, id) >= 0 && !MISSING.equals(columns[1])) {
+                names.put(id, columns[1]);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * Sorts the films by key and keeps one film per key: the most voted one if ratings were
+     * read, none if the key is ambiguous without them.
+     */
+    private static List<Film> resolveDuplicates(Films films, boolean rated) {
+        List<Film> sorted = new ArrayList<>(films.list);
+        sorted.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+        List<Film> resolved = new ArrayList<>(sorted.size());
+        for (int start = 0; start < sorted.size(); ) {
+            int end = start + 1;
+            Film best = sorted.get(start);
+            while (end < sorted.size() && Arrays.equals(sorted.get(end).key, best.key)) {
+                if (sorted.get(end).votes > best.votes) {
+                    best = sorted.get(end);
+                }
+                end++;
+            }
+            if (end - start == 1 || (rated && best.votes > 0)) {
+                resolved.add(best);
+            }
+            start = end;
+        }
+        return resolved;
+    }
+
+    private interface RowHandler {
+        void accept(String[] columns);
+    }
+
+    /**
+     * Streams the rows of a dataset file after its header line, splitting only the leading columns.
+     */
+    private static void forEachRow(Path file, int columnCount, RowHandler handler) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             InputStream in = file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            String[] columns = new String[columnCount];
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = 0;
+                int column = 0;
+                while (column < columnCount) {
+                    int tab = line.indexOf('\t', start);
+                    columns[column++] = line.substring(start, tab < 0 ? line.length() : tab);
+                    if (tab < 0) {
+                        break;
+                    }
+                    start = tab + 1;
+                }
+                if (column == columnCount) {
+                    handler.accept(columns);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of an IMDb ID such as {@code tt0133093} or {@code nm0905154}
+     */
+    private static int numericId(String id) {
+        return Integer.parseInt(id, 2, id.length(), 10);
+    }
+
+    private static Path datasetFile(Path directory, String name, boolean required) throws IOException {
+        for (String suffix : new String[] {".tsv.gz", ".tsv"}) {
+            Path file = directory.resolve(name + suffix);
+            if (Files.exists(file)) {
+                return file;
+            }
+        }
+        if (required) {
+            throw new IOException("Missing IMDb dataset file " + name + ".tsv.gz in " + directory);
+        }
+        return null;
+    }
+}
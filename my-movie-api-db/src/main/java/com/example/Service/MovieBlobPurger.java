@@ -0,0 +1,145 @@
+package com.example.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Background removal of deleted movies.
+ * <p>
+ * {@link MovieService#deleteMovie} only marks the row as deleted. This job picks up the
+ * tombstones no watchlist entry references any more, oldest first, and removes their image rows in batches of at most
+ * {@code movies.purge.batch-size}, then the similar movie rows and finally the movie row. Every
+ * statement commits on its own, so no statement holds locks on more than one batch, and the
+ * image blobs are never read. The tombstone is the only state: after a restart the job simply
+ * continues with the rows that are still there. A tombstone that is still referenced, which
+ * only happens when an add races the removal of the last reference, is left alone.
+ * <p>
+ * Plain SQL is used because tombstones are invisible to JPA.
+ */
+@Component
+public class MovieBlobPurger {
+    private static final Logger logger = LoggerFactory.getLogger(MovieBlobPurger.class);
+
+    private static final String UNREFERENCED =
+            "not exists (select 1 from watchlist_entries e where e.movie_id = movies.id)";
+
+    private static final String METRIC_PREFIX = "movies.purge";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxMoviesPerRun;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter imagesPurged;
+    private final Counter moviesPurged;
+    private final Timer batchTimer;
+
+    public MovieBlobPurger(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${movies.purge.enabled:true}") boolean enabled,
+            @Value("${movies.purge.batch-size:20}") int batchSize,
+            @Value("${movies.purge.max-movies-per-run:100}") int maxMoviesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxMoviesPerRun = Math.max(maxMoviesPerRun, 1);
+        this.imagesPurged = Counter.builder(METRIC_PREFIX + ".images")
+                .description("Image rows removed from deleted movies")
+                .register(meterRegistry);
+        this.moviesPurged = Counter.builder(METRIC_PREFIX + ".movies")
+                .description("Deleted movie rows removed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder(METRIC_PREFIX + ".batch")
+                .description("Latency of one image purge batch")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".backlog", backlog, AtomicLong::get)
+                .description("Deleted movies waiting to be purged at the start of the last run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Purges up to {@code movies.purge.max-movies-per-run} deleted movies. Failures are logged
+     * and the remaining rows are retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${movies.purge.interval-ms:10000}",
+            initialDelayString = "${movies.purge.initial-delay-ms:10000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            purgeTombstones();
+        } catch (DataAccessException e) {
+            logger.warn("Purging deleted movies failed, retrying next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Purges up to {@code movies.purge.max-movies-per-run} deleted movies.
+     *
+     * @return the number of movie rows removed
+     */
+    public int purgeTombstones() {
+        Map<String, Object> none = Map.of();
+        backlog.set(jdbcTemplate.queryForObject(
+                "select count(*) from movies where deleted_at is not null and " + UNREFERENCED, none, Long.class));
+        if (backlog.get() == 0) {
+            return 0;
+        }
+        List<Long> movieIds = jdbcTemplate.queryForList(
+                "select id from movies where deleted_at is not null and " + UNREFERENCED
+                        + " order by deleted_at, id limit :limit",
+                Map.of("limit", maxMoviesPerRun), Long.class);
+        int purged = 0;
+        for (Long movieId : movieIds) {
+            int images = purgeImages(movieId);
+            jdbcTemplate.update("delete from movie_similar where movie_id = :movieId", Map.of("movieId", movieId));
+            int removed = jdbcTemplate.update("delete from movies where id = :movieId and deleted_at is not null",
+                    Map.of("movieId", movieId));
+            moviesPurged.increment(removed);
+            purged += removed;
+            logger.debug("Purged deleted movie {} with {} images", movieId, images);
+        }
+        backlog.addAndGet(-purged);
+        if (purged > 0) {
+            logger.info("Purged {} deleted movies", purged);
+        }
+        return purged;
+    }
+
+    /**
+     * Removes the image rows of a movie, one batch per statement, selecting IDs first so the
+     * blobs are never read.
+     */
+    private int purgeImages(Long movieId) {
+        int removed = 0;
+        while (true) {
+            List<Long> imageIds = jdbcTemplate.queryForList(
+                    "select id from movie_images where movie_id = :movieId limit :limit",
+                    Map.of("movieId", movieId, "limit", batchSize), Long.class);
+            if (imageIds.isEmpty()) {
+                return removed;
+            }
+            int deleted = batchTimer.record(() -> jdbcTemplate.update(
+                    "delete from movie_images where id in (:ids)", Map.of("ids", imageIds)));
+            imagesPurged.increment(deleted);
+            removed += deleted;
+        }
+    }
+}
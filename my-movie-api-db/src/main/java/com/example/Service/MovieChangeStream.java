@@ -0,0 +1,303 @@
+package com.example.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.example.Dto.MovieChange;
+import com.example.Event.MovieChangeEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-Sent Events stream of committed watchlist changes.
+ * <p>
+ * Every committed {@link MovieChangeEvent} gets a sequence number and is kept in a fixed-size
+ * ring buffer, so a reconnecting client that sends {@code Last-Event-ID} receives the events it
+ * missed. Clients whose ID is too old or from a previous process receive a {@code reset} event
+ * and should reload the watchlist.
+ * <p>
+ * Each subscriber belongs to one user and receives the changes of that user's watchlist plus
+ * catalogue metadata updates, which show in every watchlist holding the movie. Catalogue
+ * additions and deletions are not sent: they always come with a watchlist change of their own.
+ * The buffer is shared by all users, so it covers a shorter period of a user's changes the
+ * busier the other users are.
+ * <p>
+ * Subscribers are async {@link SseEmitter}s, so an idle connection holds no request thread.
+ * Appending, replaying and broadcasting all run on one dispatcher thread, which keeps the
+ * per-subscriber event order without duplicates between replay and broadcast. The dispatcher
+ * never writes to a connection itself: it queues events per subscriber, and a small fixed pool
+ * of sender threads drains the queues, at most one task per subscriber at a time. A slow client
+ * occupies a sender thread only while a write to it blocks, and a subscriber that falls a whole
+ * buffer behind is disconnected; it resumes from its last event ID, or gets a reset.
+ */
+@Component
+public class MovieChangeStream {
+    private static final Logger logger = LoggerFactory.getLogger(MovieChangeStream.class);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "movie-change-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService sender;
+
+    /* Dispatcher thread state */
+    private final Entry[] ring;
+    private long lastSequence;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private final long emitterTimeoutMs;
+
+    public MovieChangeStream(
+            @Value("${movies.changes.buffer-size:1024}") int bufferSize,
+            @Value("${movies.changes.timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${movies.changes.sender-threads:4}") int senderThreads) {
+        this.ring = new Entry[bufferSize];
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "movie-change-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private record Entry(long sequence, Long userId, MovieChange change) {
+        /**
+         * @return true if the change is visible to the user
+         */
+        boolean isVisibleTo(long subscriberId) {
+            return userId != null ? userId == subscriberId : change.type() == MovieChangeEvent.Type.UPDATED;
+        }
+    }
+
+    /**
+     * A connected client with its queue of events not yet sent. Events are offered by the
+     * dispatcher and sent by at most one sender task at a time, in order.
+     */
+    private final class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues an event for sending.
+         *
+         * @return false if the subscriber is closed, or now closed for falling a buffer behind
+         */
+        boolean offer(SseEventBuilder event) {
+            boolean behind;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                behind = pending.size() >= ring.length;
+                if (behind) {
+                    closed = true;
+                    pending.clear();
+                } else {
+                    pending.add(event);
+                    if (draining) {
+                        return true;
+                    }
+                    draining = true;
+                }
+            }
+            if (behind) {
+                logger.debug("Change stream subscriber of user {} fell behind, disconnecting", userId);
+                emitter.complete();
+                return false;
+            }
+            try {
+                sender.execute(this::drain);
+                return true;
+            } catch (RejectedExecutionException e) {
+                close();
+                return false;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEventBuilder event;
+                synchronized (this) {
+                    event = closed ? null : pending.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    synchronized (this) {
+                        closed = true;
+                        pending.clear();
+                        draining = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            emitter.complete();
+        }
+    }
+
+    /**
+     * Opens a change stream of a user's watchlist, replaying buffered events after the given event ID.
+     *
+     * @param userId the user ID
+     * @param lastEventId the Last-Event-ID sent by a reconnecting client, or null for a new stream
+     * @return the emitter for the client
+     */
+    public SseEmitter subscribe(long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> dispatch(() -> subscribers.remove(subscriber)));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+        boolean dispatched = dispatch(() -> {
+            if (lastEventId != null && !replay(subscriber, lastEventId)) {
+                return;
+            }
+            subscribers.add(subscriber);
+        });
+        if (!dispatched) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Appends a committed change to the buffer and sends it to every subscriber it is visible to.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        MovieChange change = MovieChange.of(event);
+        dispatch(() -> {
+            Entry entry = new Entry(++lastSequence, event.userId(), change);
+            ring[(int) (entry.sequence() % ring.length)] = entry;
+            for (Iterator<Subscriber> it = subscribers.iterator(); it.hasNext(); ) {
+                Subscriber subscriber = it.next();
+                if (entry.isVisibleTo(subscriber.userId) && !subscriber.offer(event(entry))) {
+                    it.remove();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends a comment to every subscriber so dead connections are detected and proxies keep
+     * idle streams open.
+     */
+    @Scheduled(fixedDelayString = "${movies.changes.heartbeat-ms:30000}")
+    public void heartbeat() {
+        dispatch(() -> subscribers.removeIf(subscriber -> !subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatch(() -> {
+            subscribers.forEach(Subscriber::close);
+            subscribers.clear();
+        });
+        dispatcher.shutdown();
+        sender.shutdown();
+    }
+
+    /**
+     * Runs a task on the dispatcher thread. Emitters completing during or after shutdown and
+     * changes committed meanwhile are dropped.
+     *
+     * @return false if the dispatcher is shut down
+     */
+    private boolean dispatch(Runnable task) {
+        try {
+            dispatcher.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Change stream is shut down, dropping task");
+            return false;
+        }
+    }
+
+    /**
+     * Sends the buffered events after the given ID that are visible to the subscriber, or a reset
+     * event if they are no longer buffered.
+     *
+     * @return true if the emitter is still usable
+     */
+    private boolean replay(Subscriber subscriber, String lastEventId) {
+        long from = parseSequence(lastEventId);
+        long oldest = Math.max(1, lastSequence - ring.length + 1);
+        if (from < 0 || from > lastSequence || from + 1 < oldest) {
+            logger.debug("Cannot resume change stream from {}, sending reset", lastEventId);
+            return subscriber.offer(SseEmitter.event().id(eventId(lastSequence)).name("reset").data(""));
+        }
+        for (long sequence = from + 1; sequence <= lastSequence; sequence++) {
+            Entry entry = ring[(int) (sequence % ring.length)];
+            if (entry.isVisibleTo(subscriber.userId) && !subscriber.offer(event(entry))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SseEventBuilder event(Entry entry) {
+        return SseEmitter.event()
+                .id(eventId(entry.sequence()))
+                .name(entry.change().type().name().toLowerCase())
+                .data(entry.change(), MediaType.APPLICATION_JSON);
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @return the sequence number of an event ID from this process, or -1
+     */
+    private long parseSequence(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
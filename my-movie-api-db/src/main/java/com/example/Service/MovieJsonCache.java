@@ -0,0 +1,231 @@
+package com.example.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Dto.MovieField;
+import com.example.Event.MovieChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of encoded JSON responses for single movies and unfiltered movie pages, so hot reads
+ * skip Jackson and, for clients accepting gzip, compression.
+ * <p>
+ * Keys contain the user and the version the response was built for: the movie version the user
+ * sees for a movie and the watchlist ETag for a page. A stale entry can therefore never be
+ * served, even when it is stored after a concurrent change. A committed watchlist
+ * {@link MovieChangeEvent} evicts the user's entries of the changed movie and all of the user's
+ * pages, since the change moves the user's watchlist ETag; a catalogue update does the same for
+ * every user. The cache holds at most {@code movies.response-cache.max-entries} entries and
+ * drops the least recently used.
+ */
+@Component
+public class MovieJsonCache {
+
+    private static final String METRIC_PREFIX = "movies.response-cache";
+    private static final String MOVIE_PREFIX = "movie|";
+    private static final String PAGE_PREFIX = "page|";
+
+    /**
+     * An encoded response.
+     *
+     * @param json the JSON bytes
+     * @param gzip the gzip-compressed JSON, or null if the JSON is too small to be worth it
+     */
+    public record Entry(byte[] json, byte[] gzip) {
+        /**
+         * @return the encoded size of the entry in bytes
+         */
+        public long size() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int gzipMinBytes;
+
+    /* Guarded by itself */
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MovieJsonCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${movies.response-cache.enabled:true}") boolean enabled,
+            @Value("${movies.response-cache.max-entries:10000}") int maxEntries,
+            @Value("${movies.response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzipMinBytes = gzipMinBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder(METRIC_PREFIX + ".hits")
+                .description("Responses served from encoded JSON")
+                .register(meterRegistry);
+        this.misses = Counter.builder(METRIC_PREFIX + ".misses")
+                .description("Cacheable responses that had to be serialized")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", this, MovieJsonCache::entryCount)
+                .description("Encoded responses in the cache")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".bytes", this, MovieJsonCache::byteCount)
+                .description("Size of the encoded responses in the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the key of a single movie response.
+     *
+     * @param userId the user the response was built for
+     * @param id the movie's ID
+     * @param version the movie version the response shows
+     * @param fields the selected fields, or null for the full representation
+     * @return the cache key
+     */
+    public static String movieKey(long userId, Long id, long version, Set<MovieField> fields) {
+        return MOVIE_PREFIX + id + "|" + userId + "|" + version + "|" + fieldsKey(fields);
+    }
+
+    /**
+     * Builds the key of an unfiltered movie page response.
+     *
+     * @param userId the user the response was built for
+     * @param watchlistETag the watchlist ETag read before the page was loaded
+     * @param pageable the page parameters
+     * @param fields the selected fields, or null for the full representation
+     * @param total whether the response is a page with totals or a slice
+     * @return the cache key
+     */
+    public static String pageKey(long userId, String watchlistETag, Pageable pageable, Set<MovieField> fields,
+            boolean total) {
+        String page = pageable.isPaged()
+                ? pageable.getPageNumber() + "|" + pageable.getPageSize()
+                : "unpaged";
+        return PAGE_PREFIX + userId + "|" + watchlistETag + "|" + page + "|" + pageable.getSort()
+                + "|" + fieldsKey(fields) + "|" + total;
+    }
+
+    /**
+     * Gets an encoded response.
+     *
+     * @param key the cache key
+     * @return the entry, or null if it is not cached
+     */
+    public Entry get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    /**
+     * Encodes a response body with the application's ObjectMapper and caches it.
+     *
+     * @param key the cache key
+     * @param body the response body
+     * @return the entry
+     */
+    public Entry put(String key, Object body) {
+        Entry entry = encode(body);
+        if (enabled) {
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Evicts the entries made stale by a committed change: those of the movie and the pages of
+     * the user, or of every user for a catalogue update. Catalogue additions and deletions are
+     * always accompanied by a watchlist change and evict nothing by themselves.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        String moviePrefix;
+        String pagePrefix;
+        if (event.isCatalogueChange()) {
+            if (event.type() != MovieChangeEvent.Type.UPDATED) {
+                return;
+            }
+            moviePrefix = MOVIE_PREFIX + event.movieId() + "|";
+            pagePrefix = PAGE_PREFIX;
+        } else {
+            moviePrefix = MOVIE_PREFIX + event.movieId() + "|" + event.userId() + "|";
+            pagePrefix = PAGE_PREFIX + event.userId() + "|";
+        }
+        synchronized (entries) {
+            for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+                String key = it.next();
+                if (key.startsWith(pagePrefix) || key.startsWith(moviePrefix)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private Entry encode(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Entry(json, json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String fieldsKey(Set<MovieField> fields) {
+        return fields == null ? "*" : fields.stream().map(MovieField::name).sorted().collect(Collectors.joining(","));
+    }
+
+    private int entryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long byteCount() {
+        synchronized (entries) {
+            return entries.values().stream().mapToLong(Entry::size).sum();
+        }
+    }
+}
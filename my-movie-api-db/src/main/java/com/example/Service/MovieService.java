@@ -1,26 +1,55 @@
 package com.example.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.Dto.MovieBatch;
+import com.example.Dto.MovieField;
+import com.example.Dto.MovieResponse;
+import com.example.Dto.WatchHistory;
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.DownloadedImage;
+import com.example.Model.Genre;
 import com.example.Model.Movie;
+import com.example.Model.WatchlistEntry;
+import com.example.Repository.MovieImageRepository;
 import com.example.Repository.MovieRepository;
+import com.example.Repository.MovieVersion;
+import com.example.Repository.WatchlistEntryRepository;
 /*import com.example.Service.OMDbService;
 import com.example.Service.TMDBService;/* */
 
 /**
  * Service class that manages movie operations by integrating data from both OMDb and TMDB APIs.
  * Handles movie creation, updates, and deletion with data merging.
+ * Every operation is scoped to one user's watchlist: movie metadata is stored once in a shared
+ * catalogue, and per-user state such as the watched status lives in {@link WatchlistEntry}.
+ * Database reads run in read-only transactions, which are served by a read replica when
+ * replicas are configured.
  */
 @Service
 public class MovieService {
@@ -29,40 +58,171 @@ public class MovieService {
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private WatchlistEntryRepository watchlistEntryRepository;
+
+    @Autowired
+    private MovieImageRepository movieImageRepository;
+
     @Autowired
     private OMDbService omdbService;
 
     @Autowired
     private TMDBService tmdbService;
 
+    @Autowired
+    private GenreIndex genreIndex;
+
+    @Autowired
+    private SimilarityGraph similarityGraph;
+
+    @Autowired
+    private WatchlistStatistics watchlistStatistics;
+
+    @Autowired
+    private WatchlistVersion watchlistVersion;
+
+    @Autowired
+    private MovieChangeStream movieChangeStream;
+
+    @Autowired
+    private WatchedStatusWriteBehind watchedWriteBehind;
+
+    @Autowired
+    private WatchHistoryLog watchHistoryLog;
+
+    @Autowired
+    private MovieJsonCache movieJsonCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${movies.batch.max-ids:500}")
+    private int maxBatchIds;
+
     /**
-     * Retrieves a list of all movies from the database.
+     * Retrieves a page of the movies on a user's watchlist.
+     * The total comes from the in-memory {@link WatchlistStatistics}, not from a count query.
      *
+     * @param userId The user ID
      * @param pageable Pagination parameters
      * @return Page of movies
      */
-    public Page<Movie> getAllMovies(Pageable pageable) {
-        return movieRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public Page<Movie> getAllMovies(long userId, Pageable pageable) {
+        return withCachedTotal(userId, getMovieSlice(userId, pageable));
     }
 
     /**
-     * Retrieves a movie by its ID.
+     * Retrieves a slice of the movies on a user's watchlist without any total.
      *
+     * @param userId The user ID
+     * @param pageable Pagination parameters
+     * @return Slice of movies
+     */
+    @Transactional(readOnly = true)
+    public Slice<Movie> getMovieSlice(long userId, Pageable pageable) {
+        Slice<WatchlistEntry> entries = watchlistEntryRepository.findSliceByUserId(userId,
+                WatchlistEntryRepository.toEntryPageable(pageable));
+        return new SliceImpl<>(entries.map(this::withWatched).getContent(), pageable, entries.hasNext());
+    }
+
+    /**
+     * Retrieves a movie on a user's watchlist by its ID.
+     *
+     * @param userId The user ID
+     * @param id The movie's ID
+     * @return Optional containing the movie if it is on the watchlist
+     */
+    @Transactional(readOnly = true)
+    public Optional<Movie> getMovieById(long userId, Long id) {
+        return watchlistEntryRepository.findById(new WatchlistEntry.Key(userId, id)).map(this::withWatched);
+    }
+
+    /**
+     * Retrieves the version and modification time of a movie on a user's watchlist without
+     * loading it, for answering conditional requests. While watched status toggles are waiting
+     * to be written, the version is the one the entry will have after the write, raised by one
+     * per toggle, and the modification time is unknown.
+     *
+     * @param userId The user ID
      * @param id The movie's ID
-     * @return Optional containing the movie if found
+     * @return Optional containing the version projection if the movie is on the watchlist
+     */
+    @Transactional(readOnly = true)
+    public Optional<MovieVersion> getMovieVersion(long userId, Long id) {
+        Optional<MovieVersion> version = watchlistEntryRepository.findVersion(userId, id);
+        int pendingToggles = watchedWriteBehind.pendingToggles(userId, id);
+        if (version.isEmpty() || pendingToggles == 0) {
+            return version;
+        }
+        long pendingVersion = version.get().getVersion() + pendingToggles;
+        return Optional.of(new MovieVersion() {
+            @Override
+            public long getVersion() {
+                return pendingVersion;
+            }
+
+            @Override
+            public Instant getUpdatedAt() {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Retrieves the ETag value for a user's watchlist collections, derived from the change counters.
+     * Changes whenever a movie is added to, updated on or deleted from the watchlist, and
+     * whenever catalogue metadata changes.
+     *
+     * @param userId The user ID
+     * @return The collection ETag value
+     */
+    public String getWatchlistETag(long userId) {
+        return watchlistVersion.currentTag(userId);
+    }
+
+    /**
+     * Gets an encoded JSON response from the response cache.
+     *
+     * @param key The cache key, see {@link MovieJsonCache#movieKey} and {@link MovieJsonCache#pageKey}
+     * @return Optional containing the encoded response if it is cached
      */
-    public Optional<Movie> getMovieById(Long id) {
-        return movieRepository.findById(id);
+    public Optional<MovieJsonCache.Entry> getCachedJson(String key) {
+        return Optional.ofNullable(movieJsonCache.get(key));
     }
 
     /**
-     * Retrieves a list of unwatched movies from the database using Streams API.
+     * Encodes a response body and stores it in the response cache.
      *
+     * @param key The cache key, see {@link MovieJsonCache#movieKey} and {@link MovieJsonCache#pageKey}
+     * @param body The response body
+     */
+    public void cacheJson(String key, Object body) {
+        movieJsonCache.put(key, body);
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of committed changes to a user's watchlist.
+     *
+     * @param userId The user ID
+     * @param lastEventId The last event ID seen by a reconnecting client, or null
+     * @return The emitter streaming the changes
+     */
+    public SseEmitter subscribeToChanges(long userId, String lastEventId) {
+        return movieChangeStream.subscribe(userId, lastEventId);
+    }
+
+    /**
+     * Retrieves a list of unwatched movies from a user's watchlist using Streams API.
+     *
+     * @param userId The user ID
      * @param pageable Pagination parameters
      * @return List of unwatched movies
      */
-    public List<Movie> getUnwatchedMovies(Pageable pageable) {
-        return movieRepository.findAll(pageable)
+    @Transactional(readOnly = true)
+    public List<Movie> getUnwatchedMovies(long userId, Pageable pageable) {
+        return getMovieSlice(userId, pageable)
                 .getContent()
                 .stream()
                 .filter(movie -> !movie.isWatched())
@@ -70,28 +230,29 @@ public class MovieService {
     }
 
     /**
-     * Retrieves a list of all movie titles from the database using Streams API.
+     * Retrieves a list of the movie titles on a user's watchlist.
      *
+     * @param userId The user ID
      * @param pageable Pagination parameters
      * @return List of movie titles
      */
-    public List<String> getAllMovieTitles(Pageable pageable) {
-        return movieRepository.findAll(pageable)
-                .getContent()
-                .stream()
-                .map(Movie::getTitle)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<String> getAllMovieTitles(long userId, Pageable pageable) {
+        return watchlistEntryRepository.findTitles(userId, WatchlistEntryRepository.toEntryPageable(pageable))
+                .getContent();
     }
 
     /**
-     * Retrieves movies by director using Streams API.
+     * Retrieves movies by director from a user's watchlist using Streams API.
      *
+     * @param userId The user ID
      * @param director The director's name to filter by
      * @param pageable Pagination parameters
      * @return List of movies by the specified director
      */
-    public List<Movie> getMoviesByDirector(String director, Pageable pageable) {
-        return movieRepository.findAll(pageable)
+    @Transactional(readOnly = true)
+    public List<Movie> getMoviesByDirector(long userId, String director, Pageable pageable) {
+        return getMovieSlice(userId, pageable)
                 .getContent()
                 .stream()
                 .filter(movie -> director.equalsIgnoreCase(movie.getDirector()))
@@ -99,14 +260,16 @@ public class MovieService {
     }
 
     /**
-     * Retrieves movies by year using Streams API.
+     * Retrieves movies by year from a user's watchlist using Streams API.
      *
+     * @param userId The user ID
      * @param year The year to filter by
      * @param pageable Pagination parameters
      * @return List of movies from the specified year
      */
-    public List<Movie> getMoviesByYear(String year, Pageable pageable) {
-        return movieRepository.findAll(pageable)
+    @Transactional(readOnly = true)
+    public List<Movie> getMoviesByYear(long userId, String year, Pageable pageable) {
+        return getMovieSlice(userId, pageable)
                 .getContent()
                 .stream()
                 .filter(movie -> year.equals(movie.getYear()))
@@ -114,13 +277,181 @@ public class MovieService {
     }
 
     /**
-     * Retrieves a list of watched movies from the database using Streams API.
+     * Retrieves movies of a user's watchlist matching a set of genres and an optional watched status.
+     * The genres are evaluated against the in-memory {@link GenreIndex} and intersected with the
+     * user's movies; only the requested page is read from the database, selecting only the
+     * requested fields. Results are ordered by movie ID.
+     *
+     * @param userId The user ID
+     * @param genres The genres to filter by, an empty set matches every genre
+     * @param matchAll true to require every genre, false to require at least one
+     * @param watched The watched status to filter by, or null for both
+     * @param fields The fields to select
+     * @param pageable Pagination parameters (sorting is ignored)
+     * @return Page of matching movies
+     */
+    @Transactional(readOnly = true)
+    public Page<MovieResponse> getMoviesByGenres(long userId, Set<Genre> genres, boolean matchAll, Boolean watched,
+            Set<MovieField> fields, Pageable pageable) {
+        BitSet matches = genreIndex.match(Genre.maskOf(genres), matchAll);
+        matches.and(watchlistBits(userId, watched));
+
+        List<Long> pageIds = matches.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .mapToObj(Long::valueOf)
+                .collect(Collectors.toList());
+        List<MovieResponse> movies = inIdOrder(pageIds,
+                movieRepository.findAllProjectedById(userId, pageIds, fields), MovieResponse::id).stream()
+                .map(movie -> withPendingWatched(userId, movie))
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(movies, pageable, matches.cardinality());
+    }
+
+    /**
+     * Retrieves a page of the movies on a user's watchlist selecting only the given fields.
+     * The total comes from the in-memory {@link WatchlistStatistics}, not from a count query.
+     *
+     * @param userId The user ID
+     * @param fields The fields to select
+     * @param pageable Pagination parameters
+     * @return Page of sparse movie responses
+     */
+    @Transactional(readOnly = true)
+    public Page<MovieResponse> getAllMovies(long userId, Set<MovieField> fields, Pageable pageable) {
+        return withCachedTotal(userId, getMovieSlice(userId, fields, pageable));
+    }
+
+    /**
+     * Retrieves a slice of the movies on a user's watchlist selecting only the given fields,
+     * without any total.
      *
+     * @param userId The user ID
+     * @param fields The fields to select
+     * @param pageable Pagination parameters
+     * @return Slice of sparse movie responses
+     */
+    @Transactional(readOnly = true)
+    public Slice<MovieResponse> getMovieSlice(long userId, Set<MovieField> fields, Pageable pageable) {
+        return movieRepository.findAllProjected(userId, fields, pageable)
+                .map(movie -> withPendingWatched(userId, movie));
+    }
+
+    /**
+     * Retrieves a movie on a user's watchlist by its ID selecting only the given fields.
+     *
+     * @param userId The user ID
+     * @param id The movie's ID
+     * @param fields The fields to select
+     * @return Optional containing the sparse movie response if it is on the watchlist
+     */
+    @Transactional(readOnly = true)
+    public Optional<MovieResponse> getMovieById(long userId, Long id, Set<MovieField> fields) {
+        return movieRepository.findAllProjectedById(userId, List.of(id), fields).stream()
+                .findFirst()
+                .map(movie -> withPendingWatched(userId, movie));
+    }
+
+    /**
+     * Retrieves many movies of a user's watchlist by ID with a single query, in the order of
+     * the requested IDs. Duplicate IDs are returned once, and IDs without a movie on the
+     * watchlist are reported as missing.
+     *
+     * @param userId The user ID
+     * @param ids The movie IDs in the wanted order
+     * @param fields The fields to select, or null for every field
+     * @return The movies found and the missing IDs
+     * @throws IllegalArgumentException if more IDs are requested than a batch allows
+     */
+    @Transactional(readOnly = true)
+    public MovieBatch getMoviesByIds(long userId, List<Long> ids, Set<MovieField> fields) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctIds.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " movie IDs can be requested at once");
+        }
+
+        List<MovieResponse> movies = fields == null
+                ? findAllByIdInOrder(userId, distinctIds).stream()
+                        .map(MovieResponse::from)
+                        .collect(Collectors.toList())
+                : inIdOrder(distinctIds, movieRepository.findAllProjectedById(userId, distinctIds, fields),
+                        MovieResponse::id)
+                        .stream()
+                        .map(movie -> withPendingWatched(userId, movie))
+                        .collect(Collectors.toList());
+
+        Set<Long> foundIds = movies.stream().map(MovieResponse::id).collect(Collectors.toSet());
+        List<Long> missing = distinctIds.stream()
+                .filter(id -> !foundIds.contains(id))
+                .collect(Collectors.toList());
+        return new MovieBatch(movies, missing);
+    }
+
+    /**
+     * Recommends unwatched movies of a user's watchlist related to the given movie through the
+     * TMDB similar movies stored on add. Ranked by {@link SimilarityGraph} proximity,
+     * so no TMDB call is made at request time.
+     *
+     * @param userId The user ID
+     * @param id The movie's ID
+     * @param limit Maximum number of recommendations
+     * @return List of recommended movies, closest first
+     * @throws IllegalArgumentException if the movie is not on the watchlist
+     */
+    @Transactional(readOnly = true)
+    public List<Movie> getRecommendations(long userId, Long id, int limit) {
+        if (!watchlistEntryRepository.existsById(new WatchlistEntry.Key(userId, id))) {
+            throw new IllegalArgumentException("Movie not found");
+        }
+        List<Long> candidateIds = similarityGraph.recommend(id, Math.max(limit, 0), watchlistBits(userId, false))
+                .stream()
+                .map(SimilarityGraph.Candidate::movieId)
+                .collect(Collectors.toList());
+        return findAllByIdInOrder(userId, candidateIds);
+    }
+
+    /**
+     * Retrieves the statistics of a user's watchlist from the incrementally maintained
+     * in-memory aggregates.
+     *
+     * @param userId The user ID
+     * @return Statistics summary
+     */
+    public WatchlistStatistics.Summary getStatistics(long userId) {
+        return watchlistStatistics.getSummary(userId);
+    }
+
+    /**
+     * Retrieves when and how often a movie on a user's watchlist was watched, from the
+     * in-memory view of the {@link WatchHistoryLog}, without reading the movie.
+     *
+     * @param userId The user ID
+     * @param id The movie's ID
+     * @return Watch history of the movie
+     * @throws IllegalArgumentException if the movie is not on the watchlist
+     */
+    @Transactional(readOnly = true)
+    public WatchHistory getWatchHistory(long userId, Long id) {
+        WatchlistEntry entry = watchlistEntryRepository.findById(new WatchlistEntry.Key(userId, id))
+                .orElseThrow(() -> new IllegalArgumentException("Movie not found"));
+        Boolean pending = watchedWriteBehind.pendingWatched(userId, id);
+        return WatchHistory.of(id, pending != null ? pending : entry.isWatched(), watchHistoryLog.events(userId, id));
+    }
+
+    /**
+     * Retrieves a list of watched movies from a user's watchlist using Streams API.
+     *
+     * @param userId The user ID
      * @param pageable Pagination parameters
      * @return List of watched movies
      */
-    public List<Movie> getWatchedMovies(Pageable pageable) {
-        return movieRepository.findAll(pageable)
+    @Transactional(readOnly = true)
+    public List<Movie> getWatchedMovies(long userId, Pageable pageable) {
+        return getMovieSlice(userId, pageable)
                 .getContent()
                 .stream()
                 .filter(Movie::isWatched)
@@ -128,28 +459,36 @@ public class MovieService {
     }
 
     /**
-     * Adds a new movie by fetching and merging data from both OMDb and TMDB APIs.
+     * Adds a movie to a user's watchlist. A movie already in the catalogue is linked without
+     * any API call; otherwise its data is fetched and merged from both OMDb and TMDB APIs and
+     * stored in the catalogue first.
      * Creates a new transaction for the operation.
      *
+     * @param userId The user ID
      * @param title The title of the movie to add
-     * @return The saved movie with merged data
-     * @throws IllegalArgumentException if movie already exists
+     * @return The movie with merged data, unwatched
+     * @throws IllegalArgumentException if movie already exists on the watchlist
      * @throws RuntimeException if API calls fail or data validation fails
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public Movie addMovie(String title) {
-        logger.info("Starting movie addition process for title: {}", title);
+    public Movie addMovie(long userId, String title) {
+        logger.info("Starting movie addition process for title: {} (user {})", title, userId);
         Movie savedMovie = null;
+        List<DownloadedImage> downloadedImages = new ArrayList<>();
         
         try {
             // Check if movie already exists
-            logger.info("Checking if movie already exists in database");
-            Optional<Movie> existingMovie = movieRepository.findByTitleIgnoreCase(title);
-            if (existingMovie.isPresent()) {
-                logger.warn("Movie already exists in database: {}", title);
-                throw new IllegalArgumentException("Movie already exists in database");
+            logger.info("Checking if movie already exists in watchlist");
+            if (watchlistEntryRepository.existsByTitle(userId, title)) {
+                logger.warn("Movie already exists in watchlist: {}", title);
+                throw new IllegalArgumentException("Movie already exists in watchlist");
             }
-            logger.info("Movie does not exist in database, proceeding with API calls");
+            Optional<Movie> linkedMovie = movieRepository.findByTitleIgnoreCase(title)
+                    .flatMap(movie -> linkCatalogued(userId, movie));
+            if (linkedMovie.isPresent()) {
+                return linkedMovie.get();
+            }
+            logger.info("Movie does not exist in catalogue, proceeding with API calls");
 
             // Fetch movie data from both APIs
             logger.info("Fetching movie data from OMDb API");
@@ -166,6 +505,7 @@ public class MovieService {
             Movie tmdbMovie = null;
             try {
                 tmdbMovie = tmdbService.fetchMovieData(title);
+                downloadedImages.addAll(tmdbMovie.getDownloadedImages());
                 logger.info("Successfully fetched data from TMDB API: {}", tmdbMovie.getTitle());
             } catch (Exception e) {
                 logger.error("Error fetching data from TMDB API: {}", e.getMessage());
@@ -184,12 +524,21 @@ public class MovieService {
                 logger.error("Movie ID is null after merging");
                 throw new RuntimeException("Movie ID is required but was not set");
             }
+
+            // The title found by the APIs can differ from the requested one
+            linkedMovie = movieRepository.findFirstByMovieId(mergedMovie.getMovieId())
+                    .flatMap(movie -> linkCatalogued(userId, movie));
+            if (linkedMovie.isPresent()) {
+                return linkedMovie.get();
+            }
             
             // Save to database
             logger.info("Attempting to save movie to database");
             try {
                 savedMovie = movieRepository.save(mergedMovie);
                 logger.info("Successfully saved movie to database with ID: {}", savedMovie.getId());
+                storeImages(savedMovie, downloadedImages);
+                eventPublisher.publishEvent(MovieChangeEvent.added(MovieSnapshot.of(savedMovie)));
                 
                 // Verify the save by reading back from database
                 Optional<Movie> verifyMovie = movieRepository.findById(savedMovie.getId());
@@ -200,7 +549,7 @@ public class MovieService {
                     throw new RuntimeException("Movie not found in database after save");
                 }
                 
-                return savedMovie;
+                return addToWatchlist(userId, savedMovie);
             } catch (Exception e) {
                 logger.error("Error saving movie to database: {}", e.getMessage(), e);
                 throw new RuntimeException("Failed to save movie to database: " + e.getMessage());
@@ -217,38 +566,251 @@ public class MovieService {
                 }
             }
             throw e;
+        } finally {
+            downloadedImages.forEach(DownloadedImage::discard);
+        }
+    }
+
+    /**
+     * Links a movie found in the catalogue to a user's watchlist. The movie row is locked first:
+     * a concurrent delete of its last entry either waits for this transaction and then sees the
+     * new entry, or has already made it a tombstone, in which case nothing is linked and the
+     * caller stores the movie anew.
+     *
+     * @param userId The user ID
+     * @param movie The catalogue movie
+     * @return The movie as the user sees it, empty if it was deleted meanwhile
+     * @throws IllegalArgumentException if the movie is already on the watchlist
+     */
+    private Optional<Movie> linkCatalogued(long userId, Movie movie) {
+        logger.info("Movie already in catalogue with ID: {}", movie.getId());
+        if (movieRepository.findLiveByIdForUpdate(movie.getId()).isEmpty()) {
+            logger.info("Catalogue movie {} was deleted meanwhile", movie.getId());
+            return Optional.empty();
+        }
+        return Optional.of(addToWatchlist(userId, movie));
+    }
+
+    /**
+     * Links a catalogue movie to a user's watchlist, unwatched.
+     *
+     * @param userId The user ID
+     * @param movie The saved catalogue movie
+     * @return The movie as the user sees it
+     * @throws IllegalArgumentException if the movie is already on the watchlist
+     */
+    private Movie addToWatchlist(long userId, Movie movie) {
+        if (watchlistEntryRepository.existsById(new WatchlistEntry.Key(userId, movie.getId()))) {
+            logger.warn("Movie {} already exists in watchlist of user {}", movie.getId(), userId);
+            throw new IllegalArgumentException("Movie already exists in watchlist");
+        }
+        watchlistEntryRepository.save(new WatchlistEntry(userId, movie));
+        movie.setWatched(false);
+        eventPublisher.publishEvent(MovieChangeEvent.added(userId, MovieSnapshot.of(movie)));
+        logger.info("Added movie {} to watchlist of user {}", movie.getId(), userId);
+        return movie;
+    }
+
+    /**
+     * Streams the downloaded images of a saved movie into the movie_images table.
+     * A failed image is logged and skipped, like a failed download.
+     *
+     * @param movie The saved movie
+     * @param images The downloaded images
+     */
+    private void storeImages(Movie movie, List<DownloadedImage> images) {
+        for (DownloadedImage image : images) {
+            try {
+                movieImageRepository.insertStreamed(movie.getId(), image);
+                logger.info("Stored {} image of {} bytes for movie {}", image.imageType(), image.length(), movie.getId());
+            } catch (RuntimeException e) {
+                logger.error("Error storing {} image for movie {}: {}", image.imageType(), movie.getId(), e.getMessage());
+            }
         }
     }
 
     /**
-     * Updates the watched status of a movie.
+     * Updates the watched status of a movie on a user's watchlist.
+     * In write-behind mode the status is buffered in {@link WatchedStatusWriteBehind} and the
+     * entry is written by the next flush; the change event is published right away.
      *
+     * @param userId The user ID
      * @param id The movie's ID
      * @param watched The new watched status
      * @return The updated movie
-     * @throws IllegalArgumentException if movie not found
+     * @throws IllegalArgumentException if the movie is not on the watchlist
      */
     @Transactional
-    public Movie updateWatchedStatus(Long id, boolean watched) {
-        Movie movie = movieRepository.findById(id)
+    public Movie updateWatchedStatus(long userId, Long id, boolean watched) {
+        WatchlistEntry entry = watchlistEntryRepository.findById(new WatchlistEntry.Key(userId, id))
                 .orElseThrow(() -> new IllegalArgumentException("Movie not found"));
-        
+        Movie movie = withWatched(entry);
+
+        MovieSnapshot before = MovieSnapshot.of(movie);
+        if (watchedWriteBehind.isEnabled()) {
+            watchedWriteBehind.record(userId, id, watched);
+        } else {
+            entry.setWatched(watched);
+            watchlistEntryRepository.save(entry);
+        }
         movie.setWatched(watched);
-        return movieRepository.save(movie);
+        eventPublisher.publishEvent(MovieChangeEvent.updated(userId, before, MovieSnapshot.of(movie)));
+        return movie;
+    }
+
+    /**
+     * Applies freshly fetched TMDB metadata to the catalogue movies linked to its TMDB ID.
+     * Only the fields TMDB is the source of are refreshed, as in {@link #mergeMovieData}: the
+     * genres, the similar movies, and the director where OMDb had none. Title and year come from
+     * OMDb and are left alone. Only the values that differ are written; missing values in the
+     * fetched data never clear stored ones.
+     *
+     * @param fetched The movie metadata fetched from TMDB, with its TMDB ID set
+     * @return The number of movies that changed
+     */
+    @Transactional
+    public int refreshMovieMetadata(Movie fetched) {
+        int changed = 0;
+        for (Movie movie : movieRepository.findByTmdbId(fetched.getTmdbId())) {
+            MovieSnapshot before = MovieSnapshot.of(movie);
+            boolean dirty = false;
+            if (fetched.getGenreMask() != 0L && fetched.getGenreMask() != movie.getGenreMask()) {
+                movie.setGenre(fetched.getGenre());
+                movie.setGenreMask(fetched.getGenreMask());
+                dirty = true;
+            }
+            if (!fetched.getSimilarTmdbIds().isEmpty()
+                    && !fetched.getSimilarTmdbIds().equals(movie.getSimilarTmdbIds())) {
+                movie.setSimilarTmdbIds(new ArrayList<>(fetched.getSimilarTmdbIds()));
+                movie.setSimilarMovieTitle(fetched.getSimilarMovieTitle());
+                dirty = true;
+            }
+            // The director is only taken from TMDB when OMDb did not know it
+            if ((movie.getDirector() == null || movie.getDirector().isEmpty())
+                    && fetched.getDirector() != null && !fetched.getDirector().isEmpty()) {
+                movie.setDirector(fetched.getDirector());
+                dirty = true;
+            }
+            if (dirty) {
+                logger.info("Refreshed metadata of movie {} from TMDB", movie.getId());
+                eventPublisher.publishEvent(MovieChangeEvent.updated(before, MovieSnapshot.of(movie)));
+                changed++;
+            }
+        }
+        return changed;
     }
 
     /**
-     * Deletes a movie from the database.
+     * Deletes a movie from a user's watchlist.
+     * When no other watchlist holds the movie, the catalogue movie becomes a tombstone with a
+     * single UPDATE, without loading its images; {@link MovieBlobPurger} removes the images and
+     * the row in the background.
      *
+     * @param userId The user ID
      * @param id The movie's ID
-     * @throws IllegalArgumentException if movie not found
+     * @throws IllegalArgumentException if the movie is not on the watchlist
      */
     @Transactional
-    public void deleteMovie(Long id) {
-        if (!movieRepository.existsById(id)) {
+    public void deleteMovie(long userId, Long id) {
+        MovieSnapshot before = watchlistEntryRepository.findSnapshot(userId, id)
+                .orElseThrow(() -> new IllegalArgumentException("Movie not found"));
+        if (watchlistEntryRepository.deleteEntry(userId, id) == 0) {
             throw new IllegalArgumentException("Movie not found");
         }
-        movieRepository.deleteById(id);
+        eventPublisher.publishEvent(MovieChangeEvent.deleted(userId, before));
+        if (movieRepository.markDeleted(id, Instant.now()) == 1) {
+            logger.info("Movie {} is on no watchlist any more, deleting it from the catalogue", id);
+            eventPublisher.publishEvent(MovieChangeEvent.deleted(new MovieSnapshot(before.id(), before.title(),
+                    before.year(), before.director(), before.genre(), before.genreMask(), false, before.tmdbId())));
+        }
+    }
+
+    /**
+     * Turns a slice into a page. The total is exact on the last slice and otherwise the movie
+     * count maintained by {@link WatchlistStatistics}, raised if needed so it covers the rows
+     * already seen plus the next one.
+     */
+    private <T> Page<T> withCachedTotal(long userId, Slice<T> slice) {
+        Pageable pageable = slice.getPageable();
+        long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + slice.getNumberOfElements();
+        long total;
+        if (!slice.hasNext() && (slice.hasContent() || seen == 0)) {
+            total = seen;
+        } else {
+            total = Math.max(watchlistStatistics.getTotal(userId), slice.hasNext() ? seen + 1 : seen);
+        }
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    /**
+     * Gets the movie of a watchlist entry with the user's watched status, applying a toggle
+     * that is still waiting in the write-behind buffer.
+     */
+    private Movie withWatched(WatchlistEntry entry) {
+        Movie movie = entry.getMovie();
+        Boolean pending = watchedWriteBehind.pendingWatched(entry.getUserId(), entry.getMovieId());
+        movie.setWatched(pending != null ? pending : entry.isWatched());
+        return movie;
+    }
+
+    /**
+     * Applies a watched status toggle that is still waiting in the write-behind buffer.
+     */
+    private MovieResponse withPendingWatched(long userId, MovieResponse movie) {
+        Boolean pending = watchedWriteBehind.pendingWatched(userId, movie.id());
+        return pending != null ? movie.withWatched(pending) : movie;
+    }
+
+    /**
+     * Builds the bitset of the movies on a user's watchlist, keyed like the {@link GenreIndex}.
+     * Reads the user's entries only, without loading any movie.
+     *
+     * @param userId The user ID
+     * @param watched The watched status to keep, including pending toggles, or null for every movie
+     * @return a new bitset of movie IDs
+     */
+    private BitSet watchlistBits(long userId, Boolean watched) {
+        BitSet bits = new BitSet();
+        for (Object[] row : watchlistEntryRepository.findWatchStates(userId)) {
+            Long movieId = (Long) row[0];
+            Boolean pending = watchedWriteBehind.pendingWatched(userId, movieId);
+            boolean movieWatched = pending != null ? pending : Boolean.TRUE.equals(row[1]);
+            int bit = GenreIndex.bitOf(movieId);
+            if (bit >= 0 && (watched == null || watched == movieWatched)) {
+                bits.set(bit);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Loads the movies of a user's watchlist with a single query and returns them in the order
+     * of the given IDs, skipping IDs that are not on the watchlist.
+     *
+     * @param userId The user ID
+     * @param ids The movie IDs in the wanted order
+     * @return List of movies in ID order
+     */
+    private List<Movie> findAllByIdInOrder(long userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<WatchlistEntry> entries = watchlistEntryRepository.findByUserIdAndMovieIdIn(userId, ids);
+        return inIdOrder(ids, entries, WatchlistEntry::getMovieId).stream()
+                .map(this::withWatched)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Orders query results by a list of IDs, skipping IDs without a result.
+     */
+    private static <T> List<T> inIdOrder(List<Long> ids, List<T> items, Function<T, Long> idOf) {
+        Map<Long, T> itemsById = items.stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -289,13 +851,18 @@ public class MovieService {
             if (tmdbMovie.getGenre() != null && !tmdbMovie.getGenre().isEmpty()) {
                 logger.info("Using genre from TMDB");
                 mergedMovie.setGenre(tmdbMovie.getGenre());
+                mergedMovie.setGenreMask(tmdbMovie.getGenreMask());
             }
+
+            // Keep the TMDB identity and similar movies for the similarity graph
+            mergedMovie.setTmdbId(tmdbMovie.getTmdbId());
+            mergedMovie.setSimilarTmdbIds(new ArrayList<>(tmdbMovie.getSimilarTmdbIds()));
+            mergedMovie.setSimilarMovieTitle(tmdbMovie.getSimilarMovieTitle());
         }
         
         // Set default values
         logger.info("Setting default values");
         mergedMovie.setWatched(false);
-        mergedMovie.setSimilarMovieTitle(null);
         
         logger.info("Movie merge completed. Final movie data: Title={}, Year={}, Director={}, MovieId={}", 
             mergedMovie.getTitle(), mergedMovie.getYear(), mergedMovie.getDirector(), mergedMovie.getMovieId());
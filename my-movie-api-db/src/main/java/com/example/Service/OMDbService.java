@@ -1,5 +1,7 @@
 package com.example.Service;
 
+import java.util.Optional;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +14,7 @@ import com.example.Model.Movie;
 /**
  * Service class that handles interactions with the Open Movie Database (OMDb) API.
  * Provides functionality to fetch movie details including title, year, director, and IMDB ID.
+ * Titles found in the local IMDb index are resolved without calling the API.
  */
 @Service
 public class OMDbService {
@@ -24,20 +27,36 @@ public class OMDbService {
     private String apiUrl;
 
     private final RestTemplate restTemplate;
+    private final ImdbTitleIndex titleIndex;
 
-    public OMDbService(RestTemplate restTemplate) {
+    public OMDbService(RestTemplate restTemplate, ImdbTitleIndex titleIndex) {
         this.restTemplate = restTemplate;
+        this.titleIndex = titleIndex;
     }
 
     /**
      * Fetches movie data from OMDb API based on the movie title.
      * Retrieves movie details including title, year, director, and IMDB ID.
+     * The local IMDb index is asked first; the API is called only if it has no match.
      *
      * @param title The title of the movie to search for
      * @return Movie object containing the fetched movie data
      * @throws RuntimeException if movie not found, invalid API key, or other API errors occur
      */
     public Movie fetchMovieData(String title) {
+        Optional<ImdbTitleIndex.Title> local = titleIndex.find(title);
+        if (local.isPresent()) {
+            logger.info("Resolved movie from the local IMDb index: {}", local.get().title());
+            Movie movie = new Movie();
+            movie.setTitle(local.get().title());
+            movie.setYear(local.get().year());
+            movie.setDirector(local.get().director());
+            movie.setMovieId(local.get().imdbId());
+            movie.setWatched(false);
+            movie.setSimilarMovieTitle(null);
+            return movie;
+        }
+
         String url = UriComponentsBuilder.fromHttpUrl(apiUrl)
                 .queryParam("apikey", apiKey)
                 .queryParam("t", title)
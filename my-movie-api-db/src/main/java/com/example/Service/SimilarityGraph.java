@@ -0,0 +1,228 @@
+package com.example.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Repository.MovieRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory similarity graph built from the TMDB similar movie lists of the movie catalogue.
+ * Vertices are TMDB IDs, including similar movies that are not in the catalogue, and every
+ * stored "B is similar to A" entry adds an undirected edge A-B. Two catalogue movies are
+ * therefore close when TMDB relates them directly or through shared similar movies.
+ * The graph is shared by every user; recommendations are restricted to the movies the caller
+ * marks as eligible, e.g. the unwatched movies of one watchlist.
+ * Built once from the table and kept current from committed catalogue {@link MovieChangeEvent}s,
+ * so recommendations never call TMDB.
+ *
+ * @see MovieService#getRecommendations
+ */
+@Component
+public class SimilarityGraph {
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityGraph.class);
+
+    /**
+     * Maximum number of hops explored from the source movie.
+     */
+    private static final int MAX_DEPTH = 3;
+
+    private final MovieRepository movieRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** TMDB ID to neighbour TMDB ID to edge multiplicity. */
+    private final Map<Long, Map<Long, Integer>> adjacency = new HashMap<>();
+    /** Catalogue movies by database ID. */
+    private final Map<Long, CatalogueNode> nodesByMovieId = new HashMap<>();
+    /** Catalogue movie database IDs by TMDB ID. */
+    private final Map<Long, Long> movieIdsByTmdbId = new HashMap<>();
+
+    public SimilarityGraph(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    /**
+     * A catalogue movie recommended for another one.
+     *
+     * @param movieId the database ID of the recommended movie
+     * @param distance the number of hops from the source movie
+     * @param paths the number of shortest paths, weighted by edge multiplicity
+     */
+    public record Candidate(Long movieId, int distance, long paths) {
+    }
+
+    private record CatalogueNode(Long tmdbId, List<Long> similarTmdbIds) {
+    }
+
+    /**
+     * Rebuilds the graph from the movies and movie_similar tables.
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            Map<Long, List<Long>> similarByMovieId = new HashMap<>();
+            for (Object[] row : movieRepository.findAllSimilarTmdbIds()) {
+                similarByMovieId.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+            }
+            adjacency.clear();
+            nodesByMovieId.clear();
+            movieIdsByTmdbId.clear();
+            for (MovieSnapshot movie : movieRepository.findAllSnapshots()) {
+                add(movie.id(), movie.tmdbId(), similarByMovieId.getOrDefault(movie.id(), List.of()));
+            }
+            logger.info("Similarity graph built with {} catalogue movies and {} vertices",
+                    nodesByMovieId.size(), adjacency.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed catalogue change to the graph. Watchlist changes leave it as it is,
+     * and so do updates that did not load the similar movie list.
+     *
+     * @param event the change to apply
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        if (!event.isCatalogueChange()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            MovieSnapshot after = event.after();
+            CatalogueNode existing = nodesByMovieId.get(event.movieId());
+            if (event.type() == MovieChangeEvent.Type.UPDATED && existing != null
+                    && after.similarTmdbIds().isEmpty() && Objects.equals(existing.tmdbId(), after.tmdbId())) {
+                return;
+            }
+            remove(event.movieId());
+            if (after != null) {
+                add(after.id(), after.tmdbId(), after.similarTmdbIds());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the eligible catalogue movies closest to the given movie.
+     * Candidates are ordered by hop distance, then by the number of shortest paths, so
+     * movies TMDB relates in several ways rank above those related only once.
+     *
+     * @param movieId the database ID of the source movie
+     * @param limit the maximum number of candidates to return
+     * @param eligible the database IDs of the movies that may be recommended
+     * @return the ranked candidates, empty if the movie has no TMDB links
+     */
+    public List<Candidate> recommend(Long movieId, int limit, BitSet eligible) {
+        lock.readLock().lock();
+        try {
+            CatalogueNode source = nodesByMovieId.get(movieId);
+            if (source == null || source.tmdbId() == null) {
+                return List.of();
+            }
+
+            Map<Long, Integer> distances = new HashMap<>();
+            Map<Long, Long> paths = new HashMap<>();
+            Deque<Long> queue = new ArrayDeque<>();
+            distances.put(source.tmdbId(), 0);
+            paths.put(source.tmdbId(), 1L);
+            queue.add(source.tmdbId());
+
+            List<Candidate> candidates = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                Long vertex = queue.poll();
+                int distance = distances.get(vertex);
+                Long candidateId = movieIdsByTmdbId.get(vertex);
+                if (distance > 0 && candidateId != null && !candidateId.equals(movieId)
+                        && isEligible(eligible, candidateId)) {
+                    candidates.add(new Candidate(candidateId, distance, paths.get(vertex)));
+                }
+                if (distance == MAX_DEPTH) {
+                    continue;
+                }
+                for (Map.Entry<Long, Integer> edge : adjacency.getOrDefault(vertex, Map.of()).entrySet()) {
+                    Long neighbour = edge.getKey();
+                    Integer neighbourDistance = distances.get(neighbour);
+                    if (neighbourDistance == null) {
+                        distances.put(neighbour, distance + 1);
+                        paths.put(neighbour, paths.get(vertex) * edge.getValue());
+                        queue.add(neighbour);
+                    } else if (neighbourDistance == distance + 1) {
+                        paths.merge(neighbour, paths.get(vertex) * edge.getValue(), Long::sum);
+                    }
+                }
+            }
+
+            return candidates.stream()
+                    .sorted(Comparator.comparingInt(Candidate::distance)
+                            .thenComparing(Comparator.comparingLong(Candidate::paths).reversed())
+                            .thenComparing(Candidate::movieId))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isEligible(BitSet eligible, Long movieId) {
+        int bit = GenreIndex.bitOf(movieId);
+        return bit >= 0 && eligible.get(bit);
+    }
+
+    private void add(Long movieId, Long tmdbId, List<Long> similarTmdbIds) {
+        nodesByMovieId.put(movieId, new CatalogueNode(tmdbId, List.copyOf(similarTmdbIds)));
+        if (tmdbId == null) {
+            return;
+        }
+        movieIdsByTmdbId.put(tmdbId, movieId);
+        for (Long similar : similarTmdbIds) {
+            if (!similar.equals(tmdbId)) {
+                adjacency.computeIfAbsent(tmdbId, id -> new HashMap<>()).merge(similar, 1, Integer::sum);
+                adjacency.computeIfAbsent(similar, id -> new HashMap<>()).merge(tmdbId, 1, Integer::sum);
+            }
+        }
+    }
+
+    private void remove(Long movieId) {
+        CatalogueNode node = nodesByMovieId.remove(movieId);
+        if (node == null || node.tmdbId() == null) {
+            return;
+        }
+        movieIdsByTmdbId.remove(node.tmdbId(), movieId);
+        for (Long similar : node.similarTmdbIds()) {
+            decrement(node.tmdbId(), similar);
+            decrement(similar, node.tmdbId());
+        }
+    }
+
+    private void decrement(Long from, Long to) {
+        Map<Long, Integer> edges = adjacency.get(from);
+        if (edges == null) {
+            return;
+        }
+        edges.computeIfPresent(to, (id, count) -> count > 1 ? count - 1 : null);
+        if (edges.isEmpty()) {
+            adjacency.remove(from);
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package com.example.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.util.HashMap;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -18,13 +21,19 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.example.Model.Genre;
 import com.example.Model.Movie;
-import com.example.Model.MovieImage;
 import com.example.Repository.MovieImageRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 /**
  * Service class that handles interactions with The Movie Database (TMDB) API.
  * Provides functionality to fetch movie details, images, and similar movies.
+ * Adding a movie takes two round trips: a search, then one detail request that appends
+ * the credits, similar movies and images. Detail responses are read with a streaming
+ * parser that skips every field the application does not store.
  */
 @Service
 public class TMDBService {
@@ -38,38 +47,21 @@ public class TMDBService {
     private static final String TMDB_IMAGE_BASE_URL = "https://image.tmdb.org/t/p/";
     private static final String POSTER_SIZE = "w500";  // You can use: w92, w154, w185, w342, w500, w780, original
     private static final String BACKDROP_SIZE = "w1280"; // You can use: w300, w780, w1280, original
+    private static final String APPEND_FOR_ADD = "credits,similar,images";
+    private static final String APPEND_FOR_REFRESH = "credits,similar";
 
-    // TMDB Genre IDs to Names mapping
-    private static final Map<Integer, String> GENRE_MAP = new HashMap<>();
-    static {
-        GENRE_MAP.put(28, "Action");
-        GENRE_MAP.put(12, "Adventure");
-        GENRE_MAP.put(16, "Animation");
-        GENRE_MAP.put(35, "Comedy");
-        GENRE_MAP.put(80, "Crime");
-        GENRE_MAP.put(99, "Documentary");
-        GENRE_MAP.put(18, "Drama");
-        GENRE_MAP.put(10751, "Family");
-        GENRE_MAP.put(14, "Fantasy");
-        GENRE_MAP.put(36, "History");
-        GENRE_MAP.put(27, "Horror");
-        GENRE_MAP.put(10402, "Music");
-        GENRE_MAP.put(9648, "Mystery");
-        GENRE_MAP.put(10749, "Romance");
-        GENRE_MAP.put(878, "Science Fiction");
-        GENRE_MAP.put(10770, "TV Movie");
-        GENRE_MAP.put(53, "Thriller");
-        GENRE_MAP.put(10752, "War");
-        GENRE_MAP.put(37, "Western");
-    }
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     private final RestTemplate restTemplate;
     private final MovieImageRepository movieImageRepository;
+    private final ImageDownloader imageDownloader;
 
     @Autowired
-    public TMDBService(RestTemplate restTemplate, MovieImageRepository movieImageRepository) {
+    public TMDBService(RestTemplate restTemplate, MovieImageRepository movieImageRepository,
+            ImageDownloader imageDownloader) {
         this.restTemplate = restTemplate;
         this.movieImageRepository = movieImageRepository;
+        this.imageDownloader = imageDownloader;
     }
 
     /**
@@ -107,76 +99,111 @@ public class TMDBService {
             // Get the first result
             TMDBMovieResult firstResult = searchResponse.results.get(0);
 
-            // Now fetch detailed movie information
-            String detailUrl = UriComponentsBuilder.fromHttpUrl(apiUrl + "/movie/" + firstResult.id)
-                    .queryParam("api_key", apiKey)
-                    .build()
-                    .toUriString();
-
-            TMDBMovieDetail detailResponse = restTemplate.getForObject(detailUrl, TMDBMovieDetail.class);
-            
-            if (detailResponse == null) {
-                throw new RuntimeException("Failed to fetch movie details from TMDB");
-            }
-
-            if (detailResponse.status_code != null) {
-                handleTMDBError(detailResponse.status_code, detailResponse.status_message);
-            }
+            // Now fetch details, credits, similar movies and images in one request
+            TMDBMovieDetail detailResponse = fetchMovieDetail(firstResult.id, APPEND_FOR_ADD);
 
             Movie movie = new Movie();
             movie.setMovieId((long) firstResult.id);
+            movie.setTmdbId((long) firstResult.id);
             movie.setTitle(detailResponse.title);
-            movie.setYear(detailResponse.release_date != null ? detailResponse.release_date.substring(0, 4) : null);
+            movie.setYear(yearOf(detailResponse.release_date));
             movie.setDirector(detailResponse.director);
-            
-            // Get genre name from the first genre_id
-            String genre = firstResult.genre_ids != null && !firstResult.genre_ids.isEmpty() 
-                ? GENRE_MAP.getOrDefault(firstResult.genre_ids.get(0), "Unknown")
-                : null;
-            movie.setGenre(genre);
+            setGenres(movie, detailResponse.genre_ids.isEmpty() ? firstResult.genre_ids : detailResponse.genre_ids);
             
             movie.setWatched(false);
 
-            String similarMovieTitle = fetchSimilarMovie(firstResult.id);
-            movie.setSimilarMovieTitle(similarMovieTitle);
+            setSimilarMovies(movie, detailResponse.similar);
 
+            // Download images to temporary files, but continue even if it fails
+            if (detailResponse.poster_path != null) {
+                downloadImage(movie, TMDB_IMAGE_BASE_URL + POSTER_SIZE + detailResponse.poster_path, "POSTER");
+            }
+            if (detailResponse.backdrop_path != null) {
+                downloadImage(movie, TMDB_IMAGE_BASE_URL + BACKDROP_SIZE + detailResponse.backdrop_path, "BACKDROP");
+            }
 
+            return movie;
 
-            // Try to download and store images, but continue even if it fails
-            try {
-                if (detailResponse.poster_path != null) {
-                    try {
-                        String posterUrl = TMDB_IMAGE_BASE_URL + POSTER_SIZE + detailResponse.poster_path;
-                        byte[] posterData = downloadImage(posterUrl);
-                        if (posterData != null && posterData.length > 0) {
-                            saveMovieImage(movie, posterData, "POSTER", MediaType.IMAGE_JPEG_VALUE);
-                        }
-                    } catch (Exception e) {
-                        // Log the error but continue
-                        System.err.println("Failed to download poster image: " + e.getMessage());
-                    }
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                throw new RuntimeException("Invalid TMDB API key. Please check your configuration.");
+            }
+            throw new RuntimeException("TMDB API error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches the IDs of all movies changed in TMDB between two dates, following every result page.
+     * TMDB accepts ranges of at most 14 days.
+     *
+     * @param startDate The first day of the range
+     * @param endDate The last day of the range
+     * @return The changed TMDB IDs, in TMDB order
+     * @throws RuntimeException if the API call fails
+     */
+    public Set<Long> fetchChangedMovieIds(LocalDate startDate, LocalDate endDate) {
+        try {
+            Set<Long> changedIds = new LinkedHashSet<>();
+            int page = 1;
+            int totalPages;
+            do {
+                String changesUrl = UriComponentsBuilder.fromHttpUrl(apiUrl + "/movie/changes")
+                        .queryParam("api_key", apiKey)
+                        .queryParam("start_date", startDate)
+                        .queryParam("end_date", endDate)
+                        .queryParam("page", page)
+                        .build()
+                        .toUriString();
+
+                TMDBChangesResponse changesResponse = restTemplate.getForObject(changesUrl, TMDBChangesResponse.class);
+
+                if (changesResponse == null) {
+                    throw new RuntimeException("Failed to get response from TMDB API");
                 }
-                
-                if (detailResponse.backdrop_path != null) {
-                    try {
-                        String backdropUrl = TMDB_IMAGE_BASE_URL + BACKDROP_SIZE + detailResponse.backdrop_path;
-                        byte[] backdropData = downloadImage(backdropUrl);
-                        if (backdropData != null && backdropData.length > 0) {
-                            saveMovieImage(movie, backdropData, "BACKDROP", MediaType.IMAGE_JPEG_VALUE);
-                        }
-                    } catch (Exception e) {
-                        // Log the error but continue
-                        System.err.println("Failed to download backdrop image: " + e.getMessage());
-                    }
+
+                if (changesResponse.status_code != null) {
+                    handleTMDBError(changesResponse.status_code, changesResponse.status_message);
+                }
+
+                if (changesResponse.results != null) {
+                    changesResponse.results.forEach(change -> changedIds.add(change.id));
                 }
-            } catch (Exception e) {
-                // Log the error but continue with movie saving
-                System.err.println("Error processing movie images: " + e.getMessage());
+                totalPages = changesResponse.total_pages != null ? changesResponse.total_pages : 1;
+                page++;
+            } while (page <= totalPages);
+            return changedIds;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                throw new RuntimeException("Invalid TMDB API key. Please check your configuration.");
             }
+            throw new RuntimeException("TMDB API error: " + e.getMessage());
+        }
+    }
 
-            return movie;
+    /**
+     * Fetches the current TMDB metadata of a movie: title, year, director, genres and similar movies.
+     * Only the credits and similar movies are appended; images are not fetched.
+     *
+     * @param tmdbId The TMDB ID of the movie
+     * @return Movie object with the fetched metadata, empty if TMDB no longer knows the movie
+     * @throws RuntimeException if the API call fails
+     */
+    public Optional<Movie> fetchMovieDetails(long tmdbId) {
+        try {
+            TMDBMovieDetail detailResponse = fetchMovieDetail(tmdbId, APPEND_FOR_REFRESH);
 
+            Movie movie = new Movie();
+            movie.setTmdbId(tmdbId);
+            movie.setTitle(detailResponse.title);
+            movie.setYear(yearOf(detailResponse.release_date));
+            movie.setDirector(detailResponse.director);
+            setGenres(movie, detailResponse.genre_ids);
+            setSimilarMovies(movie, detailResponse.similar);
+            return Optional.of(movie);
         } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return Optional.empty();
+            }
             if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
                 throw new RuntimeException("Invalid TMDB API key. Please check your configuration.");
             }
@@ -184,6 +211,204 @@ public class TMDBService {
         }
     }
 
+    /**
+     * Keeps every similar movie, in TMDB relevance order, and the title of the most relevant one.
+     */
+    private static void setSimilarMovies(Movie movie, List<TMDBMovieResult> similarMovies) {
+        if (!similarMovies.isEmpty()) {
+            movie.setSimilarMovieTitle(similarMovies.get(0).title);
+            movie.setSimilarTmdbIds(similarMovies.stream()
+                    .map(similar -> (long) similar.id)
+                    .distinct()
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Fetches the details of a movie with the given sub-requests appended, parsing the
+     * response as it streams in.
+     */
+    private TMDBMovieDetail fetchMovieDetail(long tmdbId, String appendToResponse) {
+        String detailUrl = UriComponentsBuilder.fromHttpUrl(apiUrl + "/movie/" + tmdbId)
+                .queryParam("api_key", apiKey)
+                .queryParam("append_to_response", appendToResponse)
+                .build()
+                .toUriString();
+
+        TMDBMovieDetail detailResponse = restTemplate.execute(detailUrl, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                response -> parseMovieDetail(response.getBody()));
+
+        if (detailResponse == null) {
+            throw new RuntimeException("Failed to fetch movie details from TMDB");
+        }
+
+        if (detailResponse.status_code != null) {
+            handleTMDBError(detailResponse.status_code, detailResponse.status_message);
+        }
+        return detailResponse;
+    }
+
+    /**
+     * Reads the stored fields of a movie detail response, skipping everything else
+     * (overview, production companies, cast, image metadata and so on) without binding it.
+     */
+    private static TMDBMovieDetail parseMovieDetail(InputStream body) throws IOException {
+        TMDBMovieDetail detail = new TMDBMovieDetail();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            parser.nextToken();
+            readObject(parser, (field, value) -> {
+                switch (field) {
+                    case "title" -> detail.title = value.getValueAsString();
+                    case "release_date" -> detail.release_date = value.getValueAsString();
+                    case "poster_path" -> detail.poster_path = value.getValueAsString();
+                    case "backdrop_path" -> detail.backdrop_path = value.getValueAsString();
+                    case "status_code" -> detail.status_code = value.getValueAsInt();
+                    case "status_message" -> detail.status_message = value.getValueAsString();
+                    case "genres" -> readArray(value, genre -> readObject(genre, (genreField, genreValue) -> {
+                        if ("id".equals(genreField)) {
+                            detail.genre_ids.add(genreValue.getValueAsInt());
+                        } else {
+                            genreValue.skipChildren();
+                        }
+                    }));
+                    case "credits" -> readObject(value, (creditsField, credits) -> {
+                        if ("crew".equals(creditsField)) {
+                            detail.director = readDirectors(credits);
+                        } else {
+                            credits.skipChildren();
+                        }
+                    });
+                    case "similar" -> readObject(value, (similarField, similar) -> {
+                        if ("results".equals(similarField)) {
+                            readArray(similar, result -> detail.similar.add(readMovieResult(result)));
+                        } else {
+                            similar.skipChildren();
+                        }
+                    });
+                    case "images" -> readObject(value, (imagesField, images) -> {
+                        if ("posters".equals(imagesField) && detail.poster_path == null) {
+                            detail.poster_path = readFirstFilePath(images);
+                        } else if ("backdrops".equals(imagesField) && detail.backdrop_path == null) {
+                            detail.backdrop_path = readFirstFilePath(images);
+                        } else {
+                            images.skipChildren();
+                        }
+                    });
+                    default -> value.skipChildren();
+                }
+            });
+        }
+        return detail;
+    }
+
+    /**
+     * Joins the names of every crew member credited as director.
+     */
+    private static String readDirectors(JsonParser parser) throws IOException {
+        List<String> directors = new ArrayList<>();
+        readArray(parser, member -> {
+            String[] jobAndName = new String[2];
+            readObject(member, (field, value) -> {
+                switch (field) {
+                    case "job" -> jobAndName[0] = value.getValueAsString();
+                    case "name" -> jobAndName[1] = value.getValueAsString();
+                    default -> value.skipChildren();
+                }
+            });
+            if ("Director".equals(jobAndName[0]) && jobAndName[1] != null && !directors.contains(jobAndName[1])) {
+                directors.add(jobAndName[1]);
+            }
+        });
+        return directors.isEmpty() ? null : String.join(", ", directors);
+    }
+
+    private static TMDBMovieResult readMovieResult(JsonParser parser) throws IOException {
+        TMDBMovieResult result = new TMDBMovieResult();
+        readObject(parser, (field, value) -> {
+            switch (field) {
+                case "id" -> result.id = value.getValueAsInt();
+                case "title" -> result.title = value.getValueAsString();
+                default -> value.skipChildren();
+            }
+        });
+        return result;
+    }
+
+    private static String readFirstFilePath(JsonParser parser) throws IOException {
+        String[] filePath = new String[1];
+        readArray(parser, image -> readObject(image, (field, value) -> {
+            if ("file_path".equals(field) && filePath[0] == null) {
+                filePath[0] = value.getValueAsString();
+            } else {
+                value.skipChildren();
+            }
+        }));
+        return filePath[0];
+    }
+
+    /**
+     * Calls the reader for every field of the object at the current token, with the parser
+     * on the field value. Skips the value if it is not an object.
+     */
+    private static void readObject(JsonParser parser, FieldReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            reader.read(field, parser);
+        }
+    }
+
+    /**
+     * Calls the reader for every element of the array at the current token, with the parser
+     * on the element. Skips the value if it is not an array.
+     */
+    private static void readArray(JsonParser parser, ElementReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            reader.read(parser);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FieldReader {
+        void read(String field, JsonParser value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ElementReader {
+        void read(JsonParser element) throws IOException;
+    }
+
+    /**
+     * Keeps every genre: names for display, mask for filtering.
+     */
+    private void setGenres(Movie movie, List<Integer> genreIds) {
+        if (genreIds == null || genreIds.isEmpty()) {
+            return;
+        }
+        List<Genre> genres = genreIds.stream()
+                .map(Genre::fromTmdbId)
+                .flatMap(Optional::stream)
+                .distinct()
+                .collect(Collectors.toList());
+        movie.setGenre(genres.isEmpty() ? "Unknown" : genres.stream()
+                .map(Genre::getDisplayName)
+                .collect(Collectors.joining(", ")));
+        movie.setGenreMask(Genre.maskOf(genres));
+    }
+
+    private static String yearOf(String releaseDate) {
+        return releaseDate != null && releaseDate.length() >= 4 ? releaseDate.substring(0, 4) : null;
+    }
+
     private void handleTMDBError(Integer statusCode, String statusMessage) {
         if (statusCode == 7) {
             throw new RuntimeException("Invalid TMDB API key. Please check your configuration.");
@@ -194,24 +419,12 @@ public class TMDBService {
         }
     }
 
-    private void saveMovieImage(Movie movie, byte[] imageData, String imageType, String contentType) {
-        MovieImage movieImage = new MovieImage();
-        movieImage.setImageType(imageType);
-        movieImage.setImageData(imageData);
-        movieImage.setContentType(contentType);
-        movie.addImage(movieImage);
-    }
-
-    private byte[] downloadImage(String imageUrl) throws IOException {
-        try (InputStream in = new URL(imageUrl).openStream();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-            }
-            return out.toByteArray();
+    private void downloadImage(Movie movie, String imageUrl, String imageType) {
+        try {
+            movie.addDownloadedImage(imageDownloader.download(imageUrl, imageType));
+        } catch (IOException | RuntimeException e) {
+            // Log the error but continue
+            System.err.println("Failed to download " + imageType.toLowerCase() + " image: " + e.getMessage());
         }
     }
 
@@ -234,34 +447,20 @@ public class TMDBService {
         public String poster_path;
         public String backdrop_path;
         public String director;
+        public List<Integer> genre_ids = new ArrayList<>();
+        public List<TMDBMovieResult> similar = new ArrayList<>();
         public Integer status_code;
         public String status_message;
     }
 
-    private static class TMDBSimilarMoviesResponse {
-        public List<TMDBMovieResult> results;
+    private static class TMDBChangesResponse {
+        public List<TMDBChange> results;
+        public Integer total_pages;
         public Integer status_code;
         public String status_message;
     }
 
-    private String fetchSimilarMovie(int movieId) {
-        try {
-            String similarMoviesUrl = UriComponentsBuilder.fromHttpUrl(apiUrl + "/movie/" + movieId + "/similar")
-                    .queryParam("api_key", apiKey)
-                    .build()
-                    .toUriString();
-
-            TMDBSimilarMoviesResponse similarResponse = restTemplate.getForObject(similarMoviesUrl, TMDBSimilarMoviesResponse.class);
-            
-            if (similarResponse == null || similarResponse.results == null || similarResponse.results.isEmpty()) {
-                return null;
-            }
-
-            // Get the first similar movie's title
-            return similarResponse.results.get(0).title;
-        } catch (Exception e) {
-            System.err.println("Error fetching similar movies: " + e.getMessage());
-            return null;
-        }
+    private static class TMDBChange {
+        public long id;
     }
-} 
\ No newline at end of file
+}
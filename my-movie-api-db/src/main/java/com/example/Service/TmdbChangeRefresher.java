@@ -0,0 +1,153 @@
+package com.example.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Config.UpstreamRequestScheduler;
+import com.example.Config.UpstreamRequestScheduler.Priority;
+import com.example.Model.Movie;
+import com.example.Model.SyncCheckpoint;
+import com.example.Repository.MovieRepository;
+import com.example.Repository.SyncCheckpointRepository;
+
+/**
+ * Scheduled refresh of stored movie metadata from the TMDB change feed.
+ * <p>
+ * Each run asks TMDB which movies changed since the persisted checkpoint, intersects the
+ * answer with the TMDB IDs on the watchlist and re-fetches only those movies, in batches
+ * separated by a pause to stay within the TMDB rate limit. Only differing fields are written,
+ * see {@link MovieService#refreshMovieMetadata}. The checkpoint advances after every
+ * completed date window, so a failed run resumes where it stopped.
+ * <p>
+ * The service is injected lazily, so this eager bean does not build the in-memory indexes at
+ * startup under lazy initialization.
+ */
+@Component
+public class TmdbChangeRefresher {
+    private static final Logger logger = LoggerFactory.getLogger(TmdbChangeRefresher.class);
+
+    /**
+     * Name of the checkpoint row owned by this job.
+     */
+    public static final String CHECKPOINT_NAME = "tmdb-movie-changes";
+
+    /**
+     * Longest date range TMDB accepts for one change query.
+     */
+    private static final int MAX_WINDOW_DAYS = 14;
+
+    private final TMDBService tmdbService;
+    private final MovieService movieService;
+    private final MovieRepository movieRepository;
+    private final SyncCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long batchPauseMs;
+
+    public TmdbChangeRefresher(
+            TMDBService tmdbService,
+            @Lazy MovieService movieService,
+            MovieRepository movieRepository,
+            SyncCheckpointRepository checkpointRepository,
+            @Value("${movies.refresh.enabled:true}") boolean enabled,
+            @Value("${movies.refresh.batch-size:20}") int batchSize,
+            @Value("${movies.refresh.batch-pause-ms:1000}") long batchPauseMs) {
+        this.tmdbService = tmdbService;
+        this.movieService = movieService;
+        this.movieRepository = movieRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.batchPauseMs = batchPauseMs;
+    }
+
+    /**
+     * Runs the refresh up to today (UTC) with background priority for its TMDB calls.
+     * Failures are logged and retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${movies.refresh.interval-ms:21600000}",
+            initialDelayString = "${movies.refresh.initial-delay-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            UpstreamRequestScheduler.callAs(Priority.BACKGROUND, () -> refreshUntil(LocalDate.now(ZoneOffset.UTC)));
+        } catch (RuntimeException e) {
+            logger.warn("TMDB change refresh failed, retrying next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Refreshes the movies changed in TMDB between the checkpoint and the given day.
+     * Without a checkpoint the refresh starts from the previous day. The last window always
+     * ends today and the checkpoint stays on today, because TMDB keeps adding changes to it.
+     *
+     * @param today the last day to query
+     * @return the number of movies that changed
+     * @throws RuntimeException if a TMDB call fails; completed windows stay checkpointed
+     */
+    public int refreshUntil(LocalDate today) {
+        SyncCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> new SyncCheckpoint(CHECKPOINT_NAME, today.minusDays(1)));
+        Set<Long> storedTmdbIds = new HashSet<>(movieRepository.findAllTmdbIds());
+
+        int refreshed = 0;
+        LocalDate start = checkpoint.getResumeFrom();
+        while (!start.isAfter(today)) {
+            LocalDate end = start.plusDays(MAX_WINDOW_DAYS - 1);
+            if (end.isAfter(today)) {
+                end = today;
+            }
+
+            Set<Long> changedIds = tmdbService.fetchChangedMovieIds(start, end);
+            changedIds.retainAll(storedTmdbIds);
+            logger.info("TMDB reports {} changed watchlist movies between {} and {}", changedIds.size(), start, end);
+            refreshed += refreshInBatches(new ArrayList<>(changedIds));
+
+            checkpoint.setResumeFrom(end.equals(today) ? today : end.plusDays(1));
+            checkpoint = checkpointRepository.save(checkpoint);
+            start = end.plusDays(1);
+        }
+        return refreshed;
+    }
+
+    private int refreshInBatches(List<Long> tmdbIds) {
+        int refreshed = 0;
+        for (int from = 0; from < tmdbIds.size(); from += batchSize) {
+            if (from > 0) {
+                pause();
+            }
+            for (Long tmdbId : tmdbIds.subList(from, Math.min(from + batchSize, tmdbIds.size()))) {
+                Optional<Movie> fetched = tmdbService.fetchMovieDetails(tmdbId);
+                if (fetched.isEmpty()) {
+                    logger.warn("TMDB no longer knows movie {}, keeping the stored metadata", tmdbId);
+                    continue;
+                }
+                refreshed += movieService.refreshMovieMetadata(fetched.get());
+            }
+        }
+        return refreshed;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(batchPauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("TMDB change refresh interrupted", e);
+        }
+    }
+}
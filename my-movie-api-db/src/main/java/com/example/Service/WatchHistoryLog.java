@@ -0,0 +1,587 @@
+package com.example.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Dto.WatchHistory;
+import com.example.Event.MovieChangeEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only log of watched status changes, from which the watch history of each movie on a
+ * watchlist is served. The watched flag of a watchlist entry is the materialised latest state
+ * of this log.
+ * <p>
+ * Every committed toggle appends a fixed-size checksummed record to the active segment file,
+ * and removing a movie from a watchlist appends a record that ends its history, so a change
+ * costs one sequential write and nothing is updated in place. Callers wait until their record
+ * is on disk, but concurrent callers share one fsync: whoever finds no sync running forces the
+ * segment for every record appended so far (group commit).
+ * <p>
+ * On startup the segments are replayed in order into per-movie histories held in memory,
+ * truncating a torn record at the end of a segment. The active segment is rolled once it
+ * reaches {@code movies.history.segment-bytes}, and compaction rewrites the closed segments into
+ * one holding only the histories of movies still on a watchlist. Every segment records the
+ * oldest segment it replaces, so segments left behind by an interrupted compaction are skipped
+ * on replay.
+ *
+ * @see MovieService#getWatchHistory(long, Long)
+ */
+@Component
+public class WatchHistoryLog {
+    private static final Logger logger = LoggerFactory.getLogger(WatchHistoryLog.class);
+
+    private static final String METRIC_PREFIX = "movies.history";
+
+    private static final int SEGMENT_MAGIC = 0x57484C31;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("history-(\\d{12})\\.log");
+    /** Header layout: magic, number of the oldest segment replaced. */
+    private static final int HEADER_BYTES = 4 + 8;
+    /** Record layout: type, user ID, movie ID, epoch milliseconds, CRC-32 of everything before it. */
+    private static final int RECORD_BYTES = 1 + 8 + 8 + 8 + 4;
+    private static final int IO_BUFFER_RECORDS = 32 * 1024;
+
+    private static final byte WATCHED = 1;
+    private static final byte UNWATCHED = 2;
+    private static final byte REMOVED = 3;
+
+    private final Path directory;
+    private final boolean enabled;
+    private final long segmentBytes;
+    private final boolean sync;
+    private final int compactionMinSegments;
+
+    private final Map<EntryKey, History> histories = new ConcurrentHashMap<>();
+    private final Object compactionLock = new Object();
+
+    /* Guarded by this */
+    private final TreeSet<Long> closedSegments = new TreeSet<>();
+    private FileChannel active;
+    private long activeNumber;
+    private long activeSize;
+    private long appended;
+    private long synced;
+    private boolean syncing;
+    private long liveRecords;
+    private long deadRecords;
+
+    private final Counter records;
+    private final Timer syncTimer;
+    private final DistributionSummary syncBatch;
+
+    public WatchHistoryLog(
+            MeterRegistry meterRegistry,
+            @Value("${movies.history.dir:watch-history}") Path directory,
+            @Value("${movies.history.enabled:true}") boolean enabled,
+            @Value("${movies.history.segment-bytes:67108864}") long segmentBytes,
+            @Value("${movies.history.sync:true}") boolean sync,
+            @Value("${movies.history.compaction-min-segments:4}") int compactionMinSegments) {
+        this.directory = directory;
+        this.enabled = enabled;
+        this.segmentBytes = Math.max(segmentBytes, HEADER_BYTES + RECORD_BYTES);
+        this.sync = sync;
+        this.compactionMinSegments = compactionMinSegments;
+        this.records = Counter.builder(METRIC_PREFIX + ".records")
+                .description("Watch history records appended")
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder(METRIC_PREFIX + ".sync")
+                .description("Latency of watch history fsyncs")
+                .register(meterRegistry);
+        this.syncBatch = DistributionSummary.builder(METRIC_PREFIX + ".sync.batch")
+                .description("Records made durable by one watch history fsync")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".segments", this, WatchHistoryLog::segmentCount)
+                .description("Watch history segment files, including the active one")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".movies", histories, Map::size)
+                .description("Watchlist entries with a watch history")
+                .register(meterRegistry);
+    }
+
+    private record EntryKey(long userId, long movieId) {
+    }
+
+    /**
+     * @return true if watched status changes are logged
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replays the segments into memory and starts a new active segment, unless the log is
+     * disabled.
+     *
+     * @throws IOException if the log cannot be read or the new segment created
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        histories.clear();
+        closedSegments.clear();
+        liveRecords = 0;
+        deadRecords = 0;
+        List<Long> segments = replayableSegments();
+        long replayed = 0;
+        for (Long number : segments) {
+            replayed += replay(number);
+        }
+        closedSegments.addAll(segments);
+        long next = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        openActive(next);
+        logger.info("Watch history replayed {} records of {} movies from {} segments in {} ms", replayed,
+                histories.size(), segments.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Logs a committed watched status change, or the removal of a movie from a watchlist, and
+     * waits until it is on disk. Catalogue changes and additions are not logged.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        if (!enabled || event.isCatalogueChange()) {
+            return;
+        }
+        try {
+            if (event.type() == MovieChangeEvent.Type.DELETED) {
+                append(REMOVED, event.userId(), event.movieId());
+            } else if (event.type() == MovieChangeEvent.Type.UPDATED
+                    && event.before().watched() != event.after().watched()) {
+                append(event.after().watched() ? WATCHED : UNWATCHED, event.userId(), event.movieId());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to log the watched status change of movie {} for user {}: {}",
+                    event.movieId(), event.userId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the logged watched status changes of a movie on a user's watchlist.
+     *
+     * @param userId the user ID
+     * @param movieId the movie's database ID
+     * @return the changes, oldest first, empty if none was logged
+     */
+    public List<WatchHistory.Event> events(long userId, long movieId) {
+        History history = histories.get(new EntryKey(userId, movieId));
+        if (history == null) {
+            return List.of();
+        }
+        long[] packed = history.toArray();
+        List<WatchHistory.Event> events = new ArrayList<>(packed.length);
+        for (long event : packed) {
+            events.add(new WatchHistory.Event((event & 1) == 1, Instant.ofEpochMilli(event >>> 1)));
+        }
+        return events;
+    }
+
+    /**
+     * Compacts the log once it has {@code movies.history.compaction-min-segments} segments, or
+     * when at least half of its records belong to histories that were removed.
+     *
+     * @throws IOException if the compacted segment cannot be written
+     */
+    @Scheduled(fixedDelayString = "${movies.history.compaction-interval-ms:3600000}",
+            initialDelayString = "${movies.history.compaction-interval-ms:3600000}")
+    public void compactIfWorthwhile() throws IOException {
+        boolean worthwhile;
+        synchronized (this) {
+            worthwhile = active != null && (segmentCount() >= compactionMinSegments
+                    || (deadRecords > 0 && deadRecords >= liveRecords));
+        }
+        if (worthwhile) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the closed segments and the current active one into a single segment holding
+     * only the histories of movies still on a watchlist. Appends continue in a new active
+     * segment meanwhile.
+     *
+     * @throws IOException if the compacted segment cannot be written
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            long first;
+            long last;
+            Map<EntryKey, long[]> live = new HashMap<>();
+            synchronized (this) {
+                if (active == null || (closedSegments.isEmpty() && activeSize == HEADER_BYTES)) {
+                    return;
+                }
+                roll();
+                first = closedSegments.first();
+                last = closedSegments.last();
+                histories.forEach((key, history) -> live.put(key, history.toArray()));
+                deadRecords = 0;
+            }
+
+            Path compacting = directory.resolve(segmentName(last) + ".compacting");
+            long written = 0;
+            try (FileChannel out = FileChannel.open(compacting, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_RECORDS * RECORD_BYTES);
+                buffer.putInt(SEGMENT_MAGIC).putLong(first);
+                for (Map.Entry<EntryKey, long[]> entry : live.entrySet()) {
+                    for (long event : entry.getValue()) {
+                        if (buffer.remaining() < RECORD_BYTES) {
+                            writeFully(out, buffer.flip());
+                            buffer.clear();
+                        }
+                        encode(buffer, (event & 1) == 1 ? WATCHED : UNWATCHED,
+                                entry.getKey().userId(), entry.getKey().movieId(), event >>> 1);
+                        written++;
+                    }
+                }
+                writeFully(out, buffer.flip());
+                out.force(true);
+            }
+            Files.move(compacting, directory.resolve(segmentName(last)),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<Long> replaced;
+            synchronized (this) {
+                replaced = new ArrayList<>(closedSegments.headSet(last));
+                closedSegments.headSet(last).clear();
+            }
+            for (Long number : replaced) {
+                Files.deleteIfExists(directory.resolve(segmentName(number)));
+            }
+            logger.info("Watch history compacted {} segments into one with {} records", replaced.size() + 1, written);
+        }
+    }
+
+    /**
+     * Syncs and closes the active segment.
+     *
+     * @throws IOException if the segment cannot be synced
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (active == null) {
+            return;
+        }
+        awaitNoSync();
+        try {
+            active.force(false);
+            synced = appended;
+        } finally {
+            active.close();
+            active = null;
+        }
+    }
+
+    private void append(byte type, long userId, long movieId) throws IOException {
+        long sequence;
+        synchronized (this) {
+            if (active == null) {
+                return;
+            }
+            if (activeSize + RECORD_BYTES > segmentBytes) {
+                roll();
+            }
+            long at = System.currentTimeMillis();
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            encode(record, type, userId, movieId, at);
+            record.flip();
+            while (record.hasRemaining()) {
+                active.write(record, activeSize + record.position());
+            }
+            activeSize += RECORD_BYTES;
+            apply(type, userId, movieId, at);
+            sequence = ++appended;
+        }
+        records.increment();
+        if (sync) {
+            awaitSynced(sequence);
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number is on disk. If no sync is running,
+     * the caller forces the active segment itself, covering every record appended so far;
+     * otherwise it waits for the running sync and checks again.
+     */
+    private void awaitSynced(long sequence) throws IOException {
+        while (true) {
+            FileChannel channel;
+            long target;
+            long previous;
+            synchronized (this) {
+                while (synced < sequence && syncing) {
+                    waitForSync();
+                }
+                if (synced >= sequence || active == null) {
+                    return;
+                }
+                syncing = true;
+                channel = active;
+                target = appended;
+                previous = synced;
+            }
+            boolean forced = false;
+            long started = System.nanoTime();
+            try {
+                force(channel);
+                forced = true;
+            } finally {
+                syncTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                synchronized (this) {
+                    syncing = false;
+                    if (forced) {
+                        synced = Math.max(synced, target);
+                        syncBatch.record(target - previous);
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces the active segment to disk for a group commit. Overridable so tests can hold a
+     * sync open while other appends queue up behind it.
+     *
+     * @param channel the active segment
+     * @throws IOException if the segment cannot be synced
+     */
+    protected void force(FileChannel channel) throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Syncs and closes the active segment and opens the next one. Called holding the lock.
+     */
+    private void roll() throws IOException {
+        awaitNoSync();
+        active.force(false);
+        synced = appended;
+        active.close();
+        closedSegments.add(activeNumber);
+        openActive(activeNumber + 1);
+    }
+
+    private void awaitNoSync() throws IOException {
+        while (syncing) {
+            waitForSync();
+        }
+    }
+
+    private void waitForSync() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the watch history sync");
+        }
+    }
+
+    private void openActive(long number) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(segmentName(number)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(SEGMENT_MAGIC).putLong(number).flip();
+        writeFully(channel, header);
+        active = channel;
+        activeNumber = number;
+        activeSize = HEADER_BYTES;
+    }
+
+    /**
+     * Lists the segments to replay in order. Segments replaced by a compacted one and segments
+     * without a readable header are deleted, as are files of an interrupted compaction.
+     */
+    private List<Long> replayableSegments() throws IOException {
+        TreeMap<Long, Path> found = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    found.put(Long.parseLong(matcher.group(1)), file);
+                } else if (name.endsWith(".compacting")) {
+                    Files.delete(file);
+                }
+            }
+        }
+        List<Long> segments = new ArrayList<>();
+        long oldestReplaced = Long.MAX_VALUE;
+        for (Map.Entry<Long, Path> segment : found.descendingMap().entrySet()) {
+            long replaces = readHeader(segment.getValue());
+            if (replaces < 0 || segment.getKey() >= oldestReplaced) {
+                logger.warn("Deleting {} watch history segment {}",
+                        replaces < 0 ? "unreadable" : "compacted", segment.getValue().getFileName());
+                Files.delete(segment.getValue());
+                continue;
+            }
+            segments.add(0, segment.getKey());
+            oldestReplaced = Math.min(oldestReplaced, replaces);
+        }
+        return segments;
+    }
+
+    /**
+     * @return the number of the oldest segment the given one replaces, or -1 if its header is unreadable
+     */
+    private static long readHeader(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != SEGMENT_MAGIC) {
+                return -1;
+            }
+            return header.getLong();
+        }
+    }
+
+    /**
+     * Applies the records of a segment to the in-memory histories, truncating the segment at
+     * the first torn or corrupt record.
+     *
+     * @return the number of records applied
+     */
+    private long replay(long number) throws IOException {
+        Path file = directory.resolve(segmentName(number));
+        long applied = 0;
+        long offset = HEADER_BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_RECORDS * RECORD_BYTES);
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            boolean corrupt = false;
+            while (!corrupt && channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    int start = buffer.position();
+                    crc.reset();
+                    crc.update(buffer.slice(start, RECORD_BYTES - 4));
+                    if ((int) crc.getValue() != buffer.getInt(start + RECORD_BYTES - 4)) {
+                        corrupt = true;
+                        break;
+                    }
+                    byte type = buffer.get();
+                    long userId = buffer.getLong();
+                    long movieId = buffer.getLong();
+                    long at = buffer.getLong();
+                    buffer.getInt();
+                    apply(type, userId, movieId, at);
+                    applied++;
+                    offset += RECORD_BYTES;
+                }
+                buffer.compact();
+            }
+            if (offset < size) {
+                logger.warn("Truncating {} unreadable bytes at the end of watch history segment {}",
+                        size - offset, file.getFileName());
+                channel.truncate(offset);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Applies a record to the in-memory histories. Called holding the lock, or during replay.
+     */
+    private void apply(byte type, long userId, long movieId, long at) {
+        EntryKey key = new EntryKey(userId, movieId);
+        if (type == REMOVED) {
+            History removed = histories.remove(key);
+            int removedRecords = removed != null ? removed.size() : 0;
+            liveRecords -= removedRecords;
+            deadRecords += 1 + removedRecords;
+        } else {
+            histories.computeIfAbsent(key, k -> new History()).add(at << 1 | (type == WATCHED ? 1 : 0));
+            liveRecords++;
+        }
+    }
+
+    private synchronized int segmentCount() {
+        return closedSegments.size() + (active != null ? 1 : 0);
+    }
+
+    private static void encode(ByteBuffer buffer, byte type, long userId, long movieId, long at) {
+        int start = buffer.position();
+        buffer.put(type).putLong(userId).putLong(movieId).putLong(at);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, RECORD_BYTES - 4));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String segmentName(long number) {
+        return String.format("history-%012d.log", number);
+    }
+
+    /**
+     * Watched status changes of one watchlist entry, packed as epoch milliseconds shifted left
+     * by one with the new status in the lowest bit.
+     */
+    private static final class History {
+        private long[] events = new long[2];
+        private int size;
+
+        private synchronized void add(long event) {
+            if (size == events.length) {
+                events = Arrays.copyOf(events, size * 2);
+            }
+            events[size++] = event;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized long[] toArray() {
+            return Arrays.copyOf(events, size);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Event.MovieChangeEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opt-in write-behind buffer for watched status toggles.
+ * <p>
+ * When enabled, {@link MovieService#updateWatchedStatus} records the new status here instead of
+ * updating the watchlist entry. Repeated toggles of the same user's movie coalesce into one
+ * pending value, and readers see pending values through {@link #pendingWatched}, so clients read
+ * their own writes. The buffer also counts the coalesced toggles: every toggle raises the entry
+ * version by one, both as reported through {@link #pendingToggles} and when written, so no two
+ * states of an entry share a version. Pending values are written with one UPDATE per user and batch every flush
+ * interval, or as soon as the maximum batch size is reached, and once more when the application
+ * shuts down.
+ * <p>
+ * A value is removed from the buffer only after it was written and only if it was not toggled
+ * again in the meantime, so a failed flush is retried on the next round. The pending value of
+ * an entry deleted from its watchlist is dropped once the delete commits.
+ */
+@Component
+public class WatchedStatusWriteBehind {
+    private static final Logger logger = LoggerFactory.getLogger(WatchedStatusWriteBehind.class);
+
+    private static final String METRIC_PREFIX = "movies.watched.write-behind";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+
+    private final ConcurrentHashMap<EntryKey, Toggle> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "watched-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter toggles;
+    private final Counter rowsWritten;
+    private final Timer flushTimer;
+
+    public WatchedStatusWriteBehind(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${movies.watched.write-behind.enabled:false}") boolean enabled,
+            @Value("${movies.watched.write-behind.max-batch-size:500}") int maxBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.toggles = Counter.builder(METRIC_PREFIX + ".toggles")
+                .description("Watched status toggles recorded in the write-behind buffer")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder(METRIC_PREFIX + ".rows")
+                .description("Rows written by write-behind flushes")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("Latency of write-behind flushes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".pending", pending, Map::size)
+                .description("Toggles waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".coalescing.ratio", this, WatchedStatusWriteBehind::coalescingRatio)
+                .description("Share of recorded toggles that never needed their own row write")
+                .register(meterRegistry);
+    }
+
+    private record EntryKey(long userId, long movieId) {
+    }
+
+    /**
+     * The latest status of an entry and the number of toggles coalesced into it.
+     */
+    private record Toggle(boolean watched, int count) {
+    }
+
+    /**
+     * @return true if watched status toggles are buffered instead of written directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a watched status toggle, replacing any pending value for the user's movie.
+     *
+     * @param userId the user ID
+     * @param movieId the movie's database ID
+     * @param watched the new watched status
+     */
+    public void record(long userId, long movieId, boolean watched) {
+        pending.merge(new EntryKey(userId, movieId), new Toggle(watched, 1),
+                (previous, toggle) -> new Toggle(watched, previous.count() + 1));
+        toggles.increment();
+        if (pending.size() >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Gets the watched status recorded for a user's movie but not yet written.
+     *
+     * @param userId the user ID
+     * @param movieId the movie's database ID
+     * @return the pending status, or null if the stored entry is current
+     */
+    public Boolean pendingWatched(long userId, long movieId) {
+        Toggle toggle = pending(userId, movieId);
+        return toggle == null ? null : toggle.watched();
+    }
+
+    /**
+     * Gets the number of toggles recorded for a user's movie but not yet written, which is how
+     * much the flush will raise the entry version.
+     *
+     * @param userId the user ID
+     * @param movieId the movie's database ID
+     * @return the number of pending toggles, 0 if the stored entry is current
+     */
+    public int pendingToggles(long userId, long movieId) {
+        Toggle toggle = pending(userId, movieId);
+        return toggle == null ? 0 : toggle.count();
+    }
+
+    /**
+     * Drops the pending value of a movie deleted from a user's watchlist, so a re-added entry
+     * does not inherit it. Runs after the delete commits.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        if (event.type() == MovieChangeEvent.Type.DELETED && event.userId() != null && !pending.isEmpty()) {
+            pending.remove(new EntryKey(event.userId(), event.before().id()));
+        }
+    }
+
+    /**
+     * Writes the pending toggles, at most one batch per statement. Concurrent calls wait for
+     * the running flush and then write whatever is still pending.
+     */
+    @Scheduled(fixedDelayString = "${movies.watched.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Map.Entry<EntryKey, Toggle>> batch = new ArrayList<>(maxBatchSize);
+            for (Map.Entry<EntryKey, Toggle> entry : pending.entrySet()) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                if (batch.size() == maxBatchSize) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Writing {} pending watched status toggles failed, retrying next round: {}",
+                    pending.size(), e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything still pending before the data source is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+        if (!pending.isEmpty()) {
+            logger.error("{} watched status toggles could not be written before shutdown", pending.size());
+        }
+    }
+
+    /**
+     * Updates the entries of one batch with a single statement per user and drops the written
+     * values that were not toggled again since the batch was taken.
+     */
+    private void write(List<Map.Entry<EntryKey, Toggle>> batch) {
+        Map<Long, List<Map.Entry<EntryKey, Toggle>>> byUser = new HashMap<>();
+        for (Map.Entry<EntryKey, Toggle> entry : batch) {
+            byUser.computeIfAbsent(entry.getKey().userId(), id -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<Long, List<Map.Entry<EntryKey, Toggle>>> user : byUser.entrySet()) {
+            write(user.getKey(), user.getValue());
+        }
+        logger.debug("Wrote {} watched status toggles of {} users", batch.size(), byUser.size());
+    }
+
+    private void write(long userId, List<Map.Entry<EntryKey, Toggle>> toggles) {
+        List<Long> ids = new ArrayList<>(toggles.size());
+        List<Long> watchedIds = new ArrayList<>();
+        Map<Integer, List<Long>> idsByCount = new TreeMap<>();
+        for (Map.Entry<EntryKey, Toggle> entry : toggles) {
+            ids.add(entry.getKey().movieId());
+            if (entry.getValue().watched()) {
+                watchedIds.add(entry.getKey().movieId());
+            }
+            if (entry.getValue().count() > 1) {
+                idsByCount.computeIfAbsent(entry.getValue().count(), count -> new ArrayList<>())
+                        .add(entry.getKey().movieId());
+            }
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("userId", userId);
+        parameters.put("ids", ids);
+        parameters.put("updatedAt", Timestamp.from(Instant.now()));
+        String watchedValue;
+        if (watchedIds.isEmpty()) {
+            watchedValue = "0";
+        } else if (watchedIds.size() == ids.size()) {
+            watchedValue = "1";
+        } else {
+            watchedValue = "case when movie_id in (:watchedIds) then 1 else 0 end";
+            parameters.put("watchedIds", watchedIds);
+        }
+        // Entries toggled more than once are raised by their number of toggles
+        StringBuilder increment = new StringBuilder();
+        for (Map.Entry<Integer, List<Long>> group : idsByCount.entrySet()) {
+            String name = "toggledIds" + group.getKey();
+            increment.append(" when movie_id in (:").append(name).append(") then ").append(group.getKey());
+            parameters.put(name, group.getValue());
+        }
+        String versionIncrement = increment.isEmpty() ? "1" : "case" + increment + " else 1 end";
+
+        flushTimer.record(() -> jdbcTemplate.update(
+                "update watchlist_entries set watched = " + watchedValue + ", version = version + "
+                        + versionIncrement + ", updated_at = :updatedAt where user_id = :userId and movie_id in (:ids)",
+                new MapSqlParameterSource(parameters)));
+        rowsWritten.increment(toggles.size());
+        for (Map.Entry<EntryKey, Toggle> entry : toggles) {
+            Toggle written = entry.getValue();
+            // Toggles recorded during the write stay pending, less the ones now in the version
+            pending.computeIfPresent(entry.getKey(), (key, current) -> {
+                if (current.equals(written)) {
+                    return null;
+                }
+                return current.count() > written.count()
+                        ? new Toggle(current.watched(), current.count() - written.count())
+                        : current;
+            });
+        }
+    }
+
+    private Toggle pending(long userId, long movieId) {
+        return pending.isEmpty() ? null : pending.get(new EntryKey(userId, movieId));
+    }
+
+    private double coalescingRatio() {
+        double recorded = toggles.count();
+        return recorded == 0 ? 0 : 1 - rowsWritten.count() / recorded;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.Service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Startup backfill of the default watchlist for databases created before watchlists were per user.
+ * <p>
+ * Those databases keep the watched state in the {@code movies.watched} column and have no
+ * watchlist entries. Schema updates add the {@code watchlist_entries} table but not its rows, so
+ * without this backfill every existing movie would disappear from the API after an upgrade.
+ * While the legacy column exists, every live movie no watchlist entry references is linked to the
+ * watchlist of user 0 with its old watched state. The statement is idempotent: once the movies
+ * are linked, it inserts nothing. Databases without the column, created from the current schema,
+ * are left alone. {@code movie_watchlist_dbv2_watchlists.sql} performs the same migration by hand
+ * and drops the column afterwards.
+ * <p>
+ * Runs after the entity manager factory, so the schema update has created the table.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class WatchlistBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistBackfill.class);
+
+    private static final String BACKFILL =
+            "insert into watchlist_entries (user_id, movie_id, watched, added_at, version) "
+                    + "select 0, m.id, coalesce(m.watched, false), current_timestamp(6), 0 from movies m "
+                    + "where m.deleted_at is null "
+                    + "and not exists (select 1 from watchlist_entries e where e.movie_id = m.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WatchlistBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void run() {
+        backfill();
+    }
+
+    /**
+     * Links the unreferenced movies of a legacy database to the watchlist of user 0.
+     *
+     * @return the number of watchlist entries created
+     */
+    public int backfill() {
+        Boolean legacy = jdbcTemplate.execute((ConnectionCallback<Boolean>) WatchlistBackfill::hasLegacyColumn);
+        if (!Boolean.TRUE.equals(legacy)) {
+            return 0;
+        }
+        int linked = jdbcTemplate.update(BACKFILL);
+        if (linked > 0) {
+            logger.info("Linked {} movies of the legacy catalogue to the watchlist of user 0", linked);
+        }
+        return linked;
+    }
+
+    private static boolean hasLegacyColumn(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        // Unquoted names are stored lower case by MySQL and upper case by H2
+        for (String[] names : new String[][] {{"movies", "watched"}, {"MOVIES", "WATCHED"}}) {
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, names[0], names[1])) {
+                if (columns.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
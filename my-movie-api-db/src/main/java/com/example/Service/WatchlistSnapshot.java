@@ -0,0 +1,598 @@
+package com.example.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Binary backup and restore of the live catalogue, the similar movies, every user's watchlist
+ * entries and the image blobs.
+ * <p>
+ * A snapshot starts with a 14 byte header (magic, format version, creation time in epoch
+ * milliseconds) followed by records of the form type (1 byte), payload length (4 bytes),
+ * payload and a CRC32 of the type, length and payload. Movies come first, then their similar
+ * movies, the watchlist entries and the images, so a restore never inserts a row before the one
+ * it references; an END record with the row counts closes the snapshot and detects truncation.
+ * Each IMAGE record carries the image metadata and is followed by the raw image bytes in CHUNK
+ * records of at most {@value #CHUNK_BYTES} bytes, terminated by an empty chunk, so blobs are
+ * streamed in both directions and never held in memory whole.
+ * <p>
+ * All reads and writes go through NIO channels and a direct buffer. The export runs in one
+ * read-only repeatable read transaction, which gives a consistent view across the tables
+ * without locking them. The restore only accepts an empty database, inserts rows in JDBC batches
+ * of {@code movies.snapshot.batch-size} and commits once at the end, so a failed restore leaves
+ * the database empty; on MySQL the foreign key and unique checks are switched off for the
+ * session meanwhile, the snapshot being consistent by construction. Plain SQL is used so
+ * tombstoned movies stay out of the snapshot and entities are never materialised.
+ */
+@Component
+public class WatchlistSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistSnapshot.class);
+
+    private static final int MAGIC = 0x4D575331;
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 14;
+    private static final int CHUNK_BYTES = 256 * 1024;
+    private static final int BUFFER_BYTES = 1024 * 1024;
+    /** Type, length and checksum around the payload. */
+    private static final int FRAME_BYTES = 9;
+
+    private static final byte MOVIE = 1;
+    private static final byte SIMILAR = 2;
+    private static final byte ENTRY = 3;
+    private static final byte IMAGE = 4;
+    private static final byte CHUNK = 5;
+    private static final byte END = 6;
+
+    private static final String INSERT_MOVIE = "insert into movies (id, movie_id, tmdb_id, title, year, director, "
+            + "genre, genre_mask, similar_movie_title, version, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SIMILAR =
+            "insert into movie_similar (movie_id, similar_position, similar_tmdb_id) values (?, ?, ?)";
+    private static final String INSERT_ENTRY = "insert into watchlist_entries (user_id, movie_id, watched, added_at, "
+            + "version, updated_at) values (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE = "insert into movie_images (id, movie_id, image_type, image_data, "
+            + "content_type, content_length, content_sha256) values (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Number of rows of each kind in a snapshot.
+     *
+     * @param movies the catalogue movies
+     * @param similar the similar movie rows
+     * @param entries the watchlist entries of all users
+     * @param images the images
+     * @param imageBytes the total size of the images
+     */
+    public record Counts(long movies, long similar, long entries, long images, long imageBytes) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate exportTransaction;
+    private final TransactionTemplate importTransaction;
+    private final int batchSize;
+
+    public WatchlistSnapshot(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${movies.snapshot.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+        this.exportTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.importTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Writes a snapshot of the database to a channel. The channel is not closed.
+     *
+     * @param channel the channel to write to
+     * @return the number of rows written
+     * @throws IOException if the channel cannot be written
+     */
+    public Counts export(WritableByteChannel channel) throws IOException {
+        long start = System.nanoTime();
+        RecordWriter writer = new RecordWriter(channel);
+        Counts counts;
+        try {
+            counts = exportTransaction.execute(status -> exportRows(writer));
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("Exported snapshot with {} in {} ms", counts, (System.nanoTime() - start) / 1_000_000);
+        return counts;
+    }
+
+    private Counts exportRows(RecordWriter writer) {
+        writer.header();
+        ByteBuffer payload = writer.payload;
+        long[] movies = {0};
+        jdbcTemplate.query("select id, movie_id, tmdb_id, title, year, director, genre, genre_mask, "
+                + "similar_movie_title, version, updated_at from movies where deleted_at is null order by id", rs -> {
+            payload.clear();
+            payload.putLong(rs.getLong("id")).putLong(rs.getLong("movie_id"));
+            putNullableLong(payload, rs, "tmdb_id");
+            putString(payload, rs.getString("title"));
+            putString(payload, rs.getString("year"));
+            putString(payload, rs.getString("director"));
+            putString(payload, rs.getString("genre"));
+            payload.putLong(rs.getLong("genre_mask"));
+            putString(payload, rs.getString("similar_movie_title"));
+            payload.putLong(rs.getLong("version"));
+            putInstant(payload, rs.getTimestamp("updated_at"));
+            writer.write(MOVIE, payload.flip());
+            movies[0]++;
+        });
+        long[] similar = {0};
+        jdbcTemplate.query("select s.movie_id, s.similar_position, s.similar_tmdb_id from movie_similar s "
+                + "join movies m on m.id = s.movie_id where m.deleted_at is null "
+                + "order by s.movie_id, s.similar_position", rs -> {
+            payload.clear();
+            payload.putLong(rs.getLong(1)).putInt(rs.getInt(2)).putLong(rs.getLong(3));
+            writer.write(SIMILAR, payload.flip());
+            similar[0]++;
+        });
+        long[] entries = {0};
+        jdbcTemplate.query("select e.user_id, e.movie_id, e.watched, e.added_at, e.version, e.updated_at "
+                + "from watchlist_entries e join movies m on m.id = e.movie_id where m.deleted_at is null "
+                + "order by e.user_id, e.movie_id", rs -> {
+            payload.clear();
+            payload.putLong(rs.getLong("user_id")).putLong(rs.getLong("movie_id"));
+            payload.put((byte) (rs.getBoolean("watched") ? 1 : 0));
+            putInstant(payload, rs.getTimestamp("added_at"));
+            payload.putLong(rs.getLong("version"));
+            putInstant(payload, rs.getTimestamp("updated_at"));
+            writer.write(ENTRY, payload.flip());
+            entries[0]++;
+        });
+        // Metadata first, then one blob per query, so no more than one image is ever buffered by the driver
+        List<Long> imageIds = new ArrayList<>();
+        List<byte[]> imageRecords = new ArrayList<>();
+        jdbcTemplate.query("select i.id, i.movie_id, i.image_type, i.content_type, i.content_length, "
+                + "i.content_sha256 from movie_images i join movies m on m.id = i.movie_id "
+                + "where m.deleted_at is null order by i.id", rs -> {
+            payload.clear();
+            payload.putLong(rs.getLong("id")).putLong(rs.getLong("movie_id"));
+            putString(payload, rs.getString("image_type"));
+            putString(payload, rs.getString("content_type"));
+            putNullableLong(payload, rs, "content_length");
+            putString(payload, rs.getString("content_sha256"));
+            byte[] record = new byte[payload.flip().remaining()];
+            payload.get(record);
+            imageIds.add(rs.getLong("id"));
+            imageRecords.add(record);
+        });
+        long imageBytes = 0;
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+        for (int i = 0; i < imageIds.size(); i++) {
+            writer.write(IMAGE, ByteBuffer.wrap(imageRecords.get(i)));
+            imageBytes += jdbcTemplate.query("select image_data from movie_images where id = ?",
+                    rs -> rs.next() ? writeChunks(writer, rs, chunk) : 0L, imageIds.get(i));
+            writer.write(CHUNK, chunk.clear().flip());
+        }
+        Counts counts = new Counts(movies[0], similar[0], entries[0], imageIds.size(), imageBytes);
+        payload.clear();
+        payload.putLong(counts.movies()).putLong(counts.similar()).putLong(counts.entries())
+                .putLong(counts.images()).putLong(counts.imageBytes());
+        writer.write(END, payload.flip());
+        return counts;
+    }
+
+    private static long writeChunks(RecordWriter writer, ResultSet rs, ByteBuffer chunk) throws SQLException {
+        long written = 0;
+        try (ReadableByteChannel data = Channels.newChannel(rs.getBinaryStream(1))) {
+            boolean end = false;
+            while (!end) {
+                chunk.clear();
+                while (chunk.hasRemaining()) {
+                    if (data.read(chunk) < 0) {
+                        end = true;
+                        break;
+                    }
+                }
+                if (chunk.position() > 0) {
+                    written += chunk.position();
+                    writer.write(CHUNK, chunk.flip());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    /**
+     * Restores a snapshot into an empty database. Everything is inserted in one transaction.
+     * The in-memory indexes are built at startup, so the application should be restarted
+     * afterwards.
+     *
+     * @param channel the channel to read the snapshot from
+     * @return the number of rows restored
+     * @throws IOException if the snapshot cannot be read, is not a snapshot or is corrupt
+     * @throws IllegalStateException if the database already holds movies or watchlist entries
+     */
+    public Counts restore(ReadableByteChannel channel) throws IOException {
+        long start = System.nanoTime();
+        RecordReader reader = new RecordReader(channel);
+        reader.header();
+        Counts counts;
+        try {
+            counts = importTransaction.execute(status -> {
+                Long rows = jdbcTemplate.queryForObject(
+                        "select (select count(*) from movies) + (select count(*) from watchlist_entries)", Long.class);
+                if (rows != null && rows > 0) {
+                    throw new IllegalStateException("A snapshot can only be restored into an empty database");
+                }
+                boolean mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                        connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+                if (mysql) {
+                    jdbcTemplate.execute("set foreign_key_checks = 0, unique_checks = 0");
+                }
+                try {
+                    return restoreRows(reader);
+                } finally {
+                    if (mysql) {
+                        jdbcTemplate.execute("set foreign_key_checks = 1, unique_checks = 1");
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("Restored snapshot with {} in {} ms", counts, (System.nanoTime() - start) / 1_000_000);
+        return counts;
+    }
+
+    private Counts restoreRows(RecordReader reader) {
+        Batch movies = new Batch(INSERT_MOVIE);
+        Batch similar = new Batch(INSERT_SIMILAR);
+        Batch entries = new Batch(INSERT_ENTRY);
+        List<Batch> batches = List.of(movies, similar, entries);
+        long images = 0;
+        long imageBytes = 0;
+        byte previous = 0;
+        try {
+            while (reader.next()) {
+                byte type = reader.type;
+                ByteBuffer payload = reader.payload;
+                if (type != previous) {
+                    // Referenced rows are always in an earlier batch, which must reach the database first
+                    batches.forEach(Batch::flush);
+                    previous = type;
+                }
+                switch (type) {
+                    case MOVIE -> movies.add(payload.getLong(), payload.getLong(), getNullableLong(payload),
+                            getString(payload), getString(payload), getString(payload), getString(payload),
+                            payload.getLong(), getString(payload), payload.getLong(), getTimestamp(payload));
+                    case SIMILAR -> similar.add(payload.getLong(), payload.getInt(), payload.getLong());
+                    case ENTRY -> entries.add(payload.getLong(), payload.getLong(), payload.get() != 0,
+                            getTimestamp(payload), payload.getLong(), getTimestamp(payload));
+                    case IMAGE -> {
+                        imageBytes += restoreImage(reader, payload);
+                        images++;
+                    }
+                    case END -> {
+                        Counts expected = new Counts(payload.getLong(), payload.getLong(), payload.getLong(),
+                                payload.getLong(), payload.getLong());
+                        Counts actual = new Counts(movies.count, similar.count, entries.count, images, imageBytes);
+                        if (!expected.equals(actual)) {
+                            throw new IOException("Snapshot declares " + expected + " but contains " + actual);
+                        }
+                        if (reader.next()) {
+                            throw new IOException("Unexpected record after the end of the snapshot");
+                        }
+                        return actual;
+                    }
+                    default -> throw new IOException("Unknown snapshot record type " + type);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new UncheckedIOException(new EOFException("Snapshot is truncated"));
+    }
+
+    /**
+     * Inserts one image, streaming its chunks from the snapshot into the driver.
+     */
+    private long restoreImage(RecordReader reader, ByteBuffer metadata) throws IOException {
+        long id = metadata.getLong();
+        long movieId = metadata.getLong();
+        String imageType = getString(metadata);
+        String contentType = getString(metadata);
+        Long contentLength = getNullableLong(metadata);
+        String sha256 = getString(metadata);
+        ChunkInputStream data = new ChunkInputStream(reader);
+        try {
+            jdbcTemplate.update(INSERT_IMAGE, statement -> {
+                statement.setLong(1, id);
+                statement.setLong(2, movieId);
+                statement.setString(3, imageType);
+                if (contentLength != null) {
+                    statement.setBinaryStream(4, data, contentLength);
+                } else {
+                    statement.setBinaryStream(4, data);
+                }
+                statement.setString(5, contentType);
+                statement.setObject(6, contentLength);
+                statement.setString(7, sha256);
+            });
+        } catch (DataAccessException e) {
+            // The driver wraps a corrupt or truncated snapshot into an SQL error
+            if (data.failure != null) {
+                throw data.failure;
+            }
+            throw e;
+        }
+        // The driver stops at the declared length; anything left would be misread as the next record
+        if (data.read() >= 0) {
+            throw new IOException("Image " + id + " is longer than its declared " + contentLength + " bytes");
+        }
+        return data.bytesRead;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putNullableLong(ByteBuffer buffer, ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) 1).putLong(value);
+        }
+    }
+
+    private static Long getNullableLong(ByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getLong() : null;
+    }
+
+    private static void putInstant(ByteBuffer buffer, Timestamp value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        Instant instant = value.toInstant();
+        buffer.put((byte) 1).putLong(instant.getEpochSecond()).putInt(instant.getNano());
+    }
+
+    private static Timestamp getTimestamp(ByteBuffer buffer) {
+        return buffer.get() != 0 ? Timestamp.from(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt())) : null;
+    }
+
+    /**
+     * Rows of one table waiting to be inserted with a single JDBC batch.
+     */
+    private final class Batch {
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>();
+        private long count;
+
+        Batch(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            count++;
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * Buffers records and writes them to the channel a megabyte at a time.
+     */
+    private static final class RecordWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        /** Payloads of the row records; every column is bounded, so 64 KB always suffices. */
+        private final ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+        private final CRC32 crc = new CRC32();
+
+        RecordWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void header() {
+            buffer.putInt(MAGIC).putShort(FORMAT_VERSION).putLong(System.currentTimeMillis());
+        }
+
+        void write(byte type, ByteBuffer record) {
+            int length = record.remaining();
+            if (buffer.remaining() < FRAME_BYTES + length) {
+                flush();
+            }
+            int start = buffer.position();
+            buffer.put(type).putInt(length).put(record);
+            crc.reset();
+            crc.update(buffer.slice(start, 5 + length));
+            buffer.putInt((int) crc.getValue());
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Reads records from the channel, verifying their checksums. The payload of the current
+     * record is a view of the read buffer, valid until the next call to {@link #next()}.
+     */
+    private static final class RecordReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).flip();
+        private final CRC32 crc = new CRC32();
+        private byte type;
+        private ByteBuffer payload;
+
+        RecordReader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void header() throws IOException {
+            if (!fill(HEADER_BYTES) || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a watchlist snapshot");
+            }
+            short version = buffer.getShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + version);
+            }
+            buffer.getLong();
+        }
+
+        boolean next() throws IOException {
+            if (!fill(5)) {
+                if (buffer.hasRemaining()) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+                return false;
+            }
+            int start = buffer.position();
+            type = buffer.get();
+            int length = buffer.getInt();
+            if (length < 0 || length > BUFFER_BYTES - FRAME_BYTES) {
+                throw new IOException("Corrupt snapshot record length " + length);
+            }
+            buffer.position(start);
+            if (!fill(FRAME_BYTES + length)) {
+                throw new EOFException("Snapshot is truncated");
+            }
+            start = buffer.position();
+            crc.reset();
+            crc.update(buffer.slice(start, 5 + length));
+            if ((int) crc.getValue() != buffer.getInt(start + 5 + length)) {
+                throw new IOException("Snapshot record checksum mismatch");
+            }
+            payload = buffer.slice(start + 5, length);
+            buffer.position(start + FRAME_BYTES + length);
+            return true;
+        }
+
+        /**
+         * Makes sure the given number of bytes is buffered.
+         *
+         * @return false if the channel ends first
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+            buffer.compact();
+            try {
+                while (buffer.position() < bytes) {
+                    if (channel.read(buffer) < 0) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                buffer.flip();
+            }
+        }
+    }
+
+    /**
+     * The image bytes following an IMAGE record, read chunk by chunk up to the empty chunk.
+     */
+    private static final class ChunkInputStream extends InputStream {
+        private final RecordReader reader;
+        private ByteBuffer chunk = ByteBuffer.allocate(0);
+        private boolean end;
+        private long bytesRead;
+        private IOException failure;
+
+        ChunkInputStream(RecordReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (!chunk.hasRemaining()) {
+                if (end) {
+                    return -1;
+                }
+                try {
+                    if (!reader.next() || reader.type != CHUNK) {
+                        throw new IOException("Image data is not terminated");
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                chunk = reader.payload;
+                end = !chunk.hasRemaining();
+            }
+            int count = Math.min(length, chunk.remaining());
+            chunk.get(bytes, offset, count);
+            bytesRead += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Genre;
+import com.example.Repository.WatchlistEntryRepository;
+
+/**
+ * In-memory watchlist aggregates per user: totals and counts by genre, director, year and
+ * watched state. A user's aggregates are loaded with GROUP BY queries over their own watchlist
+ * entries on first use and then maintained from committed {@link MovieChangeEvent}s, so
+ * repeated reads never run an aggregation query. The aggregates of at most
+ * {@code movies.stats.max-users} users are kept, dropping the least recently used.
+ * <p>
+ * Catalogue metadata updates can change the counts of every user holding the movie, so they
+ * drop all cached aggregates. A scheduled reconciliation reruns the queries of every cached
+ * user and replaces aggregates that drifted from the tables, logging a warning for each.
+ *
+ * @see MovieService#getStatistics(long)
+ */
+@Component
+public class WatchlistStatistics {
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistStatistics.class);
+
+    /**
+     * Key used for movies without a director, year or known genre.
+     */
+    static final String UNKNOWN = "Unknown";
+
+    private final WatchlistEntryRepository watchlistEntryRepository;
+
+    /* Guarded by this */
+    private final Map<Long, UserAggregates> byUser;
+    private final Map<Long, Long> changesByUser = new HashMap<>();
+    private long catalogueChanges;
+
+    public WatchlistStatistics(
+            WatchlistEntryRepository watchlistEntryRepository,
+            @Value("${movies.stats.max-users:10000}") int maxUsers) {
+        this.watchlistEntryRepository = watchlistEntryRepository;
+        this.byUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserAggregates> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Read-only view of the watchlist statistics.
+     *
+     * @param total number of movies
+     * @param watched number of watched movies
+     * @param unwatched number of unwatched movies
+     * @param byGenre movie count per genre name, a movie counts once for each of its genres
+     * @param byDirector movie count per director
+     * @param byYear movie count per release year
+     */
+    public record Summary(
+            long total,
+            long watched,
+            long unwatched,
+            Map<String, Long> byGenre,
+            Map<String, Long> byDirector,
+            Map<String, Long> byYear) {
+    }
+
+    /**
+     * Gets the current statistics of a user's watchlist. The summary is built once per change
+     * and shared between readers.
+     *
+     * @param userId the user ID
+     * @return the statistics summary
+     */
+    public Summary getSummary(long userId) {
+        UserAggregates user = aggregatesOf(userId);
+        synchronized (this) {
+            if (user.summary == null) {
+                user.summary = user.aggregates.toSummary();
+            }
+            return user.summary;
+        }
+    }
+
+    /**
+     * Gets the number of movies on a user's watchlist without building the summary.
+     *
+     * @param userId the user ID
+     * @return the movie count
+     */
+    public long getTotal(long userId) {
+        UserAggregates user = aggregatesOf(userId);
+        synchronized (this) {
+            return user.aggregates.total;
+        }
+    }
+
+    /**
+     * Applies a committed watchlist change to the aggregates of its user, if they are cached.
+     * Catalogue updates drop every cached aggregate.
+     *
+     * @param event the change to apply
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMovieChange(MovieChangeEvent event) {
+        if (event.isCatalogueChange()) {
+            if (event.type() == MovieChangeEvent.Type.UPDATED) {
+                catalogueChanges++;
+                byUser.clear();
+            }
+            return;
+        }
+        changesByUser.merge(event.userId(), 1L, Long::sum);
+        UserAggregates user = byUser.get(event.userId());
+        if (user == null) {
+            return;
+        }
+        if (event.before() != null) {
+            user.aggregates.apply(event.before(), -1);
+        }
+        if (event.after() != null) {
+            user.aggregates.apply(event.after(), 1);
+        }
+        user.summary = null;
+    }
+
+    /**
+     * Compares the cached aggregates of every user with fresh GROUP BY results and replaces the
+     * ones that drifted. A user whose watchlist, or the catalogue, changed while the queries ran
+     * is skipped and checked again next round.
+     */
+    @Scheduled(fixedDelayString = "${movies.stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${movies.stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Map<Long, UserAggregates> cached;
+        synchronized (this) {
+            // Copied without get, so reconciling leaves the least recently used order alone
+            cached = new LinkedHashMap<>(byUser);
+        }
+        int drifted = 0;
+        for (Map.Entry<Long, UserAggregates> entry : cached.entrySet()) {
+            long userId = entry.getKey();
+            long userChangesBefore;
+            long catalogueChangesBefore;
+            synchronized (this) {
+                userChangesBefore = changesByUser.getOrDefault(userId, 0L);
+                catalogueChangesBefore = catalogueChanges;
+            }
+            Aggregates fresh = query(userId);
+            synchronized (this) {
+                if (changesByUser.getOrDefault(userId, 0L) != userChangesBefore
+                        || catalogueChanges != catalogueChangesBefore) {
+                    logger.debug("Watchlist of user {} changed during reconciliation, retrying next round", userId);
+                    continue;
+                }
+                UserAggregates user = entry.getValue();
+                if (!fresh.equals(user.aggregates)) {
+                    logger.warn("Watchlist statistics of user {} drifted (in memory: {} movies, database: {} movies), "
+                            + "reloading", userId, user.aggregates.total, fresh.total);
+                    user.aggregates = fresh;
+                    user.summary = null;
+                    drifted++;
+                }
+            }
+        }
+        logger.debug("Reconciled the watchlist statistics of {} users, {} drifted", cached.size(), drifted);
+    }
+
+    /**
+     * Gets the cached aggregates of a user, loading them if needed. Loaded aggregates are only
+     * cached if no change of the user or the catalogue committed while the queries ran, since
+     * that change could be missing from both the query results and the aggregates.
+     */
+    private UserAggregates aggregatesOf(long userId) {
+        long userChangesBefore;
+        long catalogueChangesBefore;
+        synchronized (this) {
+            UserAggregates cached = byUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            userChangesBefore = changesByUser.getOrDefault(userId, 0L);
+            catalogueChangesBefore = catalogueChanges;
+        }
+        UserAggregates loaded = new UserAggregates(query(userId));
+        synchronized (this) {
+            UserAggregates cached = byUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            if (changesByUser.getOrDefault(userId, 0L) == userChangesBefore
+                    && catalogueChanges == catalogueChangesBefore) {
+                byUser.put(userId, loaded);
+            }
+        }
+        logger.debug("Watchlist statistics loaded for user {} with {} movies", userId, loaded.aggregates.total);
+        return loaded;
+    }
+
+    private Aggregates query(long userId) {
+        Aggregates result = new Aggregates();
+        for (Object[] row : watchlistEntryRepository.countByWatched(userId)) {
+            long count = (Long) row[1];
+            result.total += count;
+            if (Boolean.TRUE.equals(row[0])) {
+                result.watched += count;
+            }
+        }
+        for (Object[] row : watchlistEntryRepository.countByDirector(userId)) {
+            result.byDirector.merge(keyOf((String) row[0]), (Long) row[1], Long::sum);
+        }
+        for (Object[] row : watchlistEntryRepository.countByYear(userId)) {
+            result.byYear.merge(keyOf((String) row[0]), (Long) row[1], Long::sum);
+        }
+        for (Object[] row : watchlistEntryRepository.countByGenre(userId)) {
+            long count = (Long) row[2];
+            for (String genre : genresOf((Long) row[0], (String) row[1])) {
+                result.byGenre.merge(genre, count, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    private static String keyOf(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+
+    private static List<String> genresOf(long genreMask, String genre) {
+        long mask = genreMask != 0L ? genreMask : Genre.maskOfNames(genre);
+        if (mask == 0L) {
+            return List.of(UNKNOWN);
+        }
+        return Genre.fromMask(mask).stream().map(Genre::getDisplayName).toList();
+    }
+
+    /**
+     * Aggregates of one user with the summary built from them, guarded by the enclosing instance.
+     */
+    private static final class UserAggregates {
+        private Aggregates aggregates;
+        private Summary summary;
+
+        private UserAggregates(Aggregates aggregates) {
+            this.aggregates = aggregates;
+        }
+    }
+
+    /**
+     * Mutable aggregates, guarded by the enclosing instance.
+     */
+    private static final class Aggregates {
+        private long total;
+        private long watched;
+        private final Map<String, Long> byGenre = new HashMap<>();
+        private final Map<String, Long> byDirector = new HashMap<>();
+        private final Map<String, Long> byYear = new HashMap<>();
+
+        private void apply(MovieSnapshot movie, long delta) {
+            total += delta;
+            if (movie.watched()) {
+                watched += delta;
+            }
+            for (String genre : genresOf(movie.genreMask(), movie.genre())) {
+                add(byGenre, genre, delta);
+            }
+            add(byDirector, keyOf(movie.director()), delta);
+            add(byYear, keyOf(movie.year()), delta);
+        }
+
+        private static void add(Map<String, Long> counts, String key, long delta) {
+            counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Aggregates that)) {
+                return false;
+            }
+            return total == that.total && watched == that.watched && byGenre.equals(that.byGenre)
+                    && byDirector.equals(that.byDirector) && byYear.equals(that.byYear);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(total);
+        }
+
+        private Summary toSummary() {
+            return new Summary(total, watched, total - watched,
+                    Collections.unmodifiableMap(new TreeMap<>(byGenre)),
+                    Collections.unmodifiableMap(new TreeMap<>(byDirector)),
+                    Collections.unmodifiableMap(new TreeMap<>(byYear)));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.Event.MovieChangeEvent;
+
+/**
+ * Change counters per watchlist, used as a cheap collection-level ETag.
+ * A user's counter is bumped after every committed {@link MovieChangeEvent} of their watchlist,
+ * and a shared counter after every catalogue change, since catalogue metadata shows in every
+ * watchlist. The startup time is part of the tag so tags handed out by a previous process
+ * never match after a restart. Changes made to the tables outside of {@link MovieService} are
+ * not observed.
+ */
+@Component
+public class WatchlistVersion {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogueChanges = new AtomicLong();
+    private final ConcurrentHashMap<Long, AtomicLong> changesByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Records a committed catalogue or watchlist change.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChange(MovieChangeEvent event) {
+        if (event.isCatalogueChange()) {
+            catalogueChanges.incrementAndGet();
+        } else {
+            changesByUser.computeIfAbsent(event.userId(), id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the current collection ETag value (without quotes) of a user's watchlist.
+     * Read it before loading the data it describes, so a concurrent commit can only make the
+     * tag older than the data, never newer. The user ID is part of the tag, so tags of different
+     * watchlists never match.
+     *
+     * @param userId the user ID
+     * @return the ETag value
+     */
+    public String currentTag(long userId) {
+        AtomicLong userChanges = changesByUser.get(userId);
+        return "w" + epoch + "-" + userId + "-" + catalogueChanges.get() + "."
+                + (userChanges != null ? userChanges.get() : 0);
+    }
+}
@@ -23,11 +23,13 @@ DROP TABLE IF EXISTS `movie_images`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `movie_images` (
-  `id` bigint NOT NULL,
+  `id` bigint NOT NULL AUTO_INCREMENT,
   `movie_id` int unsigned DEFAULT NULL,
   `image_type` varchar(150) NOT NULL,
   `image_data` longblob,
   `content_type` varchar(150) DEFAULT NULL,
+  `content_length` bigint DEFAULT NULL,
+  `content_sha256` varchar(64) DEFAULT NULL,
   PRIMARY KEY (`id`),
   KEY `FKpyfplxkudml64lmbep291wrhn` (`movie_id`),
   CONSTRAINT `FKpyfplxkudml64lmbep291wrhn` FOREIGN KEY (`movie_id`) REFERENCES `movies` (`id`)
@@ -43,6 +45,22 @@ LOCK TABLES `movie_images` WRITE;
 /*!40000 ALTER TABLE `movie_images` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `movie_similar`
+--
+
+DROP TABLE IF EXISTS `movie_similar`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `movie_similar` (
+  `movie_id` int unsigned NOT NULL,
+  `similar_tmdb_id` bigint NOT NULL,
+  `similar_position` int NOT NULL,
+  PRIMARY KEY (`movie_id`,`similar_position`),
+  CONSTRAINT `FK_movie_similar_movie` FOREIGN KEY (`movie_id`) REFERENCES `movies` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `movies`
 --
@@ -57,9 +75,14 @@ CREATE TABLE `movies` (
   `movie_id` bigint NOT NULL,
   `similar_movie_title` varchar(255) DEFAULT NULL,
   `title` varchar(255) DEFAULT NULL,
-  `watched` tinyint(1) DEFAULT NULL,
   `year` varchar(20) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  `genre_mask` bigint NOT NULL DEFAULT '0',
+  `tmdb_id` bigint DEFAULT NULL,
+  `updated_at` datetime(6) DEFAULT NULL,
+  `version` bigint NOT NULL DEFAULT '0',
+  `deleted_at` datetime(6) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_movies_deleted_at` (`deleted_at`)
 ) ENGINE=InnoDB AUTO_INCREMENT=13 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -69,9 +92,54 @@ CREATE TABLE `movies` (
 
 LOCK TABLES `movies` WRITE;
 /*!40000 ALTER TABLE `movies` DISABLE KEYS */;
-INSERT INTO `movies` VALUES (6,'Christopher Nolan','Action',1375666,NULL,'Inception',0,'2010'),(7,'Tim Burton','Fantasy',96895,NULL,'Batman',0,'1989'),(8,'Christopher Nolan','Adventure',816692,NULL,'Interstellar',0,'2014'),(9,'Richard Donner','Action',78346,NULL,'Superman',1,'1978'),(10,'Denis Villeneuve','Science Fiction',1856101,NULL,'Blade Runner 2049',0,'2017'),(11,'Robert Schwentke','Action',1245526,NULL,'Red',0,'2010'),(12,'Jon M. Chu','Fantasy',1262426,NULL,'Wicked',0,'2024');
+INSERT INTO `movies` VALUES (6,'Christopher Nolan','Action',1375666,NULL,'Inception','2010',1,NULL,NULL,0,NULL),(7,'Tim Burton','Fantasy',96895,NULL,'Batman','1989',256,NULL,NULL,0,NULL),(8,'Christopher Nolan','Adventure',816692,NULL,'Interstellar','2014',2,NULL,NULL,0,NULL),(9,'Richard Donner','Action',78346,NULL,'Superman','1978',1,NULL,NULL,0,NULL),(10,'Denis Villeneuve','Science Fiction',1856101,NULL,'Blade Runner 2049','2017',16384,NULL,NULL,0,NULL),(11,'Robert Schwentke','Action',1245526,NULL,'Red','2010',1,NULL,NULL,0,NULL),(12,'Jon M. Chu','Fantasy',1262426,NULL,'Wicked','2024',256,NULL,NULL,0,NULL);
 /*!40000 ALTER TABLE `movies` ENABLE KEYS */;
 UNLOCK TABLES;
+
+--
+-- Table structure for table `sync_checkpoints`
+--
+
+DROP TABLE IF EXISTS `sync_checkpoints`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `sync_checkpoints` (
+  `name` varchar(100) NOT NULL,
+  `resume_from` date NOT NULL,
+  `updated_at` datetime(6) DEFAULT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `watchlist_entries`
+--
+
+DROP TABLE IF EXISTS `watchlist_entries`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `watchlist_entries` (
+  `user_id` bigint NOT NULL,
+  `movie_id` int unsigned NOT NULL,
+  `watched` tinyint(1) NOT NULL DEFAULT '0',
+  `added_at` datetime(6) NOT NULL,
+  `version` bigint NOT NULL DEFAULT '0',
+  `updated_at` datetime(6) DEFAULT NULL,
+  PRIMARY KEY (`user_id`,`movie_id`),
+  KEY `idx_watchlist_entries_movie_id` (`movie_id`),
+  CONSTRAINT `FK_watchlist_entries_movie` FOREIGN KEY (`movie_id`) REFERENCES `movies` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `watchlist_entries`
+--
+
+LOCK TABLES `watchlist_entries` WRITE;
+/*!40000 ALTER TABLE `watchlist_entries` DISABLE KEYS */;
+INSERT INTO `watchlist_entries` VALUES (0,6,0,'2025-06-01 18:02:51.000000',0,NULL),(0,7,0,'2025-06-01 18:02:51.000000',0,NULL),(0,8,0,'2025-06-01 18:02:51.000000',0,NULL),(0,9,1,'2025-06-01 18:02:51.000000',0,NULL),(0,10,0,'2025-06-01 18:02:51.000000',0,NULL),(0,11,0,'2025-06-01 18:02:51.000000',0,NULL),(0,12,0,'2025-06-01 18:02:51.000000',0,NULL);
+/*!40000 ALTER TABLE `watchlist_entries` ENABLE KEYS */;
+UNLOCK TABLES;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
 
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -0,0 +1,30 @@
+-- Migration of a movie_watchlist_dbv2 database created before watchlists were per user.
+--
+-- Creates the watchlist_entries table and links every live movie to the watchlist of user 0,
+-- keeping its watched state, then drops the legacy movies.watched column. The table and the
+-- insert are idempotent; the final statement fails once the column is gone, which leaves the
+-- migrated data untouched. Run it before starting the prod profile (ddl-auto=validate).
+-- With ddl-auto=update, WatchlistBackfill performs the same insert at startup while
+-- movies.watched exists.
+--
+-- Usage: mysql -u root -p movie_watchlist_db < src/main/resources/movie_watchlist_dbv2_watchlists.sql
+
+CREATE TABLE IF NOT EXISTS `watchlist_entries` (
+  `user_id` bigint NOT NULL,
+  `movie_id` int unsigned NOT NULL,
+  `watched` tinyint(1) NOT NULL DEFAULT '0',
+  `added_at` datetime(6) NOT NULL,
+  `version` bigint NOT NULL DEFAULT '0',
+  `updated_at` datetime(6) DEFAULT NULL,
+  PRIMARY KEY (`user_id`,`movie_id`),
+  KEY `idx_watchlist_entries_movie_id` (`movie_id`),
+  CONSTRAINT `FK_watchlist_entries_movie` FOREIGN KEY (`movie_id`) REFERENCES `movies` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `watchlist_entries` (`user_id`, `movie_id`, `watched`, `added_at`, `version`)
+SELECT 0, m.`id`, COALESCE(m.`watched`, 0), NOW(6), 0
+FROM `movies` m
+WHERE m.`deleted_at` IS NULL
+  AND NOT EXISTS (SELECT 1 FROM `watchlist_entries` e WHERE e.`movie_id` = m.`id`);
+
+ALTER TABLE `movies` DROP COLUMN `watched`;
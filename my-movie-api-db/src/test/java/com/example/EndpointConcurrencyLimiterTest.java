@@ -0,0 +1,128 @@
+package com.example;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.Config.EndpointConcurrencyLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EndpointConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testExcessRequestsQueueThenShed() throws Exception {
+        EndpointConcurrencyLimiter limiter = limiter(false, 1, 1, 5000);
+        MockHttpServletRequest first = request("POST", "/api/movies");
+        assertTrue(limiter.preHandle(first, new MockHttpServletResponse(), null));
+
+        MockHttpServletRequest second = request("POST", "/api/movies");
+        Future<Boolean> queued = callers.submit(() -> limiter.preHandle(second, new MockHttpServletResponse(), null));
+        awaitGauge("movies.limits.queue.depth", 1);
+
+        MockHttpServletResponse shedResponse = new MockHttpServletResponse();
+        assertFalse(limiter.preHandle(request("POST", "/api/movies"), shedResponse, null));
+        assertEquals(503, shedResponse.getStatus());
+        assertEquals("1", shedResponse.getHeader("Retry-After"));
+        assertTrue(limiter.preHandle(request("GET", "/api/movies"), new MockHttpServletResponse(), null),
+                "reads are not limited");
+
+        limiter.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        limiter.afterCompletion(second, new MockHttpServletResponse(), null, null);
+
+        assertEquals(1.0, counter("admitted"));
+        assertEquals(1.0, counter("queued"));
+        assertEquals(1.0, counter("shed"));
+        assertEquals(0.0, meterRegistry.get("movies.limits.in-flight").tag("endpoint", "add").gauge().value());
+    }
+
+    @Test
+    void testQueuedRequestIsShedAfterMaxWait() throws Exception {
+        EndpointConcurrencyLimiter limiter = limiter(false, 1, 4, 20);
+        assertTrue(limiter.preHandle(request("POST", "/api/movies"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(limiter.preHandle(request("POST", "/api/movies"), response, null));
+
+        assertEquals(503, response.getStatus());
+        assertEquals(0.0, meterRegistry.get("movies.limits.queue.depth").tag("endpoint", "add").gauge().value());
+    }
+
+    @Test
+    void testAdaptiveLimitShrinksOnSlowRequestsAndRecovers() throws Exception {
+        EndpointConcurrencyLimiter limiter = limiter(true, 10, 0, 0);
+        complete(limiter, 2);
+        for (int i = 0; i < 5; i++) {
+            complete(limiter, 50);
+        }
+        double reduced = meterRegistry.get("movies.limits.limit").tag("endpoint", "add").gauge().value();
+        assertTrue(reduced < 10, "limit " + reduced);
+
+        for (int round = 0; round < 50 && reduced < 10; round++) {
+            MockHttpServletRequest[] requests = new MockHttpServletRequest[(int) reduced];
+            for (int i = 0; i < requests.length; i++) {
+                requests[i] = request("POST", "/api/movies");
+                limiter.preHandle(requests[i], new MockHttpServletResponse(), null);
+            }
+            Thread.sleep(2);
+            for (MockHttpServletRequest request : requests) {
+                limiter.afterCompletion(request, new MockHttpServletResponse(), null, null);
+            }
+            reduced = meterRegistry.get("movies.limits.limit").tag("endpoint", "add").gauge().value();
+        }
+        assertEquals(10.0, reduced);
+    }
+
+    private EndpointConcurrencyLimiter limiter(boolean adaptive, int addMaxConcurrency, int addQueueSize,
+            long addMaxWaitMs) {
+        return new EndpointConcurrencyLimiter(meterRegistry, adaptive, 2.0,
+                addMaxConcurrency, addQueueSize, addMaxWaitMs, 16, 32, 1000);
+    }
+
+    private void complete(EndpointConcurrencyLimiter limiter, long latencyMs) throws InterruptedException {
+        MockHttpServletRequest request = request("POST", "/api/movies");
+        assertTrue(limiter.preHandle(request, new MockHttpServletResponse(), null));
+        Thread.sleep(latencyMs);
+        limiter.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("movies.limits.requests").tag("endpoint", "add").tag("outcome", outcome)
+                .counter().count();
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get(name).tag("endpoint", "add").gauge().value() < value) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Requests were not queued");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
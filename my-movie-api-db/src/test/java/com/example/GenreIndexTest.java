@@ -0,0 +1,88 @@
+package com.example;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Genre;
+import com.example.Repository.MovieRepository;
+import com.example.Service.GenreIndex;
+
+@ExtendWith(MockitoExtension.class)
+class GenreIndexTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private GenreIndex genreIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(movieRepository.findAllSnapshots()).thenReturn(List.of(
+                movie(1L, Genre.maskOf(EnumSet.of(Genre.ACTION, Genre.SCIENCE_FICTION))),
+                movie(2L, Genre.ACTION.mask()),
+                movie(3L, Genre.DRAMA.mask()),
+                new MovieSnapshot(4L, "Legacy", "1999", null, "Science Fiction", 0L, false, null)));
+        genreIndex = new GenreIndex(movieRepository);
+        genreIndex.rebuild();
+    }
+
+    @Test
+    void testMatchAllGenres() {
+        long mask = Genre.maskOf(EnumSet.of(Genre.ACTION, Genre.SCIENCE_FICTION));
+
+        assertEquals(bits(1), genreIndex.match(mask, true));
+    }
+
+    @Test
+    void testMatchAnyGenreUsesLegacyGenreColumn() {
+        long mask = Genre.maskOf(EnumSet.of(Genre.DRAMA, Genre.SCIENCE_FICTION));
+
+        assertEquals(bits(1, 3, 4), genreIndex.match(mask, false));
+    }
+
+    @Test
+    void testEmptyMaskMatchesEveryMovie() {
+        assertEquals(bits(1, 2, 3, 4), genreIndex.match(0L, false));
+    }
+
+    @Test
+    void testCatalogueEventsUpdateIndex() {
+        MovieSnapshot before = movie(1L, Genre.maskOf(EnumSet.of(Genre.ACTION, Genre.SCIENCE_FICTION)));
+        genreIndex.onMovieChange(MovieChangeEvent.updated(before, movie(1L, Genre.DRAMA.mask())));
+        genreIndex.onMovieChange(MovieChangeEvent.deleted(movie(2L, Genre.ACTION.mask())));
+        genreIndex.onMovieChange(MovieChangeEvent.added(movie(5L, Genre.ACTION.mask())));
+
+        assertEquals(bits(5), genreIndex.match(Genre.ACTION.mask(), false));
+        assertEquals(bits(1, 3), genreIndex.match(Genre.DRAMA.mask(), false));
+    }
+
+    @Test
+    void testWatchlistEventsAreIgnored() {
+        genreIndex.onMovieChange(MovieChangeEvent.deleted(7L, movie(2L, Genre.ACTION.mask())));
+
+        assertEquals(bits(1, 2), genreIndex.match(Genre.ACTION.mask(), false));
+    }
+
+    private static MovieSnapshot movie(Long id, long genreMask) {
+        return new MovieSnapshot(id, "Movie " + id, "2000", "Director", null, genreMask, false, null);
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bitSet = new BitSet();
+        for (int id : ids) {
+            bitSet.set(id);
+        }
+        return bitSet;
+    }
+}
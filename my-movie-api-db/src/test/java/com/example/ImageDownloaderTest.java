@@ -0,0 +1,63 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.Model.DownloadedImage;
+import com.example.Service.ImageDownloader;
+
+class ImageDownloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDownloadStreamsToFileWithDigestAndSniffedType() throws Exception {
+        byte[] png = pngOfSize(20_000);
+        Path source = Files.write(tempDir.resolve("poster.png"), png);
+
+        DownloadedImage image = new ImageDownloader(1_000_000, 1000, 1000)
+                .download(source.toUri().toString(), "POSTER");
+        try {
+            assertEquals("image/png", image.contentType());
+            assertEquals(png.length, image.length());
+            assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png)), image.sha256());
+            assertEquals(png.length, Files.size(image.file()));
+        } finally {
+            image.discard();
+        }
+    }
+
+    @Test
+    void testDownloadAboveLimitIsRejected() throws IOException {
+        Path source = Files.write(tempDir.resolve("poster.png"), pngOfSize(20_000));
+
+        assertThrows(IOException.class, () -> new ImageDownloader(10_000, 1000, 1000)
+                .download(source.toUri().toString(), "POSTER"));
+    }
+
+    @Test
+    void testDownloadOfNonImageIsRejected() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("error.html"), "<html>Not found</html>");
+
+        assertThrows(IOException.class, () -> new ImageDownloader(1_000_000, 1000, 1000)
+                .download(source.toUri().toString(), "POSTER"));
+    }
+
+    private static byte[] pngOfSize(int size) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) 7);
+        byte[] magic = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+        System.arraycopy(magic, 0, bytes, 0, magic.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.Model.Movie;
+import com.example.Service.ImdbTitleIndex;
+import com.example.Service.OMDbService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ImdbTitleIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testResolvesFilmsFromGzippedDatasets() throws IOException {
+        writeDatasets(true);
+        Path indexFile = directory.resolve("index/titles.idx");
+
+        assertEquals(4, ImdbTitleIndex.build(directory, indexFile));
+
+        ImdbTitleIndex index = open(indexFile);
+        assertEquals(4, index.size());
+        assertEquals(Optional.of(new ImdbTitleIndex.Title(133093L, "The Matrix", "1999",
+                "Lana Wachowski, Lilly Wachowski")), index.find("  the   MATRIX "));
+        assertEquals(Optional.of(new ImdbTitleIndex.Title(1375666L, "Inception", "2010", "Christopher Nolan")),
+                index.find("Inception"));
+        assertEquals("Rémi Film", index.find("rémi film").orElseThrow().title());
+        assertTrue(index.find("The Matrix Reloaded").isEmpty());
+        assertTrue(index.find("Breaking Bad").isEmpty(), "series are not indexed");
+        assertEquals(3.0, meterRegistry.get("movies.imdb.lookups").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("movies.imdb.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testAmbiguousTitlesResolveByVotesOrNotAtAll() throws IOException {
+        writeDatasets(true);
+        Path rated = directory.resolve("rated.idx");
+        ImdbTitleIndex.build(directory, rated);
+        assertEquals(4001L, open(rated).find("Solaris").orElseThrow().imdbId());
+
+        Files.delete(directory.resolve("title.ratings.tsv.gz"));
+        Path unrated = directory.resolve("unrated.idx");
+        ImdbTitleIndex.build(directory, unrated);
+        assertTrue(open(unrated).find("Solaris").isEmpty());
+        assertTrue(open(unrated).find("The Matrix").isPresent());
+    }
+
+    @Test
+    void testOmdbServiceResolvesLocallyBeforeCallingTheApi() throws IOException {
+        writeDatasets(false);
+        Path indexFile = directory.resolve("titles.idx");
+        ImdbTitleIndex.build(directory, indexFile);
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OMDbService omdbService = new OMDbService(restTemplate, open(indexFile));
+        ReflectionTestUtils.setField(omdbService, "apiUrl", "http://omdb.test/");
+        ReflectionTestUtils.setField(omdbService, "apiKey", "key");
+
+        Movie movie = omdbService.fetchMovieData("Inception");
+
+        assertEquals(1375666L, movie.getMovieId());
+        assertEquals("2010", movie.getYear());
+        assertEquals("Christopher Nolan", movie.getDirector());
+        server.verify();
+    }
+
+    private ImdbTitleIndex open(Path indexFile) throws IOException {
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        ImdbTitleIndex index = new ImdbTitleIndex(meterRegistry, directory.toString(), indexFile);
+        index.open();
+        return index;
+    }
+
+    private void writeDatasets(boolean gzip) throws IOException {
+        write("title.basics", gzip,
+                "tconst\ttitleType\tprimaryTitle\toriginalTitle\tisAdult\tstartYear\tendYear\truntimeMinutes\tgenres",
+                "tt0133093\tmovie\tThe Matrix\tThe Matrix\t0\t1999\t\\N\t136\tAction,Sci-Fi",
+                "tt1375666\tmovie\tInception\tInception\t0\t2010\t\\N\t148\tAction,Adventure,Sci-Fi",
+                "tt0903747\ttvSeries\tBreaking Bad\tBreaking Bad\t0\t2008\t2013\t49\tCrime,Drama",
+                "tt0004000\tmovie\tSolaris\tSolyaris\t0\t1972\t\\N\t167\tDrama",
+                "tt0004001\tmovie\tSolaris\tSolaris\t0\t2002\t\\N\t99\tDrama",
+                "tt0005000\tmovie\tRémi Film\tRémi Film\t0\t\\N\t\\N\t\\N\t\\N");
+        write("title.crew", gzip,
+                "tconst\tdirectors\twriters",
+                "tt0133093\tnm0905154,nm0905152\tnm0905152",
+                "tt1375666\tnm0634240\tnm0634240",
+                "tt0903747\t\\N\tnm0319213",
+                "tt0005000\t\\N\t\\N");
+        write("title.ratings", gzip,
+                "tconst\taverageRating\tnumVotes",
+                "tt0004000\t8.1\t95000",
+                "tt0004001\t6.2\t110000");
+        write("name.basics", gzip,
+                "nconst\tprimaryName\tbirthYear\tdeathYear\tprimaryProfession\tknownForTitles",
+                "nm0905152\tLilly Wachowski\t1967\t\\N\twriter,director\ttt0133093",
+                "nm0905154\tLana Wachowski\t1965\t\\N\twriter,director\ttt0133093",
+                "nm0634240\tChristopher Nolan\t1970\t\\N\twriter,director\ttt1375666",
+                "nm0319213\tVince Gilligan\t1967\t\\N\twriter\ttt0903747");
+    }
+
+    private void write(String name, boolean gzip, String... lines) throws IOException {
+        Path file = directory.resolve(name + (gzip ? ".tsv.gz" : ".tsv"));
+        try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(file)) : Files.newOutputStream(file)) {
+            out.write((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
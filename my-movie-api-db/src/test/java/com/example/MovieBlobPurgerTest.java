@@ -0,0 +1,75 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.example.Service.MovieBlobPurger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MovieBlobPurgerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private MovieBlobPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:purge-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table movies (id int primary key, deleted_at timestamp)");
+        jdbcTemplate.execute("create table movie_images (id bigint auto_increment primary key, movie_id int, "
+                + "image_data blob, foreign key (movie_id) references movies (id))");
+        jdbcTemplate.execute("create table movie_similar (movie_id int, similar_tmdb_id bigint, "
+                + "foreign key (movie_id) references movies (id))");
+        jdbcTemplate.execute("create table watchlist_entries (user_id bigint, movie_id int, "
+                + "primary key (user_id, movie_id), foreign key (movie_id) references movies (id))");
+        jdbcTemplate.update("insert into movies values (1, null), (2, current_timestamp), (3, current_timestamp)");
+        for (int i = 0; i < 7; i++) {
+            jdbcTemplate.update("insert into movie_images (movie_id, image_data) values (?, ?)", 1 + i % 3, new byte[64]);
+        }
+        jdbcTemplate.update("insert into movie_similar values (2, 115), (1, 116)");
+
+        meterRegistry = new SimpleMeterRegistry();
+        purger = new MovieBlobPurger(new NamedParameterJdbcTemplate(dataSource), meterRegistry, true, 2, 100);
+    }
+
+    @Test
+    void testPurgesTombstonesAndTheirRowsInBatches() {
+        assertEquals(2, purger.purgeTombstones());
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from movies", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from movie_images where movie_id = 1", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from movie_images", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from movie_similar", Integer.class));
+        assertEquals(4.0, meterRegistry.get("movies.purge.images").counter().count());
+        assertEquals(2.0, meterRegistry.get("movies.purge.movies").counter().count());
+        assertEquals(0.0, meterRegistry.get("movies.purge.backlog").gauge().value());
+    }
+
+    @Test
+    void testRunLimitLeavesRemainingTombstonesForNextRun() {
+        MovieBlobPurger limited = new MovieBlobPurger(new NamedParameterJdbcTemplate(jdbcTemplate.getDataSource()),
+                new SimpleMeterRegistry(), true, 2, 1);
+
+        assertEquals(1, limited.purgeTombstones());
+        assertEquals(1, limited.purgeTombstones());
+        assertEquals(0, limited.purgeTombstones());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from movies", Integer.class));
+    }
+
+    @Test
+    void testSkipsTombstonesStillOnAWatchlist() {
+        jdbcTemplate.update("insert into watchlist_entries values (7, 3)");
+
+        assertEquals(1, purger.purgeTombstones());
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from movies", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from movie_images where movie_id = 3", Integer.class));
+        assertEquals(0.0, meterRegistry.get("movies.purge.backlog").gauge().value());
+    }
+}
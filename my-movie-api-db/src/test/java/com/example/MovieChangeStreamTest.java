@@ -0,0 +1,171 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Service.MovieChangeStream;
+
+class MovieChangeStreamTest {
+
+    private static final Pattern EVENT = Pattern.compile("id:(\\S+)\\nevent:(\\S+)\\n");
+
+    private MovieChangeStream stream;
+    private MockMvc mockMvc;
+
+    @RestController
+    static class StreamController {
+        private final MovieChangeStream stream;
+
+        StreamController(MovieChangeStream stream) {
+            this.stream = stream;
+        }
+
+        @GetMapping("/changes")
+        SseEmitter changes(@RequestHeader(value = "X-User-Id", defaultValue = "0") long userId,
+                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+            return stream.subscribe(userId, lastEventId);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        stream = new MovieChangeStream(4, 60000, 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(stream)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void testReconnectReplaysTheUsersMissedEvents() throws Exception {
+        MvcResult first = subscribe(0L, null);
+        add(0L, 1L);
+        List<String[]> received = awaitEvents(first, 1);
+        String firstId = received.get(0)[0];
+
+        add(0L, 2L);
+        add(7L, 3L);
+        add(0L, 4L);
+        MvcResult resumed = subscribe(0L, firstId);
+
+        List<String[]> replayed = awaitEvents(resumed, 2);
+        assertEquals(List.of(sequenceOf(firstId, 2), sequenceOf(firstId, 4)),
+                replayed.stream().map(event -> event[0]).toList());
+        assertEquals(List.of("added", "added"), replayed.stream().map(event -> event[1]).toList());
+    }
+
+    @Test
+    void testReconnectAfterEvictionGetsReset() throws Exception {
+        MvcResult first = subscribe(0L, null);
+        add(0L, 1L);
+        String firstId = awaitEvents(first, 1).get(0)[0];
+        for (long id = 2; id <= 6; id++) {
+            add(0L, id);
+        }
+
+        MvcResult evicted = subscribe(0L, firstId);
+        MvcResult foreign = subscribe(0L, "otherprocess-3");
+
+        List<String[]> events = awaitEvents(evicted, 1);
+        assertEquals("reset", events.get(0)[1]);
+        assertEquals(sequenceOf(firstId, 6), events.get(0)[0]);
+        assertEquals("reset", awaitEvents(foreign, 1).get(0)[1]);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, events(evicted).size());
+    }
+
+    @Test
+    void testManySubscribersShareTheSenderThreads() throws Exception {
+        long before = senderThreads();
+        List<MvcResult> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            subscriptions.add(subscribe(0L, null));
+        }
+        add(0L, 1L);
+        stream.heartbeat();
+
+        for (MvcResult subscription : subscriptions) {
+            awaitEvents(subscription, 1);
+        }
+        // Streams of earlier tests may still be winding down their own senders
+        long started = senderThreads() - before;
+        assertTrue(started <= 2, started + " sender threads started");
+    }
+
+    @Test
+    void testShutdownDropsLaterWorkWithoutFailing() throws Exception {
+        subscribe(0L, null);
+        stream.shutdown();
+
+        assertDoesNotThrow(() -> add(0L, 1L));
+        assertDoesNotThrow(stream::heartbeat);
+        SseEmitter late = stream.subscribe(0L, null);
+        assertDoesNotThrow(late::complete);
+    }
+
+    private MvcResult subscribe(long userId, String lastEventId) throws Exception {
+        var request = get("/changes").header("X-User-Id", userId);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private void add(long userId, long movieId) {
+        stream.onMovieChange(MovieChangeEvent.added(userId,
+                new MovieSnapshot(movieId, "Movie " + movieId, "2000", null, null, 0L, false, null)));
+    }
+
+    private static List<String[]> awaitEvents(MvcResult result, int count) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<String[]> events = events(result);
+        while (events.size() < count && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+            events = events(result);
+        }
+        assertEquals(count, events.size());
+        return events;
+    }
+
+    private static List<String[]> events(MvcResult result) throws Exception {
+        Matcher matcher = EVENT.matcher(result.getResponse().getContentAsString());
+        List<String[]> events = new ArrayList<>();
+        while (matcher.find()) {
+            events.add(new String[] {matcher.group(1), matcher.group(2)});
+        }
+        return events;
+    }
+
+    private static long senderThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("movie-change-sender"))
+                .count();
+    }
+
+    private static String sequenceOf(String eventId, long sequence) {
+        return eventId.substring(0, eventId.lastIndexOf('-') + 1) + sequence;
+    }
+}
@@ -1,31 +1,56 @@
 package com.example;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.Controller.MovieController;
+import com.example.Dto.MovieBatch;
+import com.example.Dto.MovieField;
+import com.example.Dto.MovieResponse;
+import com.example.Dto.WatchHistory;
+import com.example.Model.Genre;
 import com.example.Model.Movie;
+import com.example.Repository.MovieVersion;
+import com.example.Service.MovieJsonCache;
 import com.example.Service.MovieService;
+import com.example.Service.WatchlistStatistics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @WebMvcTest(MovieController.class)
+@Import(SimpleMeterRegistry.class)
 class MovieControllerTest {
 
     @Autowired
@@ -40,7 +65,7 @@ class MovieControllerTest {
         Movie movie = new Movie();
         movie.setId(1L);
         movie.setTitle("Test Movie");
-        Mockito.when(movieService.getAllMovies(any(Pageable.class)))
+        Mockito.when(movieService.getAllMovies(eq(0L), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(Collections.singletonList(movie), PageRequest.of(0, 10), 1));
 
         mockMvc.perform(get("/api/movies"))
@@ -48,26 +73,258 @@ class MovieControllerTest {
                 .andExpect(jsonPath("$.content[0].title").value("Test Movie"));
     }
 
+    @Test
+    @DisplayName("GET /api/movies reads the watchlist of the user named by X-User-Id")
+    void testGetAllMoviesOfUser() throws Exception {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("Other Movie");
+        Mockito.when(movieService.getAllMovies(eq(7L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(movie), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(get("/api/movies").header(MovieController.USER_HEADER, "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Other Movie"));
+        Mockito.verify(movieService, Mockito.never()).getAllMovies(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies?genres=... filters through the genre index")
+    void testGetMoviesByGenres() throws Exception {
+        MovieResponse movie = new MovieResponse(1L, null, null, "Test Movie", null, null, null, null, null);
+        Mockito.when(movieService.getMoviesByGenres(eq(0L),
+                        eq(EnumSet.of(Genre.ACTION, Genre.SCIENCE_FICTION)), eq(true), eq(false),
+                        eq(EnumSet.allOf(MovieField.class)), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(movie), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(get("/api/movies")
+                        .param("genres", "Action,sci-fi")
+                        .param("match", "all")
+                        .param("watched", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Test Movie"));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies?genres=... rejects unknown genres")
+    void testGetMoviesByUnknownGenre() throws Exception {
+        mockMvc.perform(get("/api/movies").param("genres", "Cooking"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/movies?fields=... returns only the selected fields")
+    void testGetAllMoviesSparseFieldset() throws Exception {
+        MovieResponse movie = new MovieResponse(1L, null, null, "Test Movie", "2010", null, null, null, null);
+        Mockito.when(movieService.getAllMovies(eq(0L),
+                        eq(EnumSet.of(MovieField.ID, MovieField.TITLE, MovieField.YEAR)), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(movie), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(get("/api/movies").param("fields", "title,year"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Test Movie"))
+                .andExpect(jsonPath("$.content[0].director").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/changes opens an event stream resuming from Last-Event-ID")
+    void testStreamChanges() throws Exception {
+        Mockito.when(movieService.subscribeToChanges(0L, "abc-4")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/movies/changes")
+                        .header("Last-Event-ID", "abc-4")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        Mockito.verify(movieService).subscribeToChanges(0L, "abc-4");
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/stats returns watchlist statistics")
+    void testGetStatistics() throws Exception {
+        Mockito.when(movieService.getStatistics(0L)).thenReturn(new WatchlistStatistics.Summary(
+                2, 1, 1, Map.of("Action", 2L), Map.of("Christopher Nolan", 2L), Map.of("2010", 2L)));
+
+        mockMvc.perform(get("/api/movies/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.byGenre.Action").value(2));
+    }
+
     @Test
     @DisplayName("GET /api/movies/{id} returns a movie")
     void testGetMovieById() throws Exception {
         Movie movie = new Movie();
         movie.setId(1L);
         movie.setTitle("Test Movie");
-        Mockito.when(movieService.getMovieById(1L)).thenReturn(Optional.of(movie));
+        Mockito.when(movieService.getMovieVersion(0L, 1L)).thenReturn(Optional.of(version(3L)));
+        Mockito.when(movieService.getMovieById(0L, 1L)).thenReturn(Optional.of(movie));
 
         mockMvc.perform(get("/api/movies/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1.3\""))
                 .andExpect(jsonPath("$.title").value("Test Movie"));
     }
 
+    @Test
+    @DisplayName("GET /api/movies/{id} caches the encoded movie under its version")
+    void testGetMovieByIdCachesEncodedJson() throws Exception {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("Test Movie");
+        Mockito.when(movieService.getMovieVersion(0L, 1L)).thenReturn(Optional.of(version(3L)));
+        Mockito.when(movieService.getMovieById(0L, 1L)).thenReturn(Optional.of(movie));
+
+        mockMvc.perform(get("/api/movies/1")).andExpect(status().isOk());
+
+        Mockito.verify(movieService)
+                .cacheJson(eq(MovieJsonCache.movieKey(0L, 1L, 3L, null)), any(MovieResponse.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/{id} writes cached bytes, gzip-compressed when accepted")
+    void testGetMovieByIdServesCachedJson() throws Exception {
+        byte[] json = "{\"id\":1,\"title\":\"Cached\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] gzip = {31, -117, 8, 0};
+        Mockito.when(movieService.getMovieVersion(0L, 1L)).thenReturn(Optional.of(version(3L)));
+        Mockito.when(movieService.getCachedJson(MovieJsonCache.movieKey(0L, 1L, 3L, null)))
+                .thenReturn(Optional.of(new MovieJsonCache.Entry(json, gzip)));
+
+        mockMvc.perform(get("/api/movies/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1.3\""))
+                .andExpect(jsonPath("$.title").value("Cached"));
+        mockMvc.perform(get("/api/movies/1").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().bytes(gzip));
+        Mockito.verify(movieService, Mockito.never()).getMovieById(0L, 1L);
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/{id} with Cache-Control: no-cache serializes again and stores the result")
+    void testGetMovieByIdNoCacheSkipsCachedJson() throws Exception {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("Fresh");
+        Mockito.when(movieService.getMovieVersion(0L, 1L)).thenReturn(Optional.of(version(3L)));
+        Mockito.when(movieService.getMovieById(0L, 1L)).thenReturn(Optional.of(movie));
+
+        mockMvc.perform(get("/api/movies/1").header("Cache-Control", "no-cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Fresh"));
+
+        Mockito.verify(movieService, Mockito.never()).getCachedJson(any());
+        Mockito.verify(movieService)
+                .cacheJson(eq(MovieJsonCache.movieKey(0L, 1L, 3L, null)), any(MovieResponse.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/{id} answers a matching If-None-Match with 304 without loading the movie")
+    void testGetMovieByIdNotModified() throws Exception {
+        Mockito.when(movieService.getMovieVersion(0L, 1L)).thenReturn(Optional.of(version(3L)));
+
+        mockMvc.perform(get("/api/movies/1").header("If-None-Match", "\"1.3\""))
+                .andExpect(status().isNotModified());
+        Mockito.verify(movieService, Mockito.never()).getMovieById(0L, 1L);
+    }
+
+    @Test
+    @DisplayName("GET /api/movies?total=false returns a slice without totals")
+    void testGetMovieSlice() throws Exception {
+        MovieResponse movie = new MovieResponse(1L, null, null, "Test Movie", null, null, null, null, null);
+        Mockito.when(movieService.getMovieSlice(
+                        eq(0L), eq(EnumSet.of(MovieField.ID, MovieField.TITLE)), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(movie), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/api/movies").param("fields", "id,title").param("total", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Test Movie"))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        Mockito.verify(movieService, Mockito.never()).getAllMovies(anyLong(), any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies answers a matching If-None-Match with 304")
+    void testGetAllMoviesNotModified() throws Exception {
+        Mockito.when(movieService.getWatchlistETag(0L)).thenReturn("w1-7");
+
+        mockMvc.perform(get("/api/movies").header("If-None-Match", "\"w1-7\""))
+                .andExpect(status().isNotModified());
+        Mockito.verify(movieService, Mockito.never()).getAllMovies(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/batch returns the movies in request order and the missing IDs")
+    void testGetMoviesByIds() throws Exception {
+        MovieResponse nine = new MovieResponse(9L, null, null, "Superman", null, null, null, null, null);
+        MovieResponse six = new MovieResponse(6L, null, null, "Inception", null, null, null, null, null);
+        Mockito.when(movieService.getMoviesByIds(
+                        0L, List.of(9L, 42L, 6L), EnumSet.of(MovieField.ID, MovieField.TITLE)))
+                .thenReturn(new MovieBatch(List.of(nine, six), List.of(42L)));
+
+        mockMvc.perform(get("/api/movies/batch").param("ids", "9,42,6").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies[0].title").value("Superman"))
+                .andExpect(jsonPath("$.movies[1].title").value("Inception"))
+                .andExpect(jsonPath("$.missing[0]").value(42));
+    }
+
+    @Test
+    @DisplayName("POST /api/movies/batch reads the IDs from the body and rejects oversized batches")
+    void testPostMoviesByIdsTooMany() throws Exception {
+        Mockito.when(movieService.getMoviesByIds(0L, List.of(1L, 2L), null))
+                .thenThrow(new IllegalArgumentException("At most 1 movie IDs can be requested at once"));
+
+        mockMvc.perform(post("/api/movies/batch").contentType(MediaType.APPLICATION_JSON).content("[1, 2]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static MovieVersion version(long version) {
+        return new MovieVersion() {
+            @Override
+            public long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Instant getUpdatedAt() {
+                return Instant.parse("2025-06-01T18:00:00Z");
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/{id}/history returns the watched status changes")
+    void testGetWatchHistory() throws Exception {
+        Instant at = Instant.parse("2025-06-01T18:00:00Z");
+        Mockito.when(movieService.getWatchHistory(0L, 1L)).thenReturn(WatchHistory.of(1L, false, List.of(
+                new WatchHistory.Event(true, at), new WatchHistory.Event(false, at.plusSeconds(60)))));
+
+        mockMvc.perform(get("/api/movies/1/history"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.watched").value(false))
+                .andExpect(jsonPath("$.timesWatched").value(1))
+                .andExpect(jsonPath("$.events.length()").value(2))
+                .andExpect(jsonPath("$.events[0].watched").value(true));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/{id}/history returns 404 for movies not on the watchlist")
+    void testGetWatchHistoryNotFound() throws Exception {
+        Mockito.when(movieService.getWatchHistory(7L, 1L)).thenThrow(new IllegalArgumentException("Movie not found"));
+
+        mockMvc.perform(get("/api/movies/1/history").header(MovieController.USER_HEADER, "7"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("POST /api/movies adds a movie")
     void testAddMovie() throws Exception {
         Movie movie = new Movie();
         movie.setId(1L);
         movie.setTitle("Test Movie");
-        Mockito.when(movieService.addMovie("Test Movie")).thenReturn(movie);
+        Mockito.when(movieService.addMovie(0L, "Test Movie")).thenReturn(movie);
 
         mockMvc.perform(post("/api/movies")
                         .param("title", "Test Movie"))
@@ -81,7 +338,7 @@ class MovieControllerTest {
         Movie movie = new Movie();
         movie.setId(1L);
         movie.setWatched(true);
-        Mockito.when(movieService.updateWatchedStatus(1L, true)).thenReturn(movie);
+        Mockito.when(movieService.updateWatchedStatus(0L, 1L, true)).thenReturn(movie);
 
         mockMvc.perform(patch("/api/movies/1/watched")
                         .param("watched", "true"))
@@ -92,7 +349,7 @@ class MovieControllerTest {
     @Test
     @DisplayName("DELETE /api/movies/{id} deletes a movie")
     void testDeleteMovie() throws Exception {
-        Mockito.doNothing().when(movieService).deleteMovie(1L);
+        Mockito.doNothing().when(movieService).deleteMovie(0L, 1L);
 
         mockMvc.perform(delete("/api/movies/1"))
                 .andExpect(status().isNoContent());
@@ -0,0 +1,121 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.example.Dto.MovieField;
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Service.MovieJsonCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MovieJsonCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MovieJsonCache cache = new MovieJsonCache(new ObjectMapper(), meterRegistry, true, 3, 64);
+
+    @Test
+    void testStoresEncodedJsonAndGzipForLargeBodies() throws IOException {
+        String small = MovieJsonCache.movieKey(0L, 1L, 0, null);
+        String large = MovieJsonCache.movieKey(0L, 2L, 0, null);
+        cache.put(small, Map.of("title", "Red"));
+        cache.put(large, Map.of("title", "x".repeat(500)));
+
+        assertEquals("{\"title\":\"Red\"}", new String(cache.get(small).json(), StandardCharsets.UTF_8));
+        assertNull(cache.get(small).gzip());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(cache.get(large).gzip()))) {
+            assertEquals(new String(cache.get(large).json(), StandardCharsets.UTF_8),
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(4.0, meterRegistry.get("movies.response-cache.hits").counter().count());
+    }
+
+    @Test
+    void testKeysSeparateVersionsFieldsAndPages() {
+        assertNotEquals(MovieJsonCache.movieKey(0L, 1L, 1, null), MovieJsonCache.movieKey(0L, 1L, 2, null));
+        assertNotEquals(MovieJsonCache.movieKey(0L, 1L, 1, null),
+                MovieJsonCache.movieKey(0L, 1L, 1, EnumSet.allOf(MovieField.class)));
+        assertNotEquals(MovieJsonCache.pageKey(0L, "w1-1", PageRequest.of(0, 20), null, true),
+                MovieJsonCache.pageKey(0L, "w1-1", PageRequest.of(0, 20, Sort.by("title")), null, true));
+        assertNotEquals(MovieJsonCache.pageKey(0L, "w1-1", PageRequest.of(0, 20), null, true),
+                MovieJsonCache.pageKey(0L, "w1-2", PageRequest.of(0, 20), null, true));
+    }
+
+    @Test
+    void testKeysSeparateUsers() {
+        assertNotEquals(MovieJsonCache.movieKey(0L, 1L, 1, null), MovieJsonCache.movieKey(7L, 1L, 1, null));
+        assertNotEquals(MovieJsonCache.pageKey(0L, "w1-1", PageRequest.of(0, 20), null, true),
+                MovieJsonCache.pageKey(7L, "w1-1", PageRequest.of(0, 20), null, true));
+    }
+
+    @Test
+    void testWatchlistChangeEvictsChangedMovieAndPagesOfItsUserOnly() {
+        String changed = MovieJsonCache.movieKey(0L, 1L, 0, null);
+        String other = MovieJsonCache.movieKey(0L, 11L, 0, null);
+        String page = MovieJsonCache.pageKey(0L, "w1-1", PageRequest.of(0, 20), null, true);
+        String otherUser = MovieJsonCache.movieKey(7L, 1L, 0, null);
+        String otherUserPage = MovieJsonCache.pageKey(7L, "w1-1", PageRequest.of(0, 20), null, true);
+        MovieJsonCache larger = new MovieJsonCache(new ObjectMapper(), new SimpleMeterRegistry(), true, 10, 64);
+        for (String key : List.of(changed, other, page, otherUser, otherUserPage)) {
+            larger.put(key, Map.of());
+        }
+
+        MovieSnapshot before = new MovieSnapshot(1L, "Red", "2010", null, null, 0L, false, null, List.of());
+        MovieSnapshot after = new MovieSnapshot(1L, "Red", "2010", null, null, 0L, true, null, List.of());
+        larger.onMovieChange(MovieChangeEvent.updated(0L, before, after));
+
+        assertNull(larger.get(changed));
+        assertNull(larger.get(page));
+        assertNotNull(larger.get(other));
+        assertNotNull(larger.get(otherUser));
+        assertNotNull(larger.get(otherUserPage));
+    }
+
+    @Test
+    void testCatalogueUpdateEvictsChangedMovieOfEveryUser() {
+        String changed = MovieJsonCache.movieKey(0L, 1L, 0, null);
+        String otherUser = MovieJsonCache.movieKey(7L, 1L, 0, null);
+        String otherUserPage = MovieJsonCache.pageKey(7L, "w1-1", PageRequest.of(0, 20), null, true);
+        String other = MovieJsonCache.movieKey(7L, 11L, 0, null);
+        MovieJsonCache larger = new MovieJsonCache(new ObjectMapper(), new SimpleMeterRegistry(), true, 10, 64);
+        for (String key : List.of(changed, otherUser, otherUserPage, other)) {
+            larger.put(key, Map.of());
+        }
+
+        MovieSnapshot before = new MovieSnapshot(1L, "Red", "2010", null, null, 0L, false, null, List.of());
+        MovieSnapshot after = new MovieSnapshot(1L, "Red", "2010", "Schwentke", null, 0L, false, null, List.of());
+        larger.onMovieChange(MovieChangeEvent.updated(before, after));
+
+        assertNull(larger.get(changed));
+        assertNull(larger.get(otherUser));
+        assertNull(larger.get(otherUserPage));
+        assertNotNull(larger.get(other));
+    }
+
+    @Test
+    void testDropsLeastRecentlyUsedEntries() {
+        for (long id = 1; id <= 4; id++) {
+            cache.put(MovieJsonCache.movieKey(0L, id, 0, null), Map.of("id", id));
+            cache.get(MovieJsonCache.movieKey(0L, 1L, 0, null));
+        }
+
+        assertNotNull(cache.get(MovieJsonCache.movieKey(0L, 1L, 0, null)));
+        assertNull(cache.get(MovieJsonCache.movieKey(0L, 2L, 0, null)));
+        assertEquals(3.0, meterRegistry.get("movies.response-cache.entries").gauge().value());
+    }
+}
@@ -1,22 +1,45 @@
 package com.example;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 
+import com.example.Event.MovieChangeEvent;
+import com.example.Model.Genre;
 import com.example.Model.Movie;
+import com.example.Model.WatchlistEntry;
 import com.example.Repository.MovieRepository;
+import com.example.Repository.MovieVersion;
+import com.example.Repository.WatchlistEntryRepository;
 import com.example.Service.MovieService;
 import com.example.Service.OMDbService;
 import com.example.Service.TMDBService;
+import com.example.Service.WatchedStatusWriteBehind;
+import com.example.Service.WatchlistStatistics;
 
 @ExtendWith(MockitoExtension.class)
 class MovieServiceTest {
@@ -33,6 +56,18 @@ class MovieServiceTest {
     @Mock
     private MovieRepository movieRepository;
 
+    @Mock
+    private WatchlistEntryRepository watchlistEntryRepository;
+
+    @Mock
+    private WatchlistStatistics watchlistStatistics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WatchedStatusWriteBehind watchedWriteBehind;
+
     @Test
     void testAddMovieReturnsMergedMovie() {
         // Arrange
@@ -51,14 +86,198 @@ class MovieServiceTest {
         savedMovie.setTitle("Flash");
         savedMovie.setMovieId(123L);
 
+        when(movieRepository.findByTitleIgnoreCase("Flash")).thenReturn(Optional.empty());
+        when(movieRepository.findFirstByMovieId(123L)).thenReturn(Optional.empty());
         when(movieRepository.save(any(Movie.class))).thenReturn(savedMovie);
-        when(movieRepository.findByTitleIgnoreCase("Flash")).thenReturn(Optional.of(savedMovie));
+        when(movieRepository.findById(15L)).thenReturn(Optional.of(savedMovie));
 
         // Act
-        Movie result = movieService.addMovie("Flash");
+        Movie result = movieService.addMovie(0L, "Flash");
 
         // Assert
         assertEquals("Flash", result.getTitle());
         verify(movieRepository).save(any(Movie.class));
+        ArgumentCaptor<WatchlistEntry> entry = ArgumentCaptor.forClass(WatchlistEntry.class);
+        verify(watchlistEntryRepository).save(entry.capture());
+        assertEquals(0L, entry.getValue().getUserId());
+        assertEquals(15L, entry.getValue().getMovieId());
+    }
+
+    @Test
+    void testGetAllMoviesTakesTotalFromStatisticsInsteadOfCounting() {
+        Movie first = new Movie();
+        first.setId(1L);
+        Movie second = new Movie();
+        second.setId(2L);
+        when(watchlistEntryRepository.findSliceByUserId(0L, PageRequest.of(1, 2)))
+                .thenReturn(new SliceImpl<>(entries(0L, first, second), PageRequest.of(1, 2), true));
+        when(watchlistStatistics.getTotal(0L)).thenReturn(10L);
+
+        Page<Movie> page = movieService.getAllMovies(0L, PageRequest.of(1, 2));
+
+        assertEquals(10, page.getTotalElements());
+        assertEquals(5, page.getTotalPages());
+        verify(movieRepository, never()).count();
+    }
+
+    @Test
+    void testGetAllMoviesUsesExactTotalOnLastSlice() {
+        Movie last = new Movie();
+        last.setId(5L);
+        when(watchlistEntryRepository.findSliceByUserId(0L, PageRequest.of(2, 2)))
+                .thenReturn(new SliceImpl<>(entries(0L, last), PageRequest.of(2, 2), false));
+
+        Page<Movie> page = movieService.getAllMovies(0L, PageRequest.of(2, 2));
+
+        assertEquals(5, page.getTotalElements());
+        verify(watchlistStatistics, never()).getTotal(anyLong());
+    }
+
+    @Test
+    void testGetAllMoviesReadsOnlyTheUsersEntries() {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        WatchlistEntry entry = new WatchlistEntry(7L, movie);
+        entry.setWatched(true);
+        when(watchlistEntryRepository.findSliceByUserId(7L, PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(List.of(entry), PageRequest.of(0, 2), false));
+        when(watchedWriteBehind.pendingWatched(7L, 1L)).thenReturn(null);
+
+        Page<Movie> page = movieService.getAllMovies(7L, PageRequest.of(0, 2));
+
+        assertEquals(List.of(1L), page.map(Movie::getId).getContent());
+        assertTrue(page.getContent().get(0).isWatched());
+        verify(watchlistEntryRepository, never()).findSliceByUserId(eq(0L), any());
+    }
+
+    @Test
+    void testMovieVersionCountsEveryPendingToggle() {
+        MovieVersion stored = new MovieVersion() {
+            @Override
+            public long getVersion() {
+                return 4L;
+            }
+
+            @Override
+            public Instant getUpdatedAt() {
+                return Instant.parse("2025-06-01T18:00:00Z");
+            }
+        };
+        when(watchlistEntryRepository.findVersion(0L, 1L)).thenReturn(Optional.of(stored));
+        when(watchedWriteBehind.pendingToggles(0L, 1L)).thenReturn(0, 1, 2);
+
+        assertEquals(4L, movieService.getMovieVersion(0L, 1L).orElseThrow().getVersion());
+        assertEquals(5L, movieService.getMovieVersion(0L, 1L).orElseThrow().getVersion());
+        MovieVersion pending = movieService.getMovieVersion(0L, 1L).orElseThrow();
+        assertEquals(6L, pending.getVersion());
+        assertNull(pending.getUpdatedAt());
+    }
+
+    @Test
+    void testAddMovieLinksCataloguedMovieWithoutApiCalls() {
+        Movie catalogued = new Movie();
+        catalogued.setId(15L);
+        catalogued.setTitle("Flash");
+        when(movieRepository.findByTitleIgnoreCase("Flash")).thenReturn(Optional.of(catalogued));
+        when(movieRepository.findLiveByIdForUpdate(15L)).thenReturn(Optional.of(catalogued));
+
+        Movie result = movieService.addMovie(7L, "Flash");
+
+        assertEquals(15L, result.getId());
+        assertFalse(result.isWatched());
+        verify(watchlistEntryRepository).save(any(WatchlistEntry.class));
+        verify(eventPublisher).publishEvent(any(MovieChangeEvent.class));
+        verify(omdbService, never()).fetchMovieData(anyString());
+        verify(movieRepository, never()).save(any(Movie.class));
+    }
+
+    @Test
+    void testAddMovieStoresMovieAnewWhenCataloguedMovieWasDeletedMeanwhile() {
+        Movie tombstoned = new Movie();
+        tombstoned.setId(15L);
+        tombstoned.setTitle("Flash");
+        when(movieRepository.findByTitleIgnoreCase("Flash")).thenReturn(Optional.of(tombstoned));
+        when(movieRepository.findLiveByIdForUpdate(15L)).thenReturn(Optional.empty());
+        Movie omdb = new Movie();
+        omdb.setTitle("Flash");
+        omdb.setMovieId(123L);
+        when(omdbService.fetchMovieData("Flash")).thenReturn(omdb);
+        when(tmdbService.fetchMovieData("Flash")).thenReturn(new Movie());
+        when(movieRepository.findFirstByMovieId(123L)).thenReturn(Optional.empty());
+        Movie savedMovie = new Movie();
+        savedMovie.setId(16L);
+        savedMovie.setTitle("Flash");
+        when(movieRepository.save(any(Movie.class))).thenReturn(savedMovie);
+        when(movieRepository.findById(16L)).thenReturn(Optional.of(savedMovie));
+
+        Movie result = movieService.addMovie(7L, "Flash");
+
+        assertEquals(16L, result.getId());
+        ArgumentCaptor<WatchlistEntry> entry = ArgumentCaptor.forClass(WatchlistEntry.class);
+        verify(watchlistEntryRepository).save(entry.capture());
+        assertEquals(16L, entry.getValue().getMovieId());
+    }
+
+    @Test
+    void testAddMovieRejectsTitleAlreadyOnTheUsersWatchlist() {
+        when(watchlistEntryRepository.existsByTitle(7L, "Flash")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> movieService.addMovie(7L, "Flash"));
+        verify(watchlistEntryRepository, never()).save(any(WatchlistEntry.class));
+    }
+
+    @Test
+    void testRefreshKeepsOmdbFieldsAndUpdatesTmdbOnes() {
+        Movie stored = new Movie();
+        stored.setId(1L);
+        stored.setTmdbId(807L);
+        stored.setTitle("Se7en");
+        stored.setYear("1995");
+        stored.setDirector("David Fincher");
+        stored.setGenre("Drama");
+        stored.setGenreMask(Genre.DRAMA.mask());
+        Movie fetched = new Movie();
+        fetched.setTmdbId(807L);
+        fetched.setTitle("Seven");
+        fetched.setYear("1996");
+        fetched.setDirector("Someone Else");
+        fetched.setGenre("Crime,Drama");
+        fetched.setGenreMask(Genre.CRIME.mask() | Genre.DRAMA.mask());
+        fetched.setSimilarTmdbIds(List.of(550L, 680L));
+        fetched.setSimilarMovieTitle("Fight Club");
+        when(movieRepository.findByTmdbId(807L)).thenReturn(List.of(stored));
+
+        assertEquals(1, movieService.refreshMovieMetadata(fetched));
+
+        assertEquals("Se7en", stored.getTitle());
+        assertEquals("1995", stored.getYear());
+        assertEquals("David Fincher", stored.getDirector());
+        assertEquals(Genre.CRIME.mask() | Genre.DRAMA.mask(), stored.getGenreMask());
+        assertEquals(List.of(550L, 680L), stored.getSimilarTmdbIds());
+        assertEquals("Fight Club", stored.getSimilarMovieTitle());
+    }
+
+    @Test
+    void testRefreshFillsMissingDirectorAndIgnoresOmdbOnlyChanges() {
+        Movie stored = new Movie();
+        stored.setId(1L);
+        stored.setTmdbId(807L);
+        stored.setTitle("Se7en");
+        Movie fetched = new Movie();
+        fetched.setTmdbId(807L);
+        fetched.setTitle("Seven");
+        when(movieRepository.findByTmdbId(807L)).thenReturn(List.of(stored));
+
+        assertEquals(0, movieService.refreshMovieMetadata(fetched));
+        verify(eventPublisher, never()).publishEvent(any());
+
+        fetched.setDirector("David Fincher");
+        assertEquals(1, movieService.refreshMovieMetadata(fetched));
+        assertEquals("David Fincher", stored.getDirector());
+        assertEquals("Se7en", stored.getTitle());
+    }
+
+    private static List<WatchlistEntry> entries(long userId, Movie... movies) {
+        return Arrays.stream(movies).map(movie -> new WatchlistEntry(userId, movie)).toList();
     }
 }
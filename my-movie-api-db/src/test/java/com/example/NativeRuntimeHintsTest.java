@@ -0,0 +1,41 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.example.Config.NativeRuntimeHints;
+import com.example.Dto.MovieChange;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Movie;
+
+class NativeRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeRuntimeHintsTest() {
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testRegistersPrivateApiResponseTypesForJackson() {
+        for (String type : new String[] {"com.example.Service.OMDbService$OMDbResponse",
+                "com.example.Service.TMDBService$TMDBSearchResponse",
+                "com.example.Service.TMDBService$TMDBChangesResponse"}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))
+                    .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints), type);
+        }
+    }
+
+    @Test
+    void testRegistersEntitiesAndProjectionConstructors() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Movie.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(MovieSnapshot.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(MovieChange.class).test(hints));
+    }
+}
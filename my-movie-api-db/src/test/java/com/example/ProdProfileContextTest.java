@@ -0,0 +1,48 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Starts the context with the prod profile, on H2 instead of MySQL, and checks which beans
+ * lazy initialization leaves uncreated.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod-profile;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "movies.warmup.enabled=false",
+        "movies.refresh.enabled=false",
+        "movies.purge.enabled=false",
+        "movies.history.dir=target/prod-profile-test/watch-history",
+        "movies.replay-cache.dir=target/prod-profile-test/replay-cache",
+        "movies.imdb.index-file=target/prod-profile-test/imdb-index/titles.idx"})
+@ActiveProfiles("prod")
+class ProdProfileContextTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    void testBackgroundJobsAreCreatedEagerly() {
+        for (String bean : new String[] {"movieBlobPurger", "tmdbChangeRefresher", "imdbTitleIndex", "watchlistStatistics",
+                "movieChangeStream", "watchedStatusWriteBehind", "watchHistoryLog", "responseReplayCache"}) {
+            assertTrue(context.getBeanFactory().containsSingleton(bean), bean + " was not created");
+        }
+    }
+
+    @Test
+    void testInMemoryIndexesStayLazy() {
+        assertFalse(context.getBeanFactory().containsSingleton("genreIndex"));
+        assertFalse(context.getBeanFactory().containsSingleton("similarityGraph"));
+        assertFalse(context.getBeanFactory().containsSingleton("movieService"));
+    }
+}
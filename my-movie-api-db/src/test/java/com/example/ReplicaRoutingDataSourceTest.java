@@ -0,0 +1,147 @@
+package com.example;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.example.Config.ReplicaRoutingDataSource;
+import com.example.Controller.MovieController;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DriverManagerDataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = instance("primary");
+        replica = instance("replica");
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), 0);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+        assertEquals("replica", readOnly.execute(status -> instanceName()));
+        assertEquals("primary", readWrite.execute(status -> instanceName()));
+        assertEquals("primary", instanceName());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testReadsOfTheWritingUserStayOnPrimaryDuringReadAfterWriteWindow() {
+        ReplicaRoutingDataSource windowed = new ReplicaRoutingDataSource(instance("primary"), List.of(replica), 60_000);
+        windowed.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(windowed);
+        JdbcTemplate windowedJdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate windowedReadOnly = new TransactionTemplate(transactionManager);
+        windowedReadOnly.setReadOnly(true);
+        String query = "select name from instance";
+
+        requestOf("7");
+        assertEquals("replica", windowedReadOnly.execute(status -> windowedJdbc.queryForObject(query, String.class)));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                windowedJdbc.update("update instance set name = name"));
+        assertEquals("primary", windowedReadOnly.execute(status -> windowedJdbc.queryForObject(query, String.class)));
+
+        requestOf("8");
+        assertEquals("replica", windowedReadOnly.execute(status -> windowedJdbc.queryForObject(query, String.class)));
+        requestOf("7");
+        assertEquals("primary", windowedReadOnly.execute(status -> windowedJdbc.queryForObject(query, String.class)));
+    }
+
+    @Test
+    void testBackgroundWritesOpenNoReadAfterWriteWindow() {
+        ReplicaRoutingDataSource windowed = new ReplicaRoutingDataSource(instance("primary"), List.of(replica), 60_000);
+        windowed.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(windowed);
+        JdbcTemplate windowedJdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate windowedReadOnly = new TransactionTemplate(transactionManager);
+        windowedReadOnly.setReadOnly(true);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                windowedJdbc.update("update instance set name = name"));
+
+        requestOf("7");
+        assertEquals("replica", windowedReadOnly.execute(status ->
+                windowedJdbc.queryForObject("select name from instance", String.class)));
+    }
+
+    @Test
+    void testReadsOfOneRequestStayOnOneReplica() {
+        ReplicaRoutingDataSource pinned = new ReplicaRoutingDataSource(instance("primary"),
+                List.of(instance("replica-0"), instance("replica-1")), 0);
+        pinned.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(pinned);
+        JdbcTemplate pinnedJdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate pinnedReadOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        pinnedReadOnly.setReadOnly(true);
+        String query = "select name from instance";
+
+        requestOf("7");
+        String first = pinnedReadOnly.execute(status -> pinnedJdbc.queryForObject(query, String.class));
+        assertEquals(first, pinnedReadOnly.execute(status -> pinnedJdbc.queryForObject(query, String.class)));
+        assertEquals(first, pinnedReadOnly.execute(status -> pinnedJdbc.queryForObject(query, String.class)));
+
+        requestOf("7");
+        assertNotEquals(first, pinnedReadOnly.execute(status -> pinnedJdbc.queryForObject(query, String.class)));
+    }
+
+    @Test
+    void testUnhealthyReplicaFallsBackToPrimary() {
+        replica.setUrl("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", readOnly.execute(status -> instanceName()));
+    }
+
+    private static void requestOf(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(MovieController.USER_HEADER, userId);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private String instanceName() {
+        return jdbcTemplate.queryForObject("select name from instance", String.class);
+    }
+
+    private static DriverManagerDataSource instance(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists instance (name varchar(20))");
+        jdbcTemplate.update("delete from instance");
+        jdbcTemplate.update("insert into instance (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.hamcrest.Matchers.startsWith;
+
+import com.example.Config.ReplayCacheInterceptor;
+import com.example.Config.ResponseReplayCache;
+import com.example.Config.ResponseReplayCache.CachedResponse;
+import com.example.Config.ResponseReplayCache.Mode;
+
+class ResponseReplayCacheTest {
+
+    private static final String MOVIE_URL = "http://tmdb.test/3/movie/115?api_key=%s&append_to_response=credits";
+
+    @TempDir
+    Path directory;
+
+    private ResponseReplayCache cache;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void testKeyIgnoresApiKeys() {
+        assertEquals(
+                ResponseReplayCache.keyOf("GET", URI.create(MOVIE_URL.formatted("one"))),
+                ResponseReplayCache.keyOf("GET", URI.create(MOVIE_URL.formatted("two"))));
+    }
+
+    @Test
+    void testResponsesSurviveRestartAndExpire() throws IOException {
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 1 << 20);
+        cache.put("GET a", response("{\"a\":1}", System.currentTimeMillis()));
+        cache.put("GET old", response("{\"old\":1}", System.currentTimeMillis() - Duration.ofDays(2).toMillis()));
+        cache.close();
+
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 1 << 20);
+        assertEquals("{\"a\":1}", body(cache.get("GET a", false).orElseThrow()));
+        assertTrue(cache.get("GET old", false).isEmpty());
+        assertEquals("{\"old\":1}", body(cache.get("GET old", true).orElseThrow()));
+    }
+
+    @Test
+    void testIndexIsRebuiltFromLogAndTornRecordDropped() throws IOException {
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 1 << 20);
+        cache.put("GET a", response("{\"a\":1}", System.currentTimeMillis()));
+        cache.put("GET b", response("{\"b\":1}", System.currentTimeMillis()));
+        cache.close();
+        Files.delete(directory.resolve("responses.idx"));
+        Files.write(directory.resolve("responses.log"), new byte[] {0x52, 0x50, 0x4C}, StandardOpenOption.APPEND);
+
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 1 << 20);
+        assertEquals("{\"a\":1}", body(cache.get("GET a", false).orElseThrow()));
+        assertEquals("{\"b\":1}", body(cache.get("GET b", false).orElseThrow()));
+        cache.put("GET c", response("{\"c\":1}", System.currentTimeMillis()));
+        assertEquals("{\"c\":1}", body(cache.get("GET c", false).orElseThrow()));
+    }
+
+    @Test
+    void testCompactionKeepsOnlyLatestLiveResponses() throws IOException {
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 0);
+        for (int i = 0; i < 10; i++) {
+            cache.put("GET a", response("{\"a\":" + i + "}", System.currentTimeMillis()));
+        }
+        cache.put("GET old", response("{\"old\":1}", System.currentTimeMillis() - Duration.ofDays(2).toMillis()));
+        long before = Files.size(directory.resolve("responses.log"));
+
+        cache.compactIfWorthwhile();
+
+        assertTrue(Files.size(directory.resolve("responses.log")) < before / 5);
+        assertEquals("{\"a\":9}", body(cache.get("GET a", false).orElseThrow()));
+        assertTrue(cache.get("GET old", true).isEmpty());
+        cache.close();
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 1 << 20);
+        assertEquals("{\"a\":9}", body(cache.get("GET a", false).orElseThrow()));
+    }
+
+    @Test
+    void testInterceptorRecordsThenReplaysWithoutApi() throws IOException {
+        cache = open(Mode.READ_THROUGH, Duration.ofDays(1), 1 << 20);
+        RestTemplate online = restTemplate(cache);
+        MockRestServiceServer tmdb = MockRestServiceServer.bindTo(online).build();
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith("http://tmdb.test/3/movie/115")))
+                .andRespond(withSuccess("{\"title\":\"The Big Lebowski\"}", MediaType.APPLICATION_JSON));
+
+        assertEquals("{\"title\":\"The Big Lebowski\"}", online.getForObject(MOVIE_URL.formatted("one"), String.class));
+        assertEquals("{\"title\":\"The Big Lebowski\"}", online.getForObject(MOVIE_URL.formatted("two"), String.class));
+        tmdb.verify();
+        cache.close();
+
+        cache = open(Mode.REPLAY, Duration.ZERO, 1 << 20);
+        RestTemplate offline = restTemplate(cache);
+        MockRestServiceServer.bindTo(offline).build();
+        assertEquals("{\"title\":\"The Big Lebowski\"}", offline.getForObject(MOVIE_URL.formatted("three"), String.class));
+        assertThrows(ResourceAccessException.class,
+                () -> offline.getForObject("http://tmdb.test/3/movie/116?api_key=k", String.class));
+    }
+
+    private ResponseReplayCache open(Mode mode, Duration ttl, long compactionMinBytes) throws IOException {
+        ResponseReplayCache opened = new ResponseReplayCache(directory, mode, ttl, compactionMinBytes);
+        opened.open();
+        return opened;
+    }
+
+    private static RestTemplate restTemplate(ResponseReplayCache cache) {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new ReplayCacheInterceptor(cache, List.of("/movie/changes")));
+        return restTemplate;
+    }
+
+    private static CachedResponse response(String body, long storedAt) {
+        return new CachedResponse(200, MediaType.APPLICATION_JSON_VALUE, body.getBytes(StandardCharsets.UTF_8), storedAt);
+    }
+
+    private static String body(CachedResponse response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+}
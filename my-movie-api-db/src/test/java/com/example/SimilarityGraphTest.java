@@ -0,0 +1,83 @@
+package com.example;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Repository.MovieRepository;
+import com.example.Service.SimilarityGraph;
+
+@ExtendWith(MockitoExtension.class)
+class SimilarityGraphTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private SimilarityGraph similarityGraph;
+
+    @BeforeEach
+    void setUp() {
+        when(movieRepository.findAllSnapshots()).thenReturn(List.of());
+        when(movieRepository.findAllSimilarTmdbIds()).thenReturn(List.of());
+        similarityGraph = new SimilarityGraph(movieRepository);
+        similarityGraph.rebuild();
+
+        // 1 lists 2 directly; 1 and 3 share 900; 4 shares 900 and 901 with 1; 5 links back to 1
+        add(1L, 100L, List.of(200L, 900L, 901L));
+        add(2L, 200L, List.of());
+        add(3L, 300L, List.of(900L));
+        add(4L, 400L, List.of(900L, 901L));
+        add(5L, 500L, List.of(100L));
+    }
+
+    @Test
+    void testRecommendRanksByDistanceThenPathCount() {
+        List<Long> ranked = recommend(1L, bits(2, 3, 4));
+
+        assertEquals(List.of(2L, 4L, 3L), ranked);
+    }
+
+    @Test
+    void testOnlyEligibleMoviesAreRecommended() {
+        assertEquals(List.of(5L, 4L), recommend(1L, bits(4, 5)));
+    }
+
+    @Test
+    void testCatalogueDeleteIsAppliedAndWatchlistEventsIgnored() {
+        similarityGraph.onMovieChange(MovieChangeEvent.deleted(snapshot(4L, 400L, List.of())));
+        similarityGraph.onMovieChange(MovieChangeEvent.deleted(7L, snapshot(3L, 300L, List.of())));
+
+        assertEquals(List.of(2L, 3L), recommend(1L, bits(2, 3, 4)));
+    }
+
+    private List<Long> recommend(Long movieId, BitSet eligible) {
+        return similarityGraph.recommend(movieId, 10, eligible).stream()
+                .map(SimilarityGraph.Candidate::movieId)
+                .toList();
+    }
+
+    private void add(Long id, Long tmdbId, List<Long> similar) {
+        similarityGraph.onMovieChange(MovieChangeEvent.added(snapshot(id, tmdbId, similar)));
+    }
+
+    private static MovieSnapshot snapshot(Long id, Long tmdbId, List<Long> similar) {
+        return new MovieSnapshot(id, "Movie " + id, "2000", "Director", null, 0L, false, tmdbId, similar);
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bitSet = new BitSet();
+        for (int id : ids) {
+            bitSet.set(id);
+        }
+        return bitSet;
+    }
+}
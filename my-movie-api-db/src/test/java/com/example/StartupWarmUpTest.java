@@ -0,0 +1,78 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import org.springframework.web.client.RestTemplate;
+
+import static org.hamcrest.Matchers.startsWith;
+
+import com.example.Config.StartupWarmUp;
+
+class StartupWarmUpTest {
+
+    private static final String BASE_URL = "http://localhost:8080/api/movies";
+
+    @Test
+    void testReportsOutOfServiceUntilWorkloadRan() {
+        StartupWarmUp warmUp = new StartupWarmUp(true, 50, 60_000, 10);
+        MockRestServiceServer server = bind(warmUp);
+        server.expect(ExpectedCount.manyTimes(), requestTo(startsWith(BASE_URL)))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"content\":[{\"id\":6},{\"id\":7}]}", MediaType.APPLICATION_JSON));
+        assertEquals(Status.OUT_OF_SERVICE, warmUp.health().getStatus());
+
+        warmUp.run(BASE_URL);
+
+        server.verify();
+        assertEquals(Status.UP, warmUp.health().getStatus());
+        assertEquals(50, warmUp.health().getDetails().get("requests"));
+    }
+
+    @Test
+    void testWorkloadBypassesTheResponseCache() {
+        StartupWarmUp warmUp = new StartupWarmUp(true, 20, 60_000, 10);
+        MockRestServiceServer server = bind(warmUp);
+        server.expect(ExpectedCount.once(), requestTo(startsWith(BASE_URL)))
+                .andRespond(withSuccess("{\"content\":[{\"id\":6}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.times(20), requestTo(startsWith(BASE_URL)))
+                .andExpect(header("Cache-Control", "no-cache"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        warmUp.run(BASE_URL);
+
+        server.verify();
+        assertEquals("done", warmUp.health().getDetails().get("warmUp"));
+    }
+
+    @Test
+    void testFailingWarmUpStillAcceptsTraffic() {
+        StartupWarmUp warmUp = new StartupWarmUp(true, 50, 60_000, 10);
+        bind(warmUp).expect(ExpectedCount.once(), requestTo(startsWith(BASE_URL))).andRespond(withServerError());
+
+        warmUp.run(BASE_URL);
+
+        assertEquals(Status.UP, warmUp.health().getStatus());
+        assertEquals("failed", warmUp.health().getDetails().get("warmUp"));
+    }
+
+    @Test
+    void testDisabledWarmUpIsReadyImmediately() {
+        assertEquals(Status.UP, new StartupWarmUp(false, 50, 60_000, 10).health().getStatus());
+    }
+
+    private static MockRestServiceServer bind(StartupWarmUp warmUp) {
+        RestTemplate restTemplate = (RestTemplate) ReflectionTestUtils.getField(warmUp, "restTemplate");
+        return MockRestServiceServer.bindTo(restTemplate).build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import org.springframework.web.client.RestTemplate;
+
+import static org.hamcrest.Matchers.startsWith;
+
+import com.example.Model.Genre;
+import com.example.Model.Movie;
+import com.example.Repository.MovieImageRepository;
+import com.example.Service.ImageDownloader;
+import com.example.Service.TMDBService;
+
+@ExtendWith(MockitoExtension.class)
+class TMDBServiceTest {
+
+    private static final String API_URL = "http://tmdb.test/3";
+
+    @Mock
+    private MovieImageRepository movieImageRepository;
+
+    @Mock
+    private ImageDownloader imageDownloader;
+
+    private MockRestServiceServer tmdb;
+    private TMDBService tmdbService;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        tmdb = MockRestServiceServer.bindTo(restTemplate).build();
+        tmdbService = new TMDBService(restTemplate, movieImageRepository, imageDownloader);
+        ReflectionTestUtils.setField(tmdbService, "apiUrl", API_URL);
+        ReflectionTestUtils.setField(tmdbService, "apiKey", "test-key");
+    }
+
+    @Test
+    void testFetchMovieDataUsesSearchAndOneAppendedDetailRequest() {
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith(API_URL + "/search/movie")))
+                .andRespond(withSuccess("{\"results\":[{\"id\":115,\"title\":\"The Big Lebowski\",\"genre_ids\":[35]}]}",
+                        MediaType.APPLICATION_JSON));
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith(API_URL + "/movie/115?")))
+                .andExpect(queryParam("append_to_response", "credits,similar,images"))
+                .andRespond(withSuccess("""
+                        {"title":"The Big Lebowski","release_date":"1998-03-06",
+                         "overview":"Dude","production_companies":[{"id":1,"name":"Working Title"}],
+                         "genres":[{"id":35,"name":"Comedy"},{"id":80,"name":"Crime"}],
+                         "credits":{"cast":[{"name":"Jeff Bridges","job":null}],
+                                    "crew":[{"job":"Director","name":"Joel Coen","known_for":[{"id":1}]},
+                                            {"job":"Writer","name":"Ethan Coen"},
+                                            {"job":"Director","name":"Ethan Coen"}]},
+                         "similar":{"page":1,"results":[{"id":949,"title":"Heat","genre_ids":[80]},
+                                                        {"id":274,"title":"Fargo"}]},
+                         "images":{"posters":[],"backdrops":[]}}
+                        """, MediaType.APPLICATION_JSON));
+
+        Movie movie = tmdbService.fetchMovieData("The Big Lebowski");
+
+        tmdb.verify();
+        assertEquals(115L, movie.getTmdbId());
+        assertEquals("1998", movie.getYear());
+        assertEquals("Joel Coen, Ethan Coen", movie.getDirector());
+        assertEquals(Genre.COMEDY.mask() | Genre.CRIME.mask(), movie.getGenreMask());
+        assertEquals(List.of(949L, 274L), movie.getSimilarTmdbIds());
+        assertEquals("Heat", movie.getSimilarMovieTitle());
+    }
+}
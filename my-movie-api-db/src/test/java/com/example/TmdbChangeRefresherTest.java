@@ -0,0 +1,118 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import org.springframework.web.client.RestTemplate;
+
+import static org.hamcrest.Matchers.startsWith;
+
+import com.example.Model.Genre;
+import com.example.Model.Movie;
+import com.example.Model.SyncCheckpoint;
+import com.example.Repository.MovieImageRepository;
+import com.example.Repository.MovieRepository;
+import com.example.Repository.SyncCheckpointRepository;
+import com.example.Service.ImageDownloader;
+import com.example.Service.MovieService;
+import com.example.Service.TMDBService;
+import com.example.Service.TmdbChangeRefresher;
+
+@ExtendWith(MockitoExtension.class)
+class TmdbChangeRefresherTest {
+
+    private static final String API_URL = "http://tmdb.test/3";
+
+    @Mock
+    private MovieImageRepository movieImageRepository;
+
+    @Mock
+    private ImageDownloader imageDownloader;
+
+    @Mock
+    private MovieService movieService;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private SyncCheckpointRepository checkpointRepository;
+
+    private MockRestServiceServer tmdb;
+    private TmdbChangeRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        tmdb = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        TMDBService tmdbService = new TMDBService(restTemplate, movieImageRepository, imageDownloader);
+        ReflectionTestUtils.setField(tmdbService, "apiUrl", API_URL);
+        ReflectionTestUtils.setField(tmdbService, "apiKey", "test-key");
+        refresher = new TmdbChangeRefresher(tmdbService, movieService, movieRepository, checkpointRepository,
+                true, 1, 0);
+    }
+
+    @Test
+    void testRefreshesOnlyChangedWatchlistMoviesAndAdvancesCheckpoint() {
+        LocalDate today = LocalDate.of(2026, 10, 18);
+        when(checkpointRepository.findById(TmdbChangeRefresher.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(new SyncCheckpoint(TmdbChangeRefresher.CHECKPOINT_NAME, today.minusDays(2))));
+        when(checkpointRepository.save(any(SyncCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(movieRepository.findAllTmdbIds()).thenReturn(List.of(550L, 603L, 42L));
+        when(movieService.refreshMovieMetadata(any(Movie.class))).thenReturn(1);
+
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith(API_URL + "/movie/changes")))
+                .andExpect(queryParam("start_date", "2026-10-16"))
+                .andExpect(queryParam("end_date", "2026-10-18"))
+                .andExpect(queryParam("page", "1"))
+                .andRespond(withSuccess("{\"results\":[{\"id\":550},{\"id\":999}],\"page\":1,\"total_pages\":2}",
+                        MediaType.APPLICATION_JSON));
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith(API_URL + "/movie/changes")))
+                .andExpect(queryParam("page", "2"))
+                .andRespond(withSuccess("{\"results\":[{\"id\":603}],\"page\":2,\"total_pages\":2}",
+                        MediaType.APPLICATION_JSON));
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith(API_URL + "/movie/550?")))
+                .andExpect(queryParam("append_to_response", "credits,similar"))
+                .andRespond(withSuccess("{\"title\":\"Fight Club\",\"release_date\":\"1999-10-15\","
+                        + "\"genres\":[{\"id\":18,\"name\":\"Drama\"}],\"runtime\":139,"
+                        + "\"similar\":{\"results\":[{\"id\":807,\"title\":\"Se7en\"}]}}", MediaType.APPLICATION_JSON));
+        tmdb.expect(ExpectedCount.once(), requestTo(startsWith(API_URL + "/movie/603?")))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        int refreshed = refresher.refreshUntil(today);
+
+        tmdb.verify();
+        assertEquals(1, refreshed);
+        ArgumentCaptor<Movie> fetched = ArgumentCaptor.forClass(Movie.class);
+        verify(movieService, times(1)).refreshMovieMetadata(fetched.capture());
+        assertEquals(550L, fetched.getValue().getTmdbId());
+        assertEquals("Fight Club", fetched.getValue().getTitle());
+        assertEquals("1999", fetched.getValue().getYear());
+        assertEquals(Genre.DRAMA.mask(), fetched.getValue().getGenreMask());
+        assertEquals(List.of(807L), fetched.getValue().getSimilarTmdbIds());
+        ArgumentCaptor<SyncCheckpoint> saved = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(checkpointRepository).save(saved.capture());
+        assertEquals(today, saved.getValue().getResumeFrom());
+    }
+}
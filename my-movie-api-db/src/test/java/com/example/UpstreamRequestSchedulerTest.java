@@ -0,0 +1,115 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import com.example.Config.UpstreamRequestScheduler;
+import com.example.Config.UpstreamRequestScheduler.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamRequestSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final List<Priority> executed = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testWaitingCallsAreServedByWeight() throws Exception {
+        UpstreamRequestScheduler scheduler = scheduler(1, 1000, 1);
+        ClientHttpResponse held = call(scheduler, Priority.INTERACTIVE);
+
+        List<Future<?>> waiting = new ArrayList<>();
+        for (Priority priority : List.of(Priority.BACKGROUND, Priority.BACKGROUND, Priority.INTERACTIVE,
+                Priority.INTERACTIVE, Priority.INTERACTIVE)) {
+            waiting.add(callers.submit(() -> {
+                call(scheduler, priority).close();
+                return null;
+            }));
+        }
+        awaitQueued(Priority.BACKGROUND, 2);
+        awaitQueued(Priority.INTERACTIVE, 3);
+
+        held.close();
+        for (Future<?> future : waiting) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(Priority.INTERACTIVE, Priority.BACKGROUND, Priority.INTERACTIVE,
+                Priority.INTERACTIVE, Priority.INTERACTIVE, Priority.BACKGROUND), executed);
+        assertEquals(6, meterRegistry.get("movies.upstream.queue.wait").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void testClassLimitQueuesOnlyThatClass() throws Exception {
+        UpstreamRequestScheduler scheduler = scheduler(4, 50, 1);
+        ClientHttpResponse background = call(scheduler, Priority.BACKGROUND);
+
+        assertThrows(IOException.class, () -> call(scheduler, Priority.BACKGROUND));
+        call(scheduler, Priority.INTERACTIVE).close();
+
+        background.close();
+        call(scheduler, Priority.BACKGROUND).close();
+        assertEquals(0.0, meterRegistry.get("movies.upstream.in-flight").tag("priority", "background").gauge().value());
+    }
+
+    private UpstreamRequestScheduler scheduler(int maxConcurrency, long maxWaitMs, int backgroundMaxConcurrency) {
+        return new UpstreamRequestScheduler(meterRegistry, maxConcurrency, maxWaitMs,
+                4, 8, 2, 4, 1, backgroundMaxConcurrency);
+    }
+
+    private ClientHttpResponse call(UpstreamRequestScheduler scheduler, Priority priority) throws IOException {
+        HttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://tmdb.test/3/movie/115"));
+        ClientHttpRequestExecution execution = (executedRequest, body) -> {
+            executed.add(priority);
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        };
+        try {
+            return UpstreamRequestScheduler.callAs(priority, () -> {
+                try {
+                    return scheduler.intercept(request, new byte[0], execution);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    private void awaitQueued(Priority priority, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("movies.upstream.queue.depth").tag("priority", priority.name().toLowerCase())
+                .gauge().value() < depth) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Calls were not queued");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.Dto.WatchHistory;
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Service.WatchHistoryLog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WatchHistoryLogTest {
+
+    /** Header plus two records. */
+    private static final long TWO_RECORD_SEGMENT = 12 + 2 * 29;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WatchHistoryLog log;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Test
+    void testHistorySurvivesRestart() throws IOException {
+        log = open(1 << 20);
+        toggle(0L, 1L, true);
+        toggle(0L, 1L, false);
+        toggle(7L, 1L, true);
+        log.close();
+
+        log = open(1 << 20);
+
+        List<WatchHistory.Event> events = log.events(0L, 1L);
+        assertEquals(List.of(true, false), events.stream().map(WatchHistory.Event::watched).toList());
+        assertTrue(!events.get(0).at().isAfter(events.get(1).at()));
+        assertEquals(1, log.events(7L, 1L).size());
+    }
+
+    @Test
+    void testRemovalEndsHistoryAndOtherChangesAreNotLogged() throws IOException {
+        log = open(1 << 20);
+        toggle(0L, 1L, true);
+        toggle(0L, 2L, true);
+        log.onMovieChange(MovieChangeEvent.deleted(0L, movie(1L, true)));
+        log.onMovieChange(MovieChangeEvent.updated(0L, movie(2L, true), movie(2L, true)));
+        log.onMovieChange(MovieChangeEvent.updated(movie(2L, false), movie(2L, true)));
+        log.onMovieChange(MovieChangeEvent.added(0L, movie(3L, false)));
+
+        assertEquals(List.of(), log.events(0L, 1L));
+        assertEquals(1, log.events(0L, 2L).size());
+        assertEquals(List.of(), log.events(0L, 3L));
+        assertEquals(3.0, meterRegistry.get("movies.history.records").counter().count());
+    }
+
+    @Test
+    void testTornRecordIsTruncatedOnReplay() throws IOException {
+        log = open(1 << 20);
+        toggle(0L, 1L, true);
+        toggle(0L, 1L, false);
+        log.close();
+        Path segment = segments().get(segments().size() - 1);
+        long size = Files.size(segment);
+        Files.write(segment, new byte[] {1, 0, 0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        log = open(1 << 20);
+
+        assertEquals(2, log.events(0L, 1L).size());
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    void testCompactionMergesSegmentsAndDropsRemovedHistories() throws IOException {
+        log = open(TWO_RECORD_SEGMENT);
+        toggle(0L, 1L, true);
+        toggle(0L, 1L, false);
+        toggle(0L, 2L, true);
+        toggle(0L, 3L, true);
+        log.onMovieChange(MovieChangeEvent.deleted(0L, movie(3L, true)));
+        assertEquals(3, segments().size());
+
+        log.compact();
+        toggle(0L, 2L, false);
+
+        assertEquals(2, segments().size());
+        log.close();
+        log = open(TWO_RECORD_SEGMENT);
+        assertEquals(2, log.events(0L, 1L).size());
+        assertEquals(2, log.events(0L, 2L).size());
+        assertEquals(List.of(), log.events(0L, 3L));
+    }
+
+    @Test
+    void testSegmentsReplacedByInterruptedCompactionAreSkipped() throws IOException {
+        log = open(TWO_RECORD_SEGMENT);
+        toggle(0L, 1L, true);
+        toggle(0L, 1L, false);
+        toggle(0L, 1L, true);
+        Path first = segments().get(0);
+        Path saved = directory.resolve("saved");
+        Files.copy(first, saved);
+
+        log.compact();
+        log.close();
+        Files.move(saved, first, StandardCopyOption.REPLACE_EXISTING);
+
+        log = open(TWO_RECORD_SEGMENT);
+        assertEquals(3, log.events(0L, 1L).size());
+        assertTrue(Files.notExists(first));
+    }
+
+    @Test
+    void testConcurrentAppendsShareSyncs() throws Exception {
+        log = open(1 << 20);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long userId = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        toggle(userId, 1L, i % 2 == 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (long userId = 0; userId < 8; userId++) {
+            assertEquals(50, log.events(userId, 1L).size());
+        }
+        assertEquals(400.0, meterRegistry.get("movies.history.sync.batch").summary().totalAmount());
+    }
+
+    @Test
+    void testAppendsDuringASyncShareTheNextOne() throws Exception {
+        CountDownLatch forcing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        meterRegistry = new SimpleMeterRegistry();
+        log = new WatchHistoryLog(meterRegistry, directory, true, 1 << 20, true, 4) {
+            @Override
+            protected void force(FileChannel channel) throws IOException {
+                forcing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.force(channel);
+            }
+        };
+        log.open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> toggle(0L, 1L, true)));
+            assertTrue(forcing.await(10, TimeUnit.SECONDS));
+            for (long userId = 1; userId < 8; userId++) {
+                long user = userId;
+                futures.add(executor.submit(() -> toggle(user, 1L, true)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (meterRegistry.get("movies.history.records").counter().count() < 8 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2, meterRegistry.get("movies.history.sync").timer().count());
+        assertEquals(7.0, meterRegistry.get("movies.history.sync.batch").summary().max());
+        assertEquals(8.0, meterRegistry.get("movies.history.sync.batch").summary().totalAmount());
+    }
+
+    private WatchHistoryLog open(long segmentBytes) throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        WatchHistoryLog opened = new WatchHistoryLog(meterRegistry, directory, true, segmentBytes, true, 4);
+        opened.open();
+        return opened;
+    }
+
+    private void toggle(long userId, long movieId, boolean watched) {
+        log.onMovieChange(MovieChangeEvent.updated(userId, movie(movieId, !watched), movie(movieId, watched)));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("history-")).sorted().toList();
+        }
+    }
+
+    private static MovieSnapshot movie(Long id, boolean watched) {
+        return new MovieSnapshot(id, "Movie " + id, "2000", null, null, 0L, watched, null);
+    }
+}
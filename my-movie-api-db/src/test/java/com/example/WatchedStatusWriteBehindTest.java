@@ -0,0 +1,154 @@
+package com.example;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Service.WatchedStatusWriteBehind;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class WatchedStatusWriteBehindTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WatchedStatusWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehind = new WatchedStatusWriteBehind(jdbcTemplate, meterRegistry, true, 100);
+    }
+
+    @Test
+    void testTogglesCoalesceAndStayVisibleUntilFlushed() {
+        writeBehind.record(0L, 1L, true);
+        writeBehind.record(0L, 1L, false);
+        writeBehind.record(0L, 1L, true);
+        writeBehind.record(0L, 2L, false);
+
+        assertEquals(Boolean.TRUE, writeBehind.pendingWatched(0L, 1L));
+        assertEquals(Boolean.FALSE, writeBehind.pendingWatched(0L, 2L));
+
+        writeBehind.flush();
+
+        ArgumentCaptor<SqlParameterSource> parameters = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate, times(1)).update(anyString(), parameters.capture());
+        assertEquals(List.of(1L), ((MapSqlParameterSource) parameters.getValue()).getValue("watchedIds"));
+        assertNull(writeBehind.pendingWatched(0L, 1L));
+        assertNull(writeBehind.pendingWatched(0L, 2L));
+        assertEquals(0.5, meterRegistry.get("movies.watched.write-behind.coalescing.ratio").gauge().value());
+    }
+
+    @Test
+    void testTogglesAreKeptAndWrittenPerUser() {
+        writeBehind.record(0L, 1L, true);
+        writeBehind.record(7L, 1L, false);
+
+        assertEquals(Boolean.TRUE, writeBehind.pendingWatched(0L, 1L));
+        assertEquals(Boolean.FALSE, writeBehind.pendingWatched(7L, 1L));
+        assertNull(writeBehind.pendingWatched(7L, 2L));
+
+        writeBehind.flush();
+
+        ArgumentCaptor<SqlParameterSource> parameters = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate, times(2)).update(anyString(), parameters.capture());
+        assertEquals(Set.of(0L, 7L), parameters.getAllValues().stream()
+                .map(values -> values.getValue("userId"))
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testEveryToggleRaisesTheVersion() {
+        writeBehind.record(0L, 1L, true);
+        assertEquals(1, writeBehind.pendingToggles(0L, 1L));
+        writeBehind.record(0L, 1L, false);
+        writeBehind.record(0L, 2L, true);
+
+        assertEquals(2, writeBehind.pendingToggles(0L, 1L));
+        assertEquals(1, writeBehind.pendingToggles(0L, 2L));
+        assertEquals(0, writeBehind.pendingToggles(0L, 3L));
+
+        writeBehind.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource> parameters = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate, times(1)).update(sql.capture(), parameters.capture());
+        assertTrue(sql.getValue().contains("version = version + case when movie_id in (:toggledIds2) then 2 else 1 end"),
+                sql.getValue());
+        assertEquals(List.of(1L), ((MapSqlParameterSource) parameters.getValue()).getValue("toggledIds2"));
+        assertEquals(0, writeBehind.pendingToggles(0L, 1L));
+    }
+
+    @Test
+    void testTogglesDuringAWriteStayPendingLessTheWrittenOnes() {
+        writeBehind.record(0L, 1L, true);
+        writeBehind.record(0L, 1L, false);
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class))).thenAnswer(invocation -> {
+            writeBehind.record(0L, 1L, true);
+            return 1;
+        });
+
+        writeBehind.flush();
+
+        assertEquals(Boolean.TRUE, writeBehind.pendingWatched(0L, 1L));
+        assertEquals(1, writeBehind.pendingToggles(0L, 1L));
+    }
+
+    @Test
+    void testDeletedEntryDropsPendingToggle() {
+        MovieSnapshot movie = new MovieSnapshot(1L, "Movie 1", "2000", null, null, 0L, true, null);
+        writeBehind.record(0L, 1L, true);
+        writeBehind.record(7L, 1L, true);
+
+        writeBehind.onMovieChange(MovieChangeEvent.deleted(movie));
+        assertEquals(Boolean.TRUE, writeBehind.pendingWatched(0L, 1L));
+        writeBehind.onMovieChange(MovieChangeEvent.deleted(0L, movie));
+
+        assertNull(writeBehind.pendingWatched(0L, 1L));
+        assertEquals(Boolean.TRUE, writeBehind.pendingWatched(7L, 1L));
+    }
+
+    @Test
+    void testFailedFlushKeepsPendingToggles() {
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        writeBehind.record(0L, 1L, true);
+
+        writeBehind.flush();
+
+        assertEquals(Boolean.TRUE, writeBehind.pendingWatched(0L, 1L));
+    }
+
+    @Test
+    void testFlushWithoutTogglesRunsNoStatement() {
+        writeBehind.flush();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+    }
+}
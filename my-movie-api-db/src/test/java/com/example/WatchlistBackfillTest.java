@@ -0,0 +1,53 @@
+package com.example;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.example.Service.WatchlistBackfill;
+
+class WatchlistBackfillTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private WatchlistBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:backfill-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table movies (id int primary key, deleted_at timestamp)");
+        jdbcTemplate.execute("create table watchlist_entries (user_id bigint, movie_id int, watched boolean, "
+                + "added_at timestamp(6) not null, version bigint, "
+                + "primary key (user_id, movie_id), foreign key (movie_id) references movies (id))");
+        jdbcTemplate.update("insert into movies values (1, null), (2, null), (3, null), (4, current_timestamp)");
+        backfill = new WatchlistBackfill(jdbcTemplate);
+    }
+
+    @Test
+    void testLinksLegacyMoviesToDefaultWatchlistOnce() {
+        jdbcTemplate.execute("alter table movies add column watched boolean");
+        jdbcTemplate.update("update movies set watched = true where id = 2");
+        jdbcTemplate.update("insert into watchlist_entries values (7, 3, false, current_timestamp, 0)");
+
+        assertEquals(2, backfill.backfill());
+        assertEquals(0, backfill.backfill());
+
+        assertEquals(List.of(1, 2), jdbcTemplate.queryForList(
+                "select movie_id from watchlist_entries where user_id = 0 order by movie_id", Integer.class));
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject(
+                "select watched from watchlist_entries where user_id = 0 and movie_id = 2", Boolean.class));
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject(
+                "select watched from watchlist_entries where user_id = 0 and movie_id = 1", Boolean.class));
+    }
+
+    @Test
+    void testLeavesCurrentSchemaAlone() {
+        assertEquals(0, backfill.backfill());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from watchlist_entries", Integer.class));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.example.Service.WatchlistSnapshot;
+
+class WatchlistSnapshotTest {
+
+    private JdbcTemplate source;
+    private JdbcTemplate target;
+    private byte[] poster;
+
+    @BeforeEach
+    void setUp() {
+        source = database("snapshot-source");
+        target = database("snapshot-target");
+        source.update("insert into movies (id, movie_id, tmdb_id, title, year, director, genre, genre_mask, "
+                + "similar_movie_title, version, updated_at, deleted_at) values "
+                + "(1, 133093, 603, 'The Matrix', '1999', 'Lana Wachowski', 'Action', 1, 'Dark City', 3, "
+                + "timestamp '2024-05-01 10:15:30.123456', null), "
+                + "(2, 83658, null, 'Blade Runner', '1982', null, null, 0, null, 0, null, null), "
+                + "(3, 99999, 7, 'Deleted', '2000', null, null, 0, null, 0, null, current_timestamp)");
+        source.update("insert into movie_similar values (1, 0, 604), (1, 1, 605), (3, 0, 1)");
+        source.update("insert into watchlist_entries values (0, 1, true, timestamp '2024-01-01 00:00:00', 2, null), "
+                + "(0, 2, false, timestamp '2024-01-02 00:00:00', 0, timestamp '2024-01-03 00:00:00'), "
+                + "(7, 1, false, timestamp '2024-02-01 00:00:00', 0, null), "
+                + "(7, 3, false, timestamp '2024-02-01 00:00:00', 0, null)");
+        // Spans several chunks
+        poster = new byte[600 * 1024 + 17];
+        for (int i = 0; i < poster.length; i++) {
+            poster[i] = (byte) (i * 31);
+        }
+        source.update("insert into movie_images values (10, 1, 'poster', ?, 'image/jpeg', ?, 'abc')",
+                poster, poster.length);
+        source.update("insert into movie_images values (11, 2, 'poster', ?, 'image/png', null, null)",
+                new byte[] {1, 2, 3});
+        source.update("insert into movie_images values (12, 3, 'poster', ?, 'image/png', 3, null)",
+                new byte[] {4, 5, 6});
+    }
+
+    @Test
+    void testRoundTripRestoresLiveRowsAndImages() throws IOException {
+        byte[] snapshot = export();
+
+        WatchlistSnapshot.Counts counts = snapshot(target).restore(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+
+        assertEquals(new WatchlistSnapshot.Counts(2, 2, 3, 2, poster.length + 3L), counts);
+        String movies = "select id, movie_id, tmdb_id, title, year, director, genre, genre_mask, similar_movie_title, "
+                + "version, updated_at from movies where deleted_at is null order by id";
+        assertEquals(source.queryForList(movies), target.queryForList(movies));
+        assertEquals(List.of(Map.of("MOVIE_ID", 1, "SIMILAR_POSITION", 0, "SIMILAR_TMDB_ID", 604L),
+                Map.of("MOVIE_ID", 1, "SIMILAR_POSITION", 1, "SIMILAR_TMDB_ID", 605L)),
+                target.queryForList("select * from movie_similar order by similar_position"));
+        String entries = "select * from watchlist_entries order by user_id, movie_id";
+        assertEquals(source.queryForList(entries).subList(0, 3), target.queryForList(entries));
+        assertArrayEquals(poster, target.queryForObject("select image_data from movie_images where id = 10", byte[].class));
+        assertArrayEquals(new byte[] {1, 2, 3},
+                target.queryForObject("select image_data from movie_images where id = 11", byte[].class));
+        assertEquals(List.of(Map.of("ID", 10L, "CONTENT_LENGTH", (long) poster.length)),
+                target.queryForList("select id, content_length from movie_images where content_length is not null"));
+    }
+
+    @Test
+    void testExportFailureIsReportedAsIOException() {
+        WritableByteChannel failing = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertThrows(IOException.class, () -> snapshot(source).export(failing));
+    }
+
+    @Test
+    void testRestoreRefusesNonEmptyDatabase() throws IOException {
+        byte[] snapshot = export();
+
+        assertThrows(IllegalStateException.class,
+                () -> snapshot(source).restore(Channels.newChannel(new ByteArrayInputStream(snapshot))));
+        assertEquals(3, source.queryForObject("select count(*) from movies", Integer.class));
+    }
+
+    @Test
+    void testCorruptSnapshotIsRejectedAndNothingIsRestored() throws IOException {
+        byte[] snapshot = export();
+        snapshot[snapshot.length / 2] ^= 1;
+
+        assertThrows(IOException.class,
+                () -> snapshot(target).restore(Channels.newChannel(new ByteArrayInputStream(snapshot))));
+        assertEquals(0, target.queryForObject("select count(*) from movies", Integer.class));
+    }
+
+    @Test
+    void testTruncatedSnapshotIsRejectedAndNothingIsRestored() throws IOException {
+        byte[] snapshot = Arrays.copyOf(export(), 200);
+
+        assertThrows(IOException.class,
+                () -> snapshot(target).restore(Channels.newChannel(new ByteArrayInputStream(snapshot))));
+        assertEquals(0, target.queryForObject("select count(*) from movies", Integer.class));
+        assertThrows(IOException.class,
+                () -> snapshot(target).restore(Channels.newChannel(new ByteArrayInputStream(new byte[] {1, 2, 3}))));
+    }
+
+    private byte[] export() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot(source).export(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static WatchlistSnapshot snapshot(JdbcTemplate jdbcTemplate) {
+        return new WatchlistSnapshot(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()), 2);
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR", "sa", ""));
+        jdbcTemplate.execute("create table movies (id int primary key, movie_id bigint not null, tmdb_id bigint, "
+                + "title varchar(255), year varchar(20), director varchar(255), genre varchar(255), "
+                + "genre_mask bigint not null, similar_movie_title varchar(255), version bigint not null, "
+                + "updated_at timestamp(6), deleted_at timestamp(6))");
+        jdbcTemplate.execute("create table movie_similar (movie_id int not null, similar_position int not null, "
+                + "similar_tmdb_id bigint not null, foreign key (movie_id) references movies (id))");
+        jdbcTemplate.execute("create table watchlist_entries (user_id bigint, movie_id int, watched boolean not null, "
+                + "added_at timestamp(6) not null, version bigint not null, updated_at timestamp(6), "
+                + "primary key (user_id, movie_id), foreign key (movie_id) references movies (id))");
+        jdbcTemplate.execute("create table movie_images (id bigint auto_increment primary key, movie_id int not null, "
+                + "image_type varchar(255) not null, image_data blob not null, content_type varchar(255) not null, "
+                + "content_length bigint, content_sha256 varchar(64), foreign key (movie_id) references movies (id))");
+        return jdbcTemplate;
+    }
+}
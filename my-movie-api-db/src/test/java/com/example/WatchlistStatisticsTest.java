@@ -0,0 +1,213 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.Event.MovieChangeEvent;
+import com.example.Event.MovieSnapshot;
+import com.example.Model.Genre;
+import com.example.Repository.WatchlistEntryRepository;
+import com.example.Service.WatchlistStatistics;
+
+@ExtendWith(MockitoExtension.class)
+class WatchlistStatisticsTest {
+
+    @Mock
+    private WatchlistEntryRepository watchlistEntryRepository;
+
+    /** The watchlist entries joined with their movies, per user, as the GROUP BY queries see them. */
+    private final Map<Long, Map<Long, MovieSnapshot>> table = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(watchlistEntryRepository.countByWatched(anyLong()))
+                .thenAnswer(invocation -> groupBy(invocation.getArgument(0), movie -> List.of(movie.watched())));
+        when(watchlistEntryRepository.countByDirector(anyLong()))
+                .thenAnswer(invocation -> groupBy(invocation.getArgument(0), movie -> listOf(movie.director())));
+        when(watchlistEntryRepository.countByYear(anyLong()))
+                .thenAnswer(invocation -> groupBy(invocation.getArgument(0), movie -> listOf(movie.year())));
+        when(watchlistEntryRepository.countByGenre(anyLong())).thenAnswer(invocation -> groupBy(
+                invocation.getArgument(0), movie -> listOf(movie.genreMask(), movie.genre())));
+        insert(0L, movie(1L, "Action", "Nolan", "2010", true));
+        insert(0L, movie(2L, "Action,Drama", "Nolan", "2014", false));
+        insert(7L, movie(1L, "Action", "Nolan", "2010", false));
+    }
+
+    @Test
+    void testAddedUpdatedAndDeletedEventsKeepSummaryEqualToReload() {
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 10);
+        assertEquals(2, statistics.getSummary(0L).total());
+
+        MovieSnapshot added = movie(3L, null, null, null, false);
+        insert(0L, added);
+        statistics.onMovieChange(MovieChangeEvent.added(0L, added));
+        MovieSnapshot before = table.get(0L).get(2L);
+        MovieSnapshot watched = movie(2L, "Action,Drama", "Nolan", "2014", true);
+        insert(0L, watched);
+        statistics.onMovieChange(MovieChangeEvent.updated(0L, before, watched));
+        MovieSnapshot deleted = table.get(0L).remove(1L);
+        statistics.onMovieChange(MovieChangeEvent.deleted(0L, deleted));
+
+        WatchlistStatistics.Summary summary = statistics.getSummary(0L);
+        verify(watchlistEntryRepository, times(1)).countByWatched(0L);
+        assertEquals(new WatchlistStatistics.Summary(2, 1, 1, Map.of("Action", 1L, "Drama", 1L, "Unknown", 1L),
+                Map.of("Nolan", 1L, "Unknown", 1L), Map.of("2014", 1L, "Unknown", 1L)), summary);
+        assertEquals(reload(0L), summary);
+    }
+
+    @Test
+    void testChangesOfOtherUsersLeaveSummaryAlone() {
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 10);
+        WatchlistStatistics.Summary summary = statistics.getSummary(0L);
+
+        MovieSnapshot watched = movie(1L, "Action", "Nolan", "2010", true);
+        statistics.onMovieChange(MovieChangeEvent.updated(7L, table.get(7L).put(1L, watched), watched));
+
+        assertEquals(summary, statistics.getSummary(0L));
+        assertEquals(1, statistics.getSummary(7L).watched());
+        verify(watchlistEntryRepository, times(1)).countByWatched(0L);
+    }
+
+    @Test
+    void testCatalogueUpdateReloadsEveryUser() {
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 10);
+        statistics.getSummary(0L);
+        statistics.getSummary(7L);
+
+        MovieSnapshot before = movie(1L, "Action", "Nolan", "2010", false);
+        MovieSnapshot after = movie(1L, "Action", "Christopher Nolan", "2010", false);
+        insert(0L, movie(1L, "Action", "Christopher Nolan", "2010", true));
+        insert(7L, after);
+        statistics.onMovieChange(MovieChangeEvent.updated(before, after));
+
+        assertEquals(reload(0L), statistics.getSummary(0L));
+        assertEquals(Map.of("Christopher Nolan", 1L), statistics.getSummary(7L).byDirector());
+        verify(watchlistEntryRepository, times(2)).countByDirector(7L);
+    }
+
+    @Test
+    void testLeastRecentlyUsedUserIsEvictedAndReloadedFromTables() {
+        insert(8L, movie(4L, "Comedy", "Wright", "2004", false));
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 2);
+        statistics.getSummary(0L);
+        statistics.getSummary(7L);
+        statistics.getSummary(0L);
+        statistics.getSummary(8L);
+
+        // User 7 was evicted, so this change is only in the tables
+        MovieSnapshot watched = movie(1L, "Action", "Nolan", "2010", true);
+        statistics.onMovieChange(MovieChangeEvent.updated(7L, table.get(7L).put(1L, watched), watched));
+
+        WatchlistStatistics.Summary user7 = statistics.getSummary(7L);
+        assertEquals(1, user7.watched());
+        verify(watchlistEntryRepository, times(2)).countByWatched(7L);
+        verify(watchlistEntryRepository, times(1)).countByWatched(0L);
+        // Reloading user 7 evicted user 0, read less recently than user 8
+        WatchlistStatistics.Summary user0 = statistics.getSummary(0L);
+        verify(watchlistEntryRepository, times(2)).countByWatched(0L);
+        verify(watchlistEntryRepository, times(1)).countByWatched(8L);
+        assertEquals(reload(7L), user7);
+        assertEquals(reload(0L), user0);
+    }
+
+    @Test
+    void testLoadRacingAChangeIsNotCached() {
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 10);
+        MovieSnapshot added = movie(3L, "Drama", "Villeneuve", "2016", false);
+        when(watchlistEntryRepository.countByWatched(0L)).thenAnswer(invocation -> {
+            List<Object[]> rows = groupBy(0L, movie -> List.of(movie.watched()));
+            insert(0L, added);
+            statistics.onMovieChange(MovieChangeEvent.added(0L, added));
+            return rows;
+        }).thenAnswer(invocation -> groupBy(0L, movie -> List.of(movie.watched())));
+
+        statistics.getSummary(0L);
+
+        assertEquals(3, statistics.getSummary(0L).total());
+        assertEquals(reload(0L), statistics.getSummary(0L));
+    }
+
+    @Test
+    void testReconcileReplacesDriftedAggregatesOnly() {
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 10);
+        WatchlistStatistics.Summary user0 = statistics.getSummary(0L);
+        WatchlistStatistics.Summary user7 = statistics.getSummary(7L);
+
+        // Written behind the statistics' back, so no event was published
+        insert(0L, movie(3L, "Comedy", "Wright", "2004", true));
+        statistics.reconcile();
+
+        assertEquals(2, user0.total());
+        assertEquals(3, statistics.getSummary(0L).total());
+        assertSame(user7, statistics.getSummary(7L));
+        verify(watchlistEntryRepository, times(2)).countByWatched(0L);
+        verify(watchlistEntryRepository, times(2)).countByWatched(7L);
+        assertEquals(reload(0L), statistics.getSummary(0L));
+    }
+
+    @Test
+    void testReconcileSkipsUserChangedWhileQuerying() {
+        WatchlistStatistics statistics = new WatchlistStatistics(watchlistEntryRepository, 10);
+        statistics.getSummary(0L);
+        MovieSnapshot added = movie(3L, "Drama", "Villeneuve", "2016", false);
+        when(watchlistEntryRepository.countByWatched(0L)).thenAnswer(invocation -> {
+            insert(0L, added);
+            statistics.onMovieChange(MovieChangeEvent.added(0L, added));
+            // Stale rows, as if read before the change committed
+            return List.<Object[]>of(new Object[] {false, 1L}, new Object[] {true, 1L});
+        });
+
+        statistics.reconcile();
+
+        assertEquals(3, statistics.getSummary(0L).total());
+        assertEquals(1, statistics.getSummary(0L).watched());
+    }
+
+    private WatchlistStatistics.Summary reload(long userId) {
+        return new WatchlistStatistics(watchlistEntryRepository, 10).getSummary(userId);
+    }
+
+    private void insert(long userId, MovieSnapshot movie) {
+        table.computeIfAbsent(userId, user -> new LinkedHashMap<>()).put(movie.id(), movie);
+    }
+
+    private List<Object[]> groupBy(long userId, Function<MovieSnapshot, List<Object>> key) {
+        Map<List<Object>, Long> counts = new LinkedHashMap<>();
+        table.getOrDefault(userId, Map.of()).values().forEach(movie -> counts.merge(key.apply(movie), 1L, Long::sum));
+        List<Object[]> rows = new ArrayList<>();
+        counts.forEach((group, count) -> {
+            List<Object> row = new ArrayList<>(group);
+            row.add(count);
+            rows.add(row.toArray());
+        });
+        return rows;
+    }
+
+    private static List<Object> listOf(Object... values) {
+        List<Object> list = new ArrayList<>();
+        for (Object value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static MovieSnapshot movie(Long id, String genre, String director, String year, boolean watched) {
+        return new MovieSnapshot(id, "Movie " + id, year, director, genre, Genre.maskOfNames(genre), watched, null);
+    }
+}